@@ -0,0 +1,72 @@
+package com.example.sqsmicro.benchmarks;
+
+import com.example.sqsmicro.builders.FlightNotificationBuilder;
+import com.example.sqsmicro.records.FlightLegNotification;
+import com.example.sqsmicro.records.UniqueFlightId;
+import com.example.sqslib.service.XmlService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación del IATAAIDXFlightLegNotifRQ en el productor:
+ * - jaxb: buildNotif + XmlService.toXml, el camino sin template.
+ * - template: FlightNotificationBuilder.toXml con el template pre-serializado (app.producer.aidx-template.enabled).
+ * - uniqueFlightId: UniqueFlightId.toKeyId, que se calcula en cada envío.
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=AidxSerializationBenchmark
+ * </pre>
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AidxSerializationBenchmark {
+
+    private XmlService xmlService;
+    private FlightNotificationBuilder templateBuilder;
+    private FlightLegNotification notification;
+    private UniqueFlightId uniqueFlightId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.xmlService = new XmlService();
+        this.templateBuilder = new FlightNotificationBuilder(xmlService, true);
+        this.notification = templateBuilder.newNotification("QR", "1234");
+        this.uniqueFlightId = new UniqueFlightId(notification.airlineCode(), notification.flightNumber(), notification.timeStamp().toLocalDate(),
+                notification.departureAirport(), notification.arrivalAirport(), Optional.empty(), Optional.empty());
+        // Compila el template fuera de la medición
+        templateBuilder.toXml(notification);
+    }
+
+    @Benchmark
+    public String jaxb() {
+        return xmlService.toXml(templateBuilder.buildNotif(notification));
+    }
+
+    @Benchmark
+    public String template() {
+        return templateBuilder.toXml(notification);
+    }
+
+    @Benchmark
+    public String uniqueFlightId() {
+        return uniqueFlightId.toKeyId();
+    }
+}
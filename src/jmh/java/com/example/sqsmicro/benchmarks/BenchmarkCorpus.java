@@ -0,0 +1,42 @@
+package com.example.sqsmicro.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Corpus de los benchmarks: los IATAAIDXFlightLegNotifRQ reales de payloads.txt (uno por línea).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+final class BenchmarkCorpus {
+
+    private BenchmarkCorpus() {
+    }
+
+    static List<String> lines() throws IOException {
+        try (InputStream in = BenchmarkCorpus.class.getResourceAsStream("/payloads.txt")) {
+            if (in == null) {
+                throw new IllegalStateException("payloads.txt not found in the classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(line -> !line.isBlank())
+                    .toList();
+        }
+    }
+
+    /**
+     * Payload de 'legs' notificaciones del corpus, en ciclo (1 = un mensaje normal; más = mensaje multi-leg).
+     */
+    static String payload(int legs) throws IOException {
+        List<String> lines = lines();
+        List<String> selected = new ArrayList<>(legs);
+        for (int i = 0; i < legs; i++) {
+            selected.add(lines.get(i % lines.size()));
+        }
+        return String.join("\n", selected);
+    }
+}
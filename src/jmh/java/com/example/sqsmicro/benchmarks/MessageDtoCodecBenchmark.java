@@ -0,0 +1,75 @@
+package com.example.sqsmicro.benchmarks;
+
+import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.util.AesGcmPayloadCipher;
+import com.example.sqsmicro.util.MessageEnvelope;
+import com.example.sqsmicro.util.PayloadFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.crypto.KeyGenerator;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ida y vuelta del MessageDto por el body SQS, con un payload real cifrado (una notificación, AES-GCM):
+ * JSON (Jackson, como lo convierte Spring) frente al envelope binario ({@link MessageEnvelope}).
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=MessageDtoCodecBenchmark
+ * </pre>
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageDtoCodecBenchmark {
+
+    private JsonMapper jsonMapper;
+    private MessageDto message;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.jsonMapper = new JsonMapper();
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        String encryptedPayload = AesGcmPayloadCipher.encrypt(BenchmarkCorpus.payload(1), keyGenerator.generateKey());
+        // Data key envuelta con RSA-2048: 256 bytes
+        String encryptedKey = Base64.getEncoder().encodeToString(new byte[256]);
+        Map<String, String> metadata = Map.of(
+                "message_type", "IATAAIDXFlightLegNotifRQ",
+                "correlation_id", "5f0c2a9e-8f7b-4c1d-9a3e-2b6d7c8e9f01",
+                PayloadFormat.METADATA_KEY, PayloadFormat.AES_GCM.version(),
+                "key_id", "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+        this.message = new MessageDto(metadata, encryptedPayload, encryptedKey, "QR-1234-20260111-LAX-GRU");
+        log.info("body: json={} bytes, envelope={} bytes",
+                jsonMapper.writeValueAsString(message).length(), MessageEnvelope.encode(message).length());
+    }
+
+    @Benchmark
+    public MessageDto json() {
+        return jsonMapper.readValue(jsonMapper.writeValueAsString(message), MessageDto.class);
+    }
+
+    @Benchmark
+    public MessageDto envelope() {
+        return MessageEnvelope.decode(MessageEnvelope.encode(message));
+    }
+}
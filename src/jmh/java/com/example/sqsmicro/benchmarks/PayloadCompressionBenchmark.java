@@ -0,0 +1,116 @@
+package com.example.sqsmicro.benchmarks;
+
+import com.example.sqsmicro.util.AesGcmPayloadCipher;
+import com.example.sqsmicro.util.PayloadCodec;
+import com.example.sqsmicro.util.PayloadCompressor;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara los codecs de la etapa de compresión sobre el corpus real (payloads.txt), midiendo la etapa completa
+ * de cada lado: compresión + AES-GCM en el productor, descifrado + descompresión en el consumidor.
+ * 'identity' es la línea base (solo cifrado).
+ * <p>
+ * - single: un IATAAIDXFlightLegNotifRQ por mensaje, como los envía hoy el productor.
+ * - joined: el corpus completo en un solo payload, como un mensaje multi-leg.
+ * El tamaño del payload cifrado de cada combinación se loguea en el setup.
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=PayloadCompressionBenchmark
+ * </pre>
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadCompressionBenchmark {
+
+    @Param({"identity", "deflate:1", "deflate:6", "deflate:9"})
+    private String codec;
+
+    @Param({"single", "joined"})
+    private String corpus;
+
+    private List<String> payloads;
+    private List<String> sealedPayloads;
+    private PayloadCompressor compressor;
+    private PayloadCodec payloadCodec;
+    private SecretKey aesKey;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<String> lines = BenchmarkCorpus.lines();
+        this.payloads = "joined".equals(corpus) ? List.of(String.join("\n", lines)) : lines;
+        String[] codecAndLevel = codec.split(":");
+        int level = codecAndLevel.length > 1 ? Integer.parseInt(codecAndLevel[1]) : 6;
+        // Sin umbral de tamaño: se comprime todo para comparar el costo real de cada nivel
+        this.compressor = new PayloadCompressor(codecAndLevel[0], 0, level, Integer.MAX_VALUE, level);
+        this.payloadCodec = compressor.codec();
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        this.aesKey = keyGenerator.generateKey();
+
+        this.sealedPayloads = new ArrayList<>(payloads.size());
+        long plainBytes = 0;
+        long sealedBytes = 0;
+        for (String payload : payloads) {
+            String sealed = seal(payload);
+            sealedPayloads.add(sealed);
+            plainBytes += payload.getBytes(StandardCharsets.UTF_8).length;
+            sealedBytes += sealed.length();
+        }
+        log.info("[{}/{}] plain={} bytes, encryptedPayload={} bytes ({}%)",
+                codec, corpus, plainBytes, sealedBytes, Math.round(100.0 * sealedBytes / plainBytes));
+    }
+
+    @Benchmark
+    public String produce() throws Exception {
+        return seal(payloads.get(nextIndex()));
+    }
+
+    @Benchmark
+    public int consume() throws Exception {
+        ByteBuffer plaintext = AesGcmPayloadCipher.decryptToBuffer(sealedPayloads.get(nextIndex()), aesKey);
+        try (InputStream decoded = payloadCodec.decode(new ByteArrayInputStream(plaintext.array(), plaintext.arrayOffset() + plaintext.position(), plaintext.remaining()))) {
+            return decoded.readAllBytes().length;
+        }
+    }
+
+    private String seal(String payload) throws Exception {
+        ByteBuffer compressed = compressor.compress(payload);
+        return compressed != null ? AesGcmPayloadCipher.encrypt(compressed, aesKey) : AesGcmPayloadCipher.encrypt(payload, aesKey);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == payloads.size() ? 0 : index + 1;
+        return index;
+    }
+}
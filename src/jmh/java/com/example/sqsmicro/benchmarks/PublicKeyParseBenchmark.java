@@ -0,0 +1,63 @@
+package com.example.sqsmicro.benchmarks;
+
+import com.example.sqsmicro.util.EncryptDecryptMessageUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo de la clave pública de un peer tal como llega del Config Server: PEM (Bouncy Castle) o Base64 crudo (KeyFactory).
+ * Mide {@link EncryptDecryptMessageUtil#parsePublicKey(String)}, que es lo que hace loadPublicKey sin guardar estado;
+ * es el costo que {@link com.example.sqsmicro.util.PublicKeyCache} evita en cada envío.
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=PublicKeyParseBenchmark
+ * </pre>
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublicKeyParseBenchmark {
+
+    @Param({"pem", "raw"})
+    private String mode;
+
+    private String publicKeyContent;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        String encoded = Base64.getEncoder().encodeToString(generator.generateKeyPair().getPublic().getEncoded());
+        this.publicKeyContent = "pem".equals(mode)
+                ? "-----BEGIN PUBLIC KEY-----\n"
+                        + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(Base64.getDecoder().decode(encoded))
+                        + "\n-----END PUBLIC KEY-----\n"
+                : encoded;
+    }
+
+    @Benchmark
+    public PublicKey parsePublicKey() throws Exception {
+        return EncryptDecryptMessageUtil.parsePublicKey(publicKeyContent);
+    }
+}
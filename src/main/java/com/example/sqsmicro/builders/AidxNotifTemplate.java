@@ -0,0 +1,174 @@
+package com.example.sqsmicro.builders;
+
+import com.example.sqsmicro.records.FlightLegNotification;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * IATAAIDXFlightLegNotifRQ pre-serializado: el XML de un mensaje prototipo (marshalleado una vez con JAXB) partido
+ * en segmentos fijos y huecos por campo. Renderizar un mensaje es concatenar segmentos y valores escapados,
+ * sin grafo de objetos ni marshaller.
+ * <p>
+ * El prototipo lleva valores centinela en cada campo variable; {@link #compile(String)} los localiza en el XML.
+ * Si algún centinela no aparece exactamente una vez (ej: otro formato de fecha en el adapter JAXB) la compilación
+ * falla y el builder sigue usando JAXB.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+final class AidxNotifTemplate {
+
+	// Los timestamps se renderizan a segundos: el sufijo que agregue el adapter JAXB (ej: '.000') queda en el segmento fijo
+	private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+	private static final DateTimeFormatter DATE = DateTimeFormatter.ISO_LOCAL_DATE;
+
+	static final LocalDateTime TIME_STAMP_SENTINEL = LocalDateTime.of(1901, 1, 1, 1, 1, 1);
+	static final LocalDateTime ORIGIN_DATE_SENTINEL = LocalDateTime.of(1902, 2, 2, 2, 2, 2);
+
+	/**
+	 * Mensaje prototipo: un centinela por campo variable.
+	 */
+	static final FlightLegNotification PROTOTYPE = new FlightLegNotification(
+			"AIDXSLOTAIRLINE", "AIDXSLOTFLIGHTNUMBER", "AIDXSLOTDEPARTURE", "AIDXSLOTARRIVAL", "AIDXSLOTSTATUS",
+			"AIDXSLOTCORRELATION", TIME_STAMP_SENTINEL, ORIGIN_DATE_SENTINEL);
+
+	enum Slot {
+		// El adapter JAXB puede emitir fecha-hora o solo fecha (xs:date): se acepta la forma que aparezca en el prototipo
+		TIME_STAMP(new Form(DATE_TIME.format(TIME_STAMP_SENTINEL), n -> formatDateTime(n.timeStamp())),
+				new Form(DATE.format(TIME_STAMP_SENTINEL), n -> formatDate(n.timeStamp()))),
+		ORIGIN_DATE(new Form(DATE_TIME.format(ORIGIN_DATE_SENTINEL), n -> formatDateTime(n.originDate())),
+				new Form(DATE.format(ORIGIN_DATE_SENTINEL), n -> formatDate(n.originDate()))),
+		AIRLINE(new Form(PROTOTYPE.airlineCode(), FlightLegNotification::airlineCode)),
+		FLIGHT_NUMBER(new Form(PROTOTYPE.flightNumber(), FlightLegNotification::flightNumber)),
+		DEPARTURE(new Form(PROTOTYPE.departureAirport(), FlightLegNotification::departureAirport)),
+		ARRIVAL(new Form(PROTOTYPE.arrivalAirport(), FlightLegNotification::arrivalAirport)),
+		STATUS(new Form(PROTOTYPE.operationalStatus(), FlightLegNotification::operationalStatus)),
+		// CorrelationID y TransactionIdentifier llevan el mismo valor: el centinela aparece dos veces
+		CORRELATION(2, new Form(PROTOTYPE.correlationId(), FlightLegNotification::correlationId));
+
+		private final int occurrences;
+		private final Form[] forms;
+
+		Slot(Form... forms) {
+			this(1, forms);
+		}
+
+		Slot(int occurrences, Form... forms) {
+			this.occurrences = occurrences;
+			this.forms = forms;
+		}
+	}
+
+	/**
+	 * Cómo aparece un campo en el XML del prototipo y cómo se renderiza el valor real en esa misma forma.
+	 */
+	record Form(String sentinel, Function<FlightLegNotification, String> value) {}
+
+	private final String[] segments; // segments.length == holes.length + 1
+	private final Form[] holes;
+	private final int fixedLength;
+
+	private AidxNotifTemplate(String[] segments, Form[] holes) {
+		this.segments = segments;
+		this.holes = holes;
+		int length = 0;
+		for (String segment : segments) {
+			length += segment.length();
+		}
+		this.fixedLength = length;
+	}
+
+	/**
+	 * Parte el XML del prototipo en segmentos fijos y huecos.
+	 */
+	static AidxNotifTemplate compile(String prototypeXml) {
+		if (prototypeXml == null || prototypeXml.isEmpty()) {
+			throw new IllegalStateException("Empty prototype XML");
+		}
+		record Hole(int start, Form form) {}
+		List<Hole> holes = new ArrayList<>();
+		for (Slot slot : Slot.values()) {
+			List<Integer> found = List.of();
+			Form matched = null;
+			for (Form form : slot.forms) {
+				found = indexesOf(prototypeXml, form.sentinel());
+				if (!found.isEmpty()) {
+					matched = form;
+					break;
+				}
+			}
+			if (found.size() != slot.occurrences) {
+				throw new IllegalStateException("Sentinel for " + slot + " found " + found.size() + " times, expected " + slot.occurrences);
+			}
+			for (int index : found) {
+				holes.add(new Hole(index, matched));
+			}
+		}
+		holes.sort(Comparator.comparingInt(Hole::start));
+
+		String[] segments = new String[holes.size() + 1];
+		Form[] forms = new Form[holes.size()];
+		int position = 0;
+		for (int i = 0; i < holes.size(); i++) {
+			Hole hole = holes.get(i);
+			if (hole.start() < position) {
+				throw new IllegalStateException("Overlapping sentinels in prototype XML");
+			}
+			segments[i] = prototypeXml.substring(position, hole.start());
+			forms[i] = hole.form();
+			position = hole.start() + hole.form().sentinel().length();
+		}
+		segments[holes.size()] = prototypeXml.substring(position);
+		return new AidxNotifTemplate(segments, forms);
+	}
+
+	private static List<Integer> indexesOf(String xml, String sentinel) {
+		List<Integer> indexes = new ArrayList<>(2);
+		for (int index = xml.indexOf(sentinel); index >= 0; index = xml.indexOf(sentinel, index + sentinel.length())) {
+			indexes.add(index);
+		}
+		return indexes;
+	}
+
+	String render(FlightLegNotification notification) {
+		StringBuilder xml = new StringBuilder(fixedLength + 16 * holes.length);
+		for (int i = 0; i < holes.length; i++) {
+			xml.append(segments[i]);
+			appendEscaped(xml, holes[i].value().apply(notification));
+		}
+		return xml.append(segments[holes.length]).toString();
+	}
+
+	private static String formatDateTime(LocalDateTime value) {
+		return value != null ? DATE_TIME.format(value.truncatedTo(ChronoUnit.SECONDS)) : "";
+	}
+
+	private static String formatDate(LocalDateTime value) {
+		return value != null ? DATE.format(value) : "";
+	}
+
+	/**
+	 * Escape válido tanto para texto como para atributos (mismos caracteres que escapa JAXB).
+	 */
+	static void appendEscaped(StringBuilder xml, String value) {
+		if (value == null) {
+			return;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '&' -> xml.append("&amp;");
+				case '<' -> xml.append("&lt;");
+				case '>' -> xml.append("&gt;");
+				case '"' -> xml.append("&quot;");
+				default -> xml.append(c);
+			}
+		}
+	}
+}
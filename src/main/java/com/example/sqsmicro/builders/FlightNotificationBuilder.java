@@ -1,31 +1,113 @@
 package com.example.sqsmicro.builders;
 
 import com.example.sqslib.iata.*;
+import com.example.sqslib.service.XmlService;
+import com.example.sqsmicro.records.FlightLegNotification;
 import jakarta.xml.bind.JAXBElement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.LocalDateTime;
-
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Construye las notificaciones IATAAIDXFlightLegNotifRQ.
+ * <p>
+ * Modo template ('app.producer.aidx-template.enabled', por defecto activo): la parte fija del mensaje se marshallea
+ * con JAXB una sola vez y cada notificación solo rellena sus campos variables ({@link AidxNotifTemplate}).
+ * Si el template no se puede compilar se usa siempre el camino JAXB.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
 @Component
 public class FlightNotificationBuilder {
 
 	// Namespace oficial definido en tu XML/XSD
 	private static final String IATA_NS = "http://www.iata.org/IATA/2007/00";
 
+	// DatatypeFactory.newInstance() es un lookup del ServiceLoader: una sola instancia (la implementación del JDK no guarda estado)
+	private static final DatatypeFactory DATATYPE_FACTORY = newDatatypeFactory();
+
+	private final XmlService xmlService;
+	private final boolean templateEnabled;
+
+	private volatile AidxNotifTemplate template;
+	private volatile boolean templateUnavailable;
+
+	public FlightNotificationBuilder(
+			XmlService xmlService,
+			@Value("${app.producer.aidx-template.enabled:true}") boolean templateEnabled) {
+		this.xmlService = xmlService;
+		this.templateEnabled = templateEnabled;
+	}
+
+	/**
+	 * Notificación con los valores por defecto del productor (LAX -> GRU, Scheduled) y un correlation ID nuevo.
+	 */
+	public FlightLegNotification newNotification(String airlineCode, String flightNumber) {
+		// Precisión de segundos: la misma que emite el template
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+		return new FlightLegNotification(airlineCode, flightNumber, "LAX", "GRU", "SCH", UUID.randomUUID().toString(), now, now);
+	}
+
+	/**
+	 * XML de la notificación: por el template si está disponible, si no con JAXB.
+	 */
+	public String toXml(FlightLegNotification notification) {
+		AidxNotifTemplate notifTemplate = template();
+		if (notifTemplate != null) {
+			return notifTemplate.render(notification);
+		}
+		return xmlService.toXml(buildNotif(notification));
+	}
+
+	private AidxNotifTemplate template() {
+		AidxNotifTemplate notifTemplate = template;
+		if (notifTemplate != null || !templateEnabled || templateUnavailable) {
+			return notifTemplate;
+		}
+		synchronized (this) {
+			if (template == null && !templateUnavailable) {
+				try {
+					// Único marshal JAXB del modo template
+					template = AidxNotifTemplate.compile(xmlService.toXml(buildNotif(AidxNotifTemplate.PROTOTYPE)));
+					log.info("AIDX notification template compiled");
+				} catch (RuntimeException e) {
+					templateUnavailable = true;
+					log.warn("AIDX notification template unavailable, falling back to JAXB marshalling: {}", e.getMessage());
+				}
+			}
+			return template;
+		}
+	}
+
 	public IATAAIDXFlightLegNotifRQ buildNotif(String airlineCode, String flightNumber) {
+		LocalDateTime now = LocalDateTime.now();
+		return buildNotif(new FlightLegNotification(airlineCode, flightNumber, "LAX", "GRU", "SCH", "t1", now, now));
+	}
+
+	public IATAAIDXFlightLegNotifRQ buildNotif(FlightLegNotification notification) {
 
 		// 1. RAÍZ: IATAAIDXFlightLegNotifRQ
 		var notif = new IATAAIDXFlightLegNotifRQ();
 
 		// Headers de transporte IATA
 		notif.setVersion(new BigDecimal("21.3"));
-		notif.setTimeStamp(LocalDateTime.now());
+		notif.setTimeStamp(notification.timeStamp());
 		notif.setTarget("Test");
-		notif.setTransactionIdentifier("t1");
-		notif.setCorrelationID("t1"); // ID único para traza
+		notif.setTransactionIdentifier(notification.correlationId());
+		notif.setCorrelationID(notification.correlationId()); // ID único para traza
 		notif.setSequenceNmbr(BigInteger.ONE);
 		notif.setTransactionStatusCode("Start");
 
@@ -46,24 +128,24 @@ public class FlightNotificationBuilder {
 
 		// Configura la aerolínea
 		var airline = new FlightLegIdentifierType.Airline();
-		airline.setValue(airlineCode); // Ej: LA
+		airline.setValue(notification.airlineCode()); // Ej: LA
 		airline.setCodeContext("IATA");
 		legId.setAirline(airline);
 
 		// Configura el número
-		legId.setFlightNumber(flightNumber); // Ej: 1234
+		legId.setFlightNumber(notification.flightNumber()); // Ej: 1234
 
 		// Configura la fecha (origen)
-		legId.setOriginDate(createXmlDate(LocalDateTime.now()));
+		legId.setOriginDate(createXmlDate(notification.originDate()));
 
 		// Configura origen/destino
 		var depStation = new FlightLegIdentifierType.DepartureAirport();
-		depStation.setValue("LAX");
+		depStation.setValue(notification.departureAirport());
 		depStation.setCodeContext("IATA");
 		legId.setDepartureAirport(depStation);
 
 		var arrStation = new FlightLegIdentifierType.ArrivalAirport();
-		arrStation.setValue("GRU");
+		arrStation.setValue(notification.arrivalAirport());
 		arrStation.setCodeContext("IATA");
 		legId.setArrivalAirport(arrStation);
 
@@ -74,7 +156,7 @@ public class FlightNotificationBuilder {
 
 		// Ejemplo: Agregar un estado operativo
 		var opStatus = new OperationalStatusType();
-		opStatus.setValue("SCH"); // Scheduled
+		opStatus.setValue(notification.operationalStatus()); // Ej: SCH (Scheduled)
 		opStatus.setCodeContext("IATA");
 		legData.getOperationalStatuses().add(opStatus);
 
@@ -93,11 +175,20 @@ public class FlightNotificationBuilder {
 	}
 
 	// Helper simple para XMLGregorianCalendar si no lo tienes
-	private javax.xml.datatype.XMLGregorianCalendar createXmlDate(LocalDateTime ldt) {
+	private XMLGregorianCalendar createXmlDate(LocalDateTime ldt) {
 		try {
-			return javax.xml.datatype.DatatypeFactory.newInstance().newXMLGregorianCalendar(ldt.toString());
+			// ISO_LOCAL_DATE_TIME siempre incluye los segundos (toString() los omite cuando son 0 y el parseo falla)
+			return DATATYPE_FACTORY.newXMLGregorianCalendar(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(ldt));
 		} catch (Exception e) {
 			return null;
 		}
 	}
+
+	private static DatatypeFactory newDatatypeFactory() {
+		try {
+			return DatatypeFactory.newInstance();
+		} catch (DatatypeConfigurationException e) {
+			throw new IllegalStateException("No DatatypeFactory available", e);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.example.sqsmicro.config;
+
+import com.example.sqsmicro.util.BlobStore;
+import com.example.sqsmicro.util.FileSystemBlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Configuration
+public class BlobStoreConfig {
+
+	// Blobs compartidos entre servicios (ej: S3): declarar otro bean BlobStore y este deja de crearse
+	@Bean
+	@ConditionalOnMissingBean(BlobStore.class)
+	public BlobStore fileSystemBlobStore(@Value("${app.claim-check.fs.root:${java.io.tmpdir}/airlines-b/blobs}") String root) {
+		return new FileSystemBlobStore(Path.of(root));
+	}
+}
@@ -0,0 +1,30 @@
+package com.example.sqsmicro.config;
+
+import com.example.sqsmicro.util.StripedExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Configuration
+public class ConsumerExecutorConfig {
+
+	// Descifrado = CPU puro: un hilo de plataforma por core (reutiliza los Cipher/buffers por hilo).
+	// Cada hilo es una lane del StripedExecutor: mismo uniqueFlightId => misma lane => orden estricto por vuelo.
+	@Value("${app.consumer.decrypt-threads:0}")
+	private int decryptThreads;
+
+	@Bean("consumerDecryptExecutor")
+	@ConditionalOnProperty(name = "app.consumer.batch.enabled", havingValue = "true")
+	public StripedExecutor consumerDecryptExecutor() {
+		int threads = decryptThreads > 0 ? decryptThreads : Runtime.getRuntime().availableProcessors();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("consumer-decrypt-");
+		threadFactory.setDaemon(true);
+		return new StripedExecutor(threads, threadFactory);
+	}
+}
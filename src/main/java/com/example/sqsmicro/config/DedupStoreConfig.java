@@ -0,0 +1,28 @@
+package com.example.sqsmicro.config;
+
+import com.example.sqsmicro.util.DedupStore;
+import com.example.sqsmicro.util.InMemoryDedupStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Configuration
+public class DedupStoreConfig {
+
+	// Backend persistente/compartido: declarar otro bean DedupStore y este deja de crearse
+	@Bean
+	@ConditionalOnMissingBean(DedupStore.class)
+	public DedupStore inMemoryDedupStore(
+			@Value("${app.consumer.dedup.max-entries:100000}") int maxEntries,
+			@Value("${app.consumer.dedup.ttl:15m}") Duration ttl) {
+		return new InMemoryDedupStore(maxEntries, ttl, Clock.systemUTC());
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.sqsmicro.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Configuration
+public class ProducerExecutorConfig {
+
+	// Cifrado = CPU puro: un hilo de plataforma por core (reutiliza los Cipher/buffers por hilo)
+	@Value("${app.producer.crypto-threads:0}")
+	private int cryptoThreads;
+
+	@Bean("producerCryptoExecutor")
+	public ExecutorService producerCryptoExecutor() {
+		int threads = cryptoThreads > 0 ? cryptoThreads : Runtime.getRuntime().availableProcessors();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("producer-crypto-");
+		threadFactory.setDaemon(true);
+		return Executors.newFixedThreadPool(threads, threadFactory);
+	}
+
+	// Envío a SQS = I/O bloqueante: un virtual thread por mensaje, sin pool que dimensionar
+	@Bean("producerSendExecutor")
+	public AsyncTaskExecutor producerSendExecutor() {
+		return new VirtualThreadTaskExecutor("producer-send-");
+	}
+}
@@ -0,0 +1,32 @@
+package com.example.sqsmicro.controllers;
+
+import com.example.sqsmicro.records.ReplayReport;
+import com.example.sqsmicro.services.DeadLetterService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@RestController
+@RequestMapping("/api/v1/consumer/dead-letter")
+@RequiredArgsConstructor
+@Tag(name = "Dead-letter queue", description = "Operations on inbound messages that could not be processed")
+public class DeadLetterController {
+
+    private final DeadLetterService deadLetterService;
+
+    @PostMapping("/replay")
+    @Operation(
+            summary = "Move dead-lettered messages back to the inbound queue",
+            description = "Reads up to 'max' messages from the dead-letter queue in batches of 10, sends them back to the inbound queue without the 'dlq_*' diagnostic attributes, and deletes only the ones SQS accepted."
+    )
+    @ApiResponse(responseCode = "200", description = "Replay finished. Messages in 'failed' are still in the dead-letter queue")
+    public ReplayReport handleReplay(@RequestParam(name = "max", defaultValue = "100") int max) {
+        return deadLetterService.replay(max);
+    }
+}
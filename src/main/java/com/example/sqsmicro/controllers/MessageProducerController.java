@@ -1,12 +1,21 @@
 package com.example.sqsmicro.controllers;
 
+import com.example.sqsmicro.records.BatchEntryResult;
+import com.example.sqsmicro.records.OutboundMessage;
+import com.example.sqsmicro.records.ProducerReceipt;
+import com.example.sqsmicro.services.AsyncMessageProducerService;
 import com.example.sqsmicro.services.MessageProducerService;
+import com.example.sqsmicro.services.ProducerQueueFullException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -20,6 +29,7 @@ import java.util.Map;
 public class MessageProducerController {
 
     private final MessageProducerService messageProducerService;
+    private final AsyncMessageProducerService asyncMessageProducerService;
 
     @PostMapping("/send")
     @Operation(
@@ -27,13 +37,47 @@ public class MessageProducerController {
             description = "It receives a payload and metadata, encrypts the payload with a public key, and sends it to the aws-sqs-1 queue."
     )
     @ApiResponse(responseCode = "200", description = "Message successfully sent to queue")
-    public String handleSendMessage(@RequestBody MessagePayloadDto messagePayloadDto) throws Exception {
+    public String handleSendMessage(@RequestBody MessagePayloadDto messagePayloadDto,
+                                    @RequestParam(name = "target", required = false) String target) throws Exception {
         String payload = messagePayloadDto.getPayload();
         Map<String, String> metadata = messagePayloadDto.getMetadata();
-        messageProducerService.sendMessage(payload, metadata);
+        if (target == null) {
+            messageProducerService.sendMessage(payload, metadata);
+        } else {
+            messageProducerService.sendMessage(target, payload, metadata);
+        }
         return "Encrypted message sent to SQS Queue 1.";
     }
 
+    @PostMapping("/send/async")
+    @Operation(
+            summary = "Queue an encrypted message for SQS-1",
+            description = "Accepts the payload into the bounded producer pipeline and returns immediately. Encryption and the SQS send run in the background."
+    )
+    @ApiResponse(responseCode = "202", description = "Message accepted. 'messageId' is also sent in the metadata as 'message_id'")
+    @ApiResponse(responseCode = "429", description = "Producer queue is full. Retry later")
+    public ResponseEntity<Map<String, String>> handleSendMessageAsync(@RequestBody MessagePayloadDto messagePayloadDto,
+                                                                      @RequestParam(name = "target", required = false) String target) {
+        ProducerReceipt receipt = target == null
+                ? asyncMessageProducerService.submit(messagePayloadDto.getPayload(), messagePayloadDto.getMetadata())
+                : asyncMessageProducerService.submit(target, messagePayloadDto.getPayload(), messagePayloadDto.getMetadata());
+        return ResponseEntity.accepted().body(Map.of("messageId", receipt.messageId()));
+    }
+
+    @PostMapping("/send/batch")
+    @Operation(
+            summary = "Send a batch of encrypted messages to SQS-1",
+            description = "Encrypts every payload in parallel and sends them with SendMessageBatch (up to 10 entries or 256KB per call). Returns one result per entry, in request order."
+    )
+    @ApiResponse(responseCode = "200", description = "Batch processed. Check 'success' on each entry")
+    public List<BatchEntryResult> handleSendBatchMessage(@RequestBody List<MessagePayloadDto> messagePayloadDtos,
+                                                         @RequestParam(name = "target", required = false) String target) throws Exception {
+        List<OutboundMessage> messages = messagePayloadDtos.stream()
+                .map(dto -> new OutboundMessage(dto.getPayload(), dto.getMetadata()))
+                .toList();
+        return target == null ? messageProducerService.sendBatch(messages) : messageProducerService.sendBatch(target, messages);
+    }
+
     @PostMapping("/send/flightleg")
     @Operation(
             summary = "Send encrypted message to SQS-1",
@@ -55,4 +99,32 @@ public class MessageProducerController {
         messageProducerService.sendFlightLegNotifRequest();
         return "Encrypted message sent to SQS Queue 1.";
     }
+
+    @PostMapping("/send/fan-out")
+    @Operation(
+            summary = "Send one encrypted message to several peers",
+            description = "Compresses and encrypts the payload once, wraps the data key for each target's public key in parallel, and sends each copy to that target's inbound queue. Returns one result per target, in request order."
+    )
+    @ApiResponse(responseCode = "200", description = "Fan-out processed. Check 'success' on each target")
+    public Map<String, BatchEntryResult> handleFanOutMessage(@RequestBody MessagePayloadDto messagePayloadDto,
+                                                             @RequestParam(name = "targets") List<String> targets) throws Exception {
+        return messageProducerService.fanOut(targets, messagePayloadDto.getPayload(), messagePayloadDto.getMetadata());
+    }
+
+    @PostMapping("/send/notification/fan-out")
+    @Operation(
+            summary = "Send the flight leg notification to several peers",
+            description = "Builds the AIDX notification once and fans it out to every target (IATA codes or service names)."
+    )
+    @ApiResponse(responseCode = "200", description = "Fan-out processed. Check 'success' on each target")
+    public Map<String, BatchEntryResult> handleFanOutFlightLegNotifRequestMessage(@RequestParam(name = "targets") List<String> targets) throws Exception {
+        return messageProducerService.sendFlightLegNotifRequest(targets);
+    }
+
+    @ExceptionHandler(ProducerQueueFullException.class)
+    public ResponseEntity<String> handleProducerQueueFull(ProducerQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
 }
@@ -0,0 +1,120 @@
+package com.example.sqsmicro.listener;
+
+import com.example.sqsmicro.records.FlightEvent;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser StAX de mensajes AIDX: recorre el XML una vez, en streaming, y solo materializa los campos del
+ * {@link FlightEvent} (raíz, LegIdentifier y OperationalStatus de cada FlightLeg). El resto de elementos se saltan
+ * sin crear objetos, así que la memoria por mensaje no crece con el tamaño del documento.
+ * Los nombres se comparan por local name (independiente del prefijo del namespace IATA).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Component
+public class AidxFlightEventParser {
+
+    // Thread-safe una vez configurada; crear una factory por mensaje es un lookup del ServiceLoader
+    private static final XMLInputFactory XML_INPUT_FACTORY = newInputFactory();
+
+    public FlightEvent parse(InputStream xml) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(xml, "UTF-8");
+        try {
+            String messageType = null;
+            String correlationId = null;
+            String timeStamp = null;
+            List<FlightEvent.Leg> legs = new ArrayList<>(1);
+            LegFields leg = null;
+            boolean inLegIdentifier = false;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "FlightLeg" -> {
+                            if (leg != null) {
+                                legs.add(leg.toLeg());
+                                leg = null;
+                            }
+                        }
+                        case "LegIdentifier" -> inLegIdentifier = false;
+                        default -> {
+                        }
+                    }
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if (messageType == null) {
+                    messageType = name;
+                    correlationId = reader.getAttributeValue(null, "CorrelationID");
+                    timeStamp = reader.getAttributeValue(null, "TimeStamp");
+                    continue;
+                }
+                if ("FlightLeg".equals(name)) {
+                    leg = new LegFields();
+                    continue;
+                }
+                if (leg == null) {
+                    continue;
+                }
+                if ("LegIdentifier".equals(name)) {
+                    inLegIdentifier = true;
+                } else if ("OperationalStatus".equals(name)) {
+                    leg.operationalStatuses.add(reader.getElementText().trim());
+                } else if (inLegIdentifier) {
+                    // getElementText() deja el reader en el END_ELEMENT del campo
+                    switch (name) {
+                        case "Airline" -> leg.airline = reader.getElementText().trim();
+                        case "FlightNumber" -> leg.flightNumber = reader.getElementText().trim();
+                        case "OriginDate" -> leg.originDate = reader.getElementText().trim();
+                        case "DepartureAirport" -> leg.departureAirport = reader.getElementText().trim();
+                        case "ArrivalAirport" -> leg.arrivalAirport = reader.getElementText().trim();
+                        default -> {
+                        }
+                    }
+                }
+            }
+            if (messageType == null) {
+                throw new XMLStreamException("Empty AIDX document");
+            }
+            return new FlightEvent(messageType, correlationId, timeStamp, List.copyOf(legs));
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Los mensajes vienen de peers externos: sin DTD ni entidades externas (XXE)
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private static final class LegFields {
+        private String airline;
+        private String flightNumber;
+        private String originDate;
+        private String departureAirport;
+        private String arrivalAirport;
+        private final List<String> operationalStatuses = new ArrayList<>(1);
+
+        FlightEvent.Leg toLeg() {
+            return new FlightEvent.Leg(airline, flightNumber, originDate, departureAirport, arrivalAirport,
+                    List.copyOf(operationalStatuses));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.sqsmicro.listener;
+
+import com.example.sqsmicro.util.MalformedEnvelopeException;
+import com.example.sqsmicro.util.PayloadTooLargeException;
+import tools.jackson.core.JacksonException;
+
+import javax.xml.stream.XMLStreamException;
+import java.security.GeneralSecurityException;
+import java.util.zip.ZipException;
+
+/**
+ * Clasificación de un fallo al procesar un mensaje entrante: decide si tiene sentido que SQS lo vuelva a entregar.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public enum FailureClass {
+
+    /**
+     * Fallaría igual en cada re-entrega: tag/padding inválido, key id desconocido o vencido, body JSON, envelope o XML
+     * ilegible, payload comprimido corrupto o por encima del límite. Va directo a la DLQ, sin volver a pagar el RSA decrypt.
+     */
+    PERMANENT,
+
+    /**
+     * Puede resolverse solo (I/O, SQS, blob store, un bug transitorio): se reintenta con backoff. Incluye un
+     * IllegalArgumentException genérico: si de verdad es permanente, llega a la DLQ al agotar 'max-receives'.
+     */
+    TRANSIENT;
+
+    /**
+     * Recorre la cadena de causas: basta una causa permanente (ej: un BadPaddingException envuelto) para que lo sea.
+     */
+    public static FailureClass of(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() != cause ? cause.getCause() : null) {
+            if (cause instanceof GeneralSecurityException
+                    || cause instanceof XMLStreamException
+                    || cause instanceof JacksonException
+                    || cause instanceof ZipException
+                    || cause instanceof MalformedEnvelopeException
+                    || cause instanceof PayloadTooLargeException) {
+                return PERMANENT;
+            }
+        }
+        return TRANSIENT;
+    }
+}
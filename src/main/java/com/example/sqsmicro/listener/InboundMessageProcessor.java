@@ -0,0 +1,235 @@
+package com.example.sqsmicro.listener;
+
+import com.example.sqsmicro.records.FlightEvent;
+import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.util.ClaimCheck;
+import com.example.sqsmicro.util.DedupStore;
+import com.example.sqsmicro.util.EncryptDecryptMessageUtil;
+import com.example.sqsmicro.util.KeyRegistry;
+import com.example.sqsmicro.util.MessageTrace;
+import com.example.sqsmicro.util.PayloadCodec;
+import com.example.sqsmicro.util.PayloadFormat;
+import com.example.sqsmicro.util.PipelineMetrics;
+import com.example.sqsmicro.util.PipelineStage;
+import com.example.sqsmicro.util.SessionKeyCache;
+import com.example.sqsmicro.util.SessionKeyManager;
+import com.example.sqsmicro.util.StageRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+
+/**
+ * Procesamiento de un mensaje entrante, común al listener unitario y al listener batch.
+ * Thread-safe: el listener batch lo invoca en paralelo desde 'consumerDecryptExecutor'.
+ * <p>
+ * Antes de descifrar se consulta el {@link DedupStore} con el 'message_id' del productor: una re-entrega
+ * de un mensaje ya procesado se descarta sin pagar el RSA decrypt.
+ * <p>
+ * Si la metadata trae 'content_encoding' el payload se descomprime después de descifrar, y si trae 'claim_check'
+ * el payload cifrado se lee del {@link com.example.sqsmicro.util.BlobStore}; ambos de forma transparente para los listeners.
+ * <p>
+ * Solo los mensajes AIDX se parsean a {@link FlightEvent}; los demás se descifran y se entregan crudos, ver {@link #processInbound(MessageDto)}.
+ * <p>
+ * RSA unwrap, AES decrypt y el parseo ('handle') se miden en {@link PipelineMetrics} por emisor ('sender_id') y message_type.
+ * El payload y el ciphertext solo se loguean en una muestra de los mensajes, ver {@link MessageTrace}.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class InboundMessageProcessor {
+
+    private static final String MESSAGE_TYPE = "message_type";
+    // IATAAIDXFlightLegNotifRQ, IATAAIDXFlightLegRQ, ...
+    private static final String AIDX_MESSAGE_TYPE_PREFIX = "IATAAIDX";
+
+    private final EncryptDecryptMessageUtil encryptDecryptMessageUtil;
+    private final SessionKeyCache sessionKeyCache;
+    private final AidxFlightEventParser flightEventParser;
+    private final DedupStore dedupStore;
+    private final ClaimCheck claimCheck;
+    private final boolean dedupEnabled;
+    private final Counter duplicatesDropped;
+    private final Counter duplicatesInProgress;
+    private final PipelineMetrics pipelineMetrics;
+    private final MessageTrace messageTrace;
+
+    public InboundMessageProcessor(
+            EncryptDecryptMessageUtil encryptDecryptMessageUtil,
+            SessionKeyCache sessionKeyCache,
+            AidxFlightEventParser flightEventParser,
+            DedupStore dedupStore,
+            ClaimCheck claimCheck,
+            MeterRegistry meterRegistry,
+            PipelineMetrics pipelineMetrics,
+            MessageTrace messageTrace,
+            @Value("${app.consumer.dedup.enabled:true}") boolean dedupEnabled) {
+        this.encryptDecryptMessageUtil = encryptDecryptMessageUtil;
+        this.sessionKeyCache = sessionKeyCache;
+        this.flightEventParser = flightEventParser;
+        this.dedupStore = dedupStore;
+        this.claimCheck = claimCheck;
+        this.dedupEnabled = dedupEnabled;
+        this.pipelineMetrics = pipelineMetrics;
+        this.messageTrace = messageTrace;
+        this.duplicatesDropped = Counter.builder("sqs.consumer.duplicates")
+                .description("Redelivered messages skipped before decryption")
+                .tag("outcome", "dropped")
+                .register(meterRegistry);
+        this.duplicatesInProgress = Counter.builder("sqs.consumer.duplicates")
+                .description("Redelivered messages skipped before decryption")
+                .tag("outcome", "in_progress")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retorna el payload descifrado, o null si el mensaje es un duplicado ya procesado (se debe confirmar igual).
+     * Lanza {@link MessageInProgressException} si otra copia se está procesando (no se debe confirmar).
+     */
+    public String process(MessageDto messageDto) throws Exception {
+        return handle(messageDto, this::decrypt);
+    }
+
+    /**
+     * Camino de los listeners: descifra a un stream y extrae el {@link FlightEvent} con StAX, sin crear el String
+     * del XML completo. Mismo contrato que {@link #process(MessageDto)} (null = duplicado ya procesado).
+     * Un payload que no es XML bien formado falla igual que un error de descifrado: no se confirma.
+     */
+    public FlightEvent processEvent(MessageDto messageDto) throws Exception {
+        return handle(messageDto, this::decryptToEvent);
+    }
+
+    /**
+     * Camino de los listeners. Solo los mensajes AIDX ('message_type' IATAAIDX...) se parsean a {@link FlightEvent};
+     * el resto (p. ej. contenido libre enviado por '/send') se descifra y se entrega tal cual, sin exigir XML.
+     * Un mensaje sin 'message_type' se trata como no AIDX.
+     */
+    public void processInbound(MessageDto messageDto) throws Exception {
+        if (isAidx(messageDto)) {
+            processEvent(messageDto);
+        } else {
+            process(messageDto);
+        }
+    }
+
+    private static boolean isAidx(MessageDto messageDto) {
+        String messageType = metadataValue(messageDto, MESSAGE_TYPE);
+        return messageType != null && messageType.startsWith(AIDX_MESSAGE_TYPE_PREFIX);
+    }
+
+    private <T> T handle(MessageDto messageDto, PayloadReader<T> payloadReader) throws Exception {
+        StageRecorder stages = pipelineMetrics.consumer(messageDto.metadata());
+        String dedupKey = dedupKey(messageDto);
+        if (dedupKey != null) {
+            switch (dedupStore.tryClaim(dedupKey)) {
+                case DONE -> {
+                    duplicatesDropped.increment();
+                    stages.count("duplicate");
+                    log.debug("Duplicate message {} dropped before decryption", dedupKey);
+                    return null;
+                }
+                case IN_PROGRESS -> {
+                    duplicatesInProgress.increment();
+                    stages.count("in_progress");
+                    throw new MessageInProgressException(dedupKey);
+                }
+                case CLAIMED -> {
+                    // primera entrega: se procesa
+                }
+            }
+        }
+        try {
+            T messagePayload = payloadReader.read(messageDto, stages);
+            messageTrace.inbound(messageDto, messagePayload);
+            if (dedupKey != null) {
+                dedupStore.complete(dedupKey);
+            }
+            if (ClaimCheck.isClaimCheck(messageDto.metadata())) {
+                claimCheck.release(messageDto.metadata());
+            }
+            stages.count("processed");
+            return messagePayload;
+        } catch (Exception e) {
+            if (dedupKey != null) {
+                dedupStore.release(dedupKey);
+            }
+            stages.count("failed");
+            throw e;
+        }
+    }
+
+    /**
+     * 'message_id' del productor. correlation_id + uniqueFlightId no sirve: mensajes distintos pueden compartirlos
+     * (mismo vuelo, misma transacción). Sin message_id (productor anterior) no se deduplica.
+     */
+    private String dedupKey(MessageDto messageDto) {
+        if (!dedupEnabled) {
+            return null;
+        }
+        String messageId = metadataValue(messageDto, MessageDto.MESSAGE_ID);
+        return messageId != null && !messageId.isBlank() ? messageId : null;
+    }
+
+    private FlightEvent decryptToEvent(MessageDto messageDto, StageRecorder stages) throws Exception {
+        try (InputStream plaintext = openPlaintext(messageDto, stages)) {
+            // En AES_ECB (legacy) el descifrado es perezoso y queda dentro de 'handle'
+            return stages.time(PipelineStage.HANDLE, () -> flightEventParser.parse(plaintext));
+        }
+    }
+
+    /**
+     * Payload descifrado (y descomprimido) como stream. Con claim-check el payload cifrado se lee del blob en binario.
+     */
+    private InputStream openPlaintext(MessageDto messageDto, StageRecorder stages) throws Exception {
+        Map<String, String> metadata = messageDto.metadata();
+        PayloadFormat format = PayloadFormat.fromMetadata(metadata);
+        PayloadCodec codec = PayloadCodec.fromMetadata(metadata);
+        SecretKey dataKey = stages.time(PipelineStage.RSA_UNWRAP, () -> dataKey(messageDto));
+        InputStream decrypted = stages.time(PipelineStage.AES_DECRYPT, () -> ClaimCheck.isClaimCheck(metadata)
+                ? encryptDecryptMessageUtil.decryptToStream(claimCheck.fetch(metadata), dataKey, format)
+                : encryptDecryptMessageUtil.decryptToStream(messageDto.encryptedPayload(), dataKey, format));
+        return codec.decode(decrypted);
+    }
+
+    private SecretKey dataKey(MessageDto messageDto) throws GeneralSecurityException {
+        String sessionKeyId = metadataValue(messageDto, SessionKeyManager.SESSION_KEY_ID);
+        String keyId = metadataValue(messageDto, KeyRegistry.KEY_ID);
+        if (sessionKeyId == null) {
+            return encryptDecryptMessageUtil.unwrapDataKey(messageDto.encryptedKey(), keyId);
+        }
+        // Modo session key: la data key desenvuelta se reutiliza mientras el productor no rote
+        return sessionKeyCache.resolve(sessionKeyId, messageDto.encryptedKey(), keyId);
+    }
+
+    private static String metadataValue(MessageDto messageDto, String key) {
+        return messageDto.metadata() != null ? messageDto.metadata().get(key) : null;
+    }
+
+    private String decrypt(MessageDto messageDto, StageRecorder stages) throws Exception {
+        // Sin 'format_version' => productor legacy (AES/ECB)
+        PayloadFormat format = PayloadFormat.fromMetadata(messageDto.metadata());
+        if (PayloadCodec.fromMetadata(messageDto.metadata()) != PayloadCodec.IDENTITY || ClaimCheck.isClaimCheck(messageDto.metadata())) {
+            try (InputStream plaintext = openPlaintext(messageDto, stages)) {
+                return new String(plaintext.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        // Modo session key: la data key desenvuelta se reutiliza mientras el productor no rote
+        SecretKey dataKey = stages.time(PipelineStage.RSA_UNWRAP, () -> dataKey(messageDto));
+        return stages.time(PipelineStage.AES_DECRYPT,
+                () -> encryptDecryptMessageUtil.decryptWithDataKey(messageDto.encryptedPayload(), dataKey, format));
+    }
+
+    @FunctionalInterface
+    private interface PayloadReader<T> {
+        T read(MessageDto messageDto, StageRecorder stages) throws Exception;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.sqsmicro.listener;
+
+import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.util.MessageEnvelope;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Lee el body SQS en cualquiera de los dos formatos ({@link com.example.sqsmicro.util.EnvelopeFormat}).
+ * Durante la migración conviven productores JSON y binarios en la misma cola: el formato se detecta por el body,
+ * sin headers ni configuración del lado del consumidor.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Component
+public class InboundMessageReader {
+
+    private final JsonMapper jsonMapper;
+
+    public InboundMessageReader(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    public MessageDto read(String body) {
+        if (MessageEnvelope.isEnvelope(body)) {
+            return MessageEnvelope.decode(body);
+        }
+        return jsonMapper.readValue(body, MessageDto.class);
+    }
+}
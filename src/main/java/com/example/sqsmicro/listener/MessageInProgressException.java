@@ -0,0 +1,15 @@
+package com.example.sqsmicro.listener;
+
+/**
+ * Otra copia del mismo mensaje se está procesando. No se confirma esta copia: si el procesamiento en curso falla,
+ * la re-entrega sigue disponible (confirmarla borraría el mensaje de la cola).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class MessageInProgressException extends RuntimeException {
+
+    public MessageInProgressException(String dedupKey) {
+        super("Message " + dedupKey + " is already being processed");
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.sqsmicro.listener;
+
+import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.services.DeadLetterService;
+import com.example.sqsmicro.util.StripedExecutor;
+import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listener batch: recibe hasta 'max-messages-per-poll' mensajes por poll, los descifra en paralelo en
+ * 'consumerDecryptExecutor' y confirma los exitosos con un solo DeleteMessageBatch.
+ * Los que fallan no se confirman: SQS los vuelve a entregar al vencer el visibility timeout.
+ * <p>
+ * El trabajo se reparte por uniqueFlightId: los mensajes de un mismo vuelo se procesan en el orden recibido,
+ * los de vuelos distintos en paralelo. Si un mensaje de un vuelo falla, los siguientes del mismo vuelo en el batch
+ * no se procesan ni se confirman, para que la re-entrega no los deje fuera de orden.
+ * <p>
+ * Los bodies (JSON o envelope binario) se leen en el hilo del listener, antes de repartir: el uniqueFlightId decide la franja.
+ * <p>
+ * Los fallos pasan por {@link DeadLetterService}: un body ilegible o un error permanente (ej: tag inválido) va a la DLQ
+ * y se confirma junto con los exitosos; un error transitorio queda para la re-entrega con backoff.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.consumer.batch.enabled", havingValue = "true")
+public class SqsBatchListenerConsumer {
+
+    private final InboundMessageProcessor inboundMessageProcessor;
+    private final InboundMessageReader inboundMessageReader;
+    private final StripedExecutor consumerDecryptExecutor;
+    private final DeadLetterService deadLetterService;
+
+    public SqsBatchListenerConsumer(
+            InboundMessageProcessor inboundMessageProcessor,
+            InboundMessageReader inboundMessageReader,
+            @Qualifier("consumerDecryptExecutor") StripedExecutor consumerDecryptExecutor,
+            DeadLetterService deadLetterService) {
+        this.inboundMessageProcessor = inboundMessageProcessor;
+        this.inboundMessageReader = inboundMessageReader;
+        this.consumerDecryptExecutor = consumerDecryptExecutor;
+        this.deadLetterService = deadLetterService;
+    }
+
+    @SqsListener(
+            queueNames = "#{@configurationLoaderService.getMyListeningQueue()}",
+            maxConcurrentMessages = "${app.consumer.max-concurrent-messages:10}",
+            maxMessagesPerPoll = "${app.consumer.max-messages-per-poll:10}",
+            messageVisibilitySeconds = "${app.consumer.visibility-timeout-seconds:30}",
+            acknowledgementMode = "MANUAL"
+    )
+    public void listenBatch(List<Message<String>> messages, BatchAcknowledgement<String> acknowledgement) {
+        Set<String> failedFlights = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Message<String>>> processed = new ArrayList<>(messages.size());
+        List<Message<String>> succeeded = new ArrayList<>(messages.size());
+        for (Message<String> message : messages) {
+            MessageDto messageDto;
+            try {
+                messageDto = inboundMessageReader.read(message.getPayload());
+            } catch (RuntimeException e) {
+                log.error("Message body could not be read: {}", e.getMessage());
+                if (deadLetterService.handleFailure(message, e)) {
+                    succeeded.add(message);
+                }
+                continue;
+            }
+            String uniqueFlightId = messageDto.uniqueFlightId();
+            processed.add(consumerDecryptExecutor.submit(uniqueFlightId, () -> {
+                if (uniqueFlightId != null && failedFlights.contains(uniqueFlightId)) {
+                    log.debug("Skipping message for flight {}: a previous update in this batch failed", uniqueFlightId);
+                    return null;
+                }
+                try {
+                    inboundMessageProcessor.processInbound(messageDto);
+                    return message;
+                } catch (Exception e) {
+                    if (uniqueFlightId != null) {
+                        failedFlights.add(uniqueFlightId);
+                    }
+                    throw new FailedMessageException(message, e);
+                }
+            }));
+        }
+
+        for (CompletableFuture<Message<String>> future : processed) {
+            try {
+                Message<String> message = future.join();
+                if (message != null) {
+                    succeeded.add(message);
+                }
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (!(cause instanceof FailedMessageException failed)) {
+                    log.error("Message could not be processed, it will be redelivered: {}", cause.getMessage(), cause);
+                } else if (failed.getCause() instanceof MessageInProgressException) {
+                    log.debug("{}, leaving this copy for redelivery", failed.getCause().getMessage());
+                } else {
+                    log.error("Message could not be processed: {}", failed.getCause().getMessage(), failed.getCause());
+                    if (deadLetterService.handleFailure(failed.message, failed.getCause())) {
+                        succeeded.add(failed.message);
+                    }
+                }
+            }
+        }
+        if (!succeeded.isEmpty()) {
+            acknowledgement.acknowledge(succeeded);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Batch of {} messages processed: {} acknowledged, {} left for redelivery",
+                    messages.size(), succeeded.size(), messages.size() - succeeded.size());
+        }
+    }
+
+    /**
+     * Fallo de un mensaje del batch, con el mensaje original para decidir en el hilo del listener (DLQ o re-entrega).
+     */
+    private static final class FailedMessageException extends RuntimeException {
+
+        private final transient Message<String> message;
+
+        FailedMessageException(Message<String> message, Exception cause) {
+            super(cause);
+            this.message = message;
+        }
+    }
+}
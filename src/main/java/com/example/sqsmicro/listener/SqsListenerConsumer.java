@@ -1,33 +1,58 @@
 package com.example.sqsmicro.listener;
 
 import com.example.sqsmicro.records.MessageDto;
-import com.example.sqsmicro.services.ConfigurationLoaderService;
-import com.example.sqsmicro.util.EncryptDecryptMessageUtil;
+import com.example.sqsmicro.services.DeadLetterService;
+import com.example.sqsmicro.util.PipelineMetrics;
+import com.example.sqsmicro.util.PipelineStage;
 import io.awspring.cloud.sqs.annotation.SqsListener;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
 /**
+ * Listener unitario (un MessageDto por invocación). Con 'app.consumer.batch.enabled=true' se usa
+ * {@link SqsBatchListenerConsumer} en su lugar.
+ * <p>
+ * Un fallo pasa por {@link DeadLetterService}: los permanentes van a la DLQ y el mensaje se confirma; los transitorios
+ * se relanzan (no se confirma) con el visibility timeout ya extendido según el número de entregas.
+ *
  * @author ian.paris
  * @since 2025-12-15
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.consumer.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class SqsListenerConsumer {
 
-    private final EncryptDecryptMessageUtil encryptDecryptMessageUtil;
-    private ConfigurationLoaderService configurationLoaderService;
+    private final InboundMessageProcessor inboundMessageProcessor;
+    private final InboundMessageReader inboundMessageReader;
+    private final PipelineMetrics pipelineMetrics;
+    private final DeadLetterService deadLetterService;
 
-    @SqsListener(queueNames = "#{@configurationLoaderService.getMyListeningQueue()}")
-    public void listenResponse(@Payload MessageDto messageDto) throws Exception {
-        log.debug("Message encryptedKey received from cola-aws-sqs-2: " + messageDto.encryptedKey());
-        log.debug("Message metadata received from cola-aws-sqs-2: " + messageDto.metadata());
-        log.debug("Message uniqueFlightId received from cola-aws-sqs-2: " + messageDto.uniqueFlightId());
-        String messagePayload = encryptDecryptMessageUtil.decryptHybrid(messageDto.encryptedPayload(), messageDto.encryptedKey());
-        log.debug("Message received from cola-aws-sqs-2: {}", messagePayload);
+    @SqsListener(
+            queueNames = "#{@configurationLoaderService.getMyListeningQueue()}",
+            maxConcurrentMessages = "${app.consumer.max-concurrent-messages:10}",
+            maxMessagesPerPoll = "${app.consumer.max-messages-per-poll:10}",
+            messageVisibilitySeconds = "${app.consumer.visibility-timeout-seconds:30}"
+    )
+    public void listenResponse(Message<String> message) throws Exception {
+        try {
+            // Body crudo: JSON o envelope binario, según el productor (ver InboundMessageReader)
+            long start = System.nanoTime();
+            MessageDto messageDto = inboundMessageReader.read(message.getPayload());
+            // Los tags (emisor, message_type) solo se conocen después de leer el body
+            pipelineMetrics.consumer(messageDto.metadata()).record(PipelineStage.RECEIVE, System.nanoTime() - start);
+            inboundMessageProcessor.processInbound(messageDto);
+        } catch (MessageInProgressException e) {
+            throw e;
+        } catch (Exception e) {
+            if (!deadLetterService.handleFailure(message, e)) {
+                throw e;
+            }
+        }
     }
 
 }
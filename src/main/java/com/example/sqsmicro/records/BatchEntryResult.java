@@ -0,0 +1,27 @@
+package com.example.sqsmicro.records;
+
+/**
+ * Resultado de una entrada de un envío batch. 'index' es la posición de la entrada en la petición original.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public record BatchEntryResult(
+		int index,
+		boolean success,
+		String messageId,   // MessageId asignado por SQS (solo si success)
+		String errorMessage // Motivo del fallo (solo si !success)
+) {
+
+	public static BatchEntryResult sent(int index, String messageId) {
+		return new BatchEntryResult(index, true, messageId, null);
+	}
+
+	public static BatchEntryResult failed(int index, String errorMessage) {
+		return new BatchEntryResult(index, false, null, errorMessage);
+	}
+
+	public BatchEntryResult withIndex(int newIndex) {
+		return new BatchEntryResult(newIndex, success, messageId, errorMessage);
+	}
+}
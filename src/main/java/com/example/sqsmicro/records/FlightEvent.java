@@ -0,0 +1,25 @@
+package com.example.sqsmicro.records;
+
+import java.util.List;
+
+/**
+ * Campos clave de un mensaje AIDX entrante, extraídos en streaming (sin árbol JAXB/DOM).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public record FlightEvent(
+		String messageType,   // Elemento raíz, ej: 'IATA_AIDX_FlightLegNotifRQ'
+		String correlationId, // Atributo CorrelationID de la raíz
+		String timeStamp,     // Atributo TimeStamp de la raíz (tal cual viene en el XML)
+		List<Leg> legs        // Un elemento por FlightLeg, en orden de documento
+) {
+	public record Leg(
+			String airline,
+			String flightNumber,
+			String originDate,
+			String departureAirport,
+			String arrivalAirport,
+			List<String> operationalStatuses
+	) {}
+}
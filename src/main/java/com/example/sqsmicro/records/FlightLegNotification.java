@@ -0,0 +1,22 @@
+package com.example.sqsmicro.records;
+
+import java.time.LocalDateTime;
+
+/**
+ * Campos que cambian en cada IATAAIDXFlightLegNotifRQ; el resto del mensaje es fijo
+ * (ver {@link com.example.sqsmicro.builders.FlightNotificationBuilder}).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public record FlightLegNotification(
+		String airlineCode,       // Ej: 'QR'
+		String flightNumber,      // Ej: '1234'
+		String departureAirport,  // IATA, ej: 'LAX'
+		String arrivalAirport,    // IATA, ej: 'GRU'
+		String operationalStatus, // Ej: 'SCH' (Scheduled)
+		String correlationId,     // CorrelationID y TransactionIdentifier
+		LocalDateTime timeStamp,  // TimeStamp del mensaje
+		LocalDateTime originDate  // OriginDate del leg
+) {
+}
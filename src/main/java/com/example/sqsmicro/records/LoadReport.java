@@ -0,0 +1,26 @@
+package com.example.sqsmicro.records;
+
+/**
+ * Resultado de una corrida del generador de carga. Latencias en microsegundos, medidas desde el instante
+ * programado de cada envío (no desde que empezó), así que incluyen la espera cuando el productor se atrasa.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public record LoadReport(
+		long sent,
+		long failed,
+		long elapsedMillis,
+		long p50Micros,
+		long p99Micros,
+		long p999Micros,
+		long maxMicros
+) {
+
+	/**
+	 * Mensajes aceptados por SQS por segundo, sobre el tiempo total de la corrida (rampa incluida).
+	 */
+	public double throughput() {
+		return elapsedMillis > 0 ? sent * 1000.0 / elapsedMillis : 0;
+	}
+}
@@ -11,4 +11,8 @@ public record MessageDto(
 		String encryptedPayload,      // El contenido cifrado en Base64
 		String encryptedKey, // Opcional: Para saber qué clave se usó
 		String uniqueFlightId
-) {}
+) {
+
+	// Id único por mensaje (UUID del productor): clave de deduplicación en el consumidor y en colas FIFO
+	public static final String MESSAGE_ID = "message_id";
+}
@@ -0,0 +1,14 @@
+package com.example.sqsmicro.records;
+
+import java.util.Map;
+
+/**
+ * Mensaje en claro pendiente de cifrar y enviar (una entrada de un envío batch).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public record OutboundMessage(
+		String payload,
+		Map<String, String> metadata
+) {}
@@ -0,0 +1,15 @@
+package com.example.sqsmicro.records;
+
+import java.util.Map;
+
+/**
+ * Resultado de una carga completa del directorio de peers.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public record PeerDirectoryListing(
+		Map<String, Map<String, Object>> peers, // Key = id del servicio/peer, Value = propiedades normalizadas
+		String etag                             // Para el siguiente If-None-Match (null si el origen no lo envía)
+) {
+}
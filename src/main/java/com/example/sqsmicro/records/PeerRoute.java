@@ -0,0 +1,34 @@
+package com.example.sqsmicro.records;
+
+import com.example.sqsmicro.util.EnvelopeFormat;
+import com.example.sqsmicro.util.PayloadCodec;
+import com.example.sqsmicro.util.PayloadFormat;
+
+import java.security.PublicKey;
+
+/**
+ * Todo lo que el productor necesita para enviar a un peer, resuelto una vez por refresh de config
+ * (sin lookups por clave ni casts en el camino de envío).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public record PeerRoute(
+		String peerId,              // Nombre del servicio en el Config Server (ej: 'airport-c')
+		String targetName,          // config.target-name
+		String targetQueue,         // config.queues.inbound del peer
+		PublicKey publicKey,        // config.security.public-key ya parseada
+		String keyId,               // SHA-256 de la clave pública (metadata 'key_id'), ver KeyRegistry
+		PayloadFormat payloadFormat, // config.crypto.format-version del peer, o app.crypto.payload-format
+		EnvelopeFormat envelopeFormat, // config.messaging.envelope del peer, o app.producer.envelope
+		PayloadCodec payloadCodec   // config.messaging.content-encoding del peer; sin declarar = identity (no descomprime)
+) {
+
+	/**
+	 * Si el peer puede leer un payload comprimido con el codec dado. Un consumidor anterior a la compresión ignora
+	 * 'content_encoding' y descifraría bytes comprimidos como si fueran el payload.
+	 */
+	public boolean accepts(PayloadCodec codec) {
+		return codec == PayloadCodec.IDENTITY || codec == payloadCodec;
+	}
+}
@@ -0,0 +1,16 @@
+package com.example.sqsmicro.records;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Acuse de recibo del pipeline asíncrono. 'messageId' viaja en la metadata ('message_id') para correlacionar
+ * con el consumidor; 'completion' termina cuando SQS aceptó el mensaje (o con la excepción del cifrado/envío).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public record ProducerReceipt(
+		String messageId,
+		CompletableFuture<String> completion
+) {
+}
@@ -0,0 +1,15 @@
+package com.example.sqsmicro.records;
+
+/**
+ * Resultado de un replay de la DLQ. 'failed' = mensajes que no se pudieron reenviar y siguen en la DLQ.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public record ReplayReport(
+		int replayed,
+		int failed,
+		String deadLetterQueue,
+		String targetQueue
+) {
+}
@@ -0,0 +1,152 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.records.ProducerReceipt;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pipeline asíncrono del productor: acepta el mensaje, retorna un {@link ProducerReceipt} de inmediato
+ * y cifra/envía en segundo plano.
+ * <p>
+ * - Cifrado (CPU) en 'producerCryptoExecutor': un hilo de plataforma por core, reutiliza los Cipher/buffers por hilo.
+ * - Envío (I/O bloqueante) en 'producerSendExecutor': un virtual thread por mensaje.
+ * - Backpressure: como máximo 'queue-capacity' mensajes aceptados y no terminados; por encima se lanza
+ *   {@link ProducerQueueFullException} (HTTP 429) en vez de acumular memoria sin límite.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Service
+public class AsyncMessageProducerService {
+
+	public static final String MESSAGE_ID = MessageDto.MESSAGE_ID;
+
+	private final MessageProducerService messageProducerService;
+	private final ExecutorService producerCryptoExecutor;
+	private final AsyncTaskExecutor producerSendExecutor;
+	private final int queueCapacity;
+	private final Semaphore capacity;
+
+	// Aceptados esperando al cifrado / cifrando o enviando
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final Timer latency;
+	private final Counter rejected;
+	private final Counter failed;
+
+	public AsyncMessageProducerService(
+			MessageProducerService messageProducerService,
+			@Qualifier("producerCryptoExecutor") ExecutorService producerCryptoExecutor,
+			@Qualifier("producerSendExecutor") AsyncTaskExecutor producerSendExecutor,
+			MeterRegistry meterRegistry,
+			@Value("${app.producer.async.queue-capacity:10000}") int queueCapacity) {
+		this.messageProducerService = messageProducerService;
+		this.producerCryptoExecutor = producerCryptoExecutor;
+		this.producerSendExecutor = producerSendExecutor;
+		this.queueCapacity = queueCapacity;
+		this.capacity = new Semaphore(queueCapacity);
+		Gauge.builder("sqs.producer.queue.depth", queued, AtomicInteger::get)
+				.description("Accepted messages waiting for encryption")
+				.register(meterRegistry);
+		Gauge.builder("sqs.producer.inflight", inFlight, AtomicInteger::get)
+				.description("Messages being encrypted or sent")
+				.register(meterRegistry);
+		this.latency = Timer.builder("sqs.producer.latency")
+				.description("End-to-end latency from acceptance to SQS acknowledgement")
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		this.rejected = Counter.builder("sqs.producer.rejected")
+				.description("Messages rejected because the producer queue was full")
+				.register(meterRegistry);
+		this.failed = Counter.builder("sqs.producer.failed")
+				.description("Accepted messages that could not be encrypted or sent")
+				.register(meterRegistry);
+	}
+
+	public ProducerReceipt submit(String payload, Map<String, String> metadata) {
+		return submit(messageProducerService.getDefaultTarget(), payload, metadata);
+	}
+
+	/**
+	 * Acepta el mensaje sin bloquear. Lanza {@link ProducerQueueFullException} si el pipeline está lleno.
+	 */
+	public ProducerReceipt submit(String target, String payload, Map<String, String> metadata) {
+		if (!capacity.tryAcquire()) {
+			rejected.increment();
+			throw new ProducerQueueFullException(queueCapacity);
+		}
+		String messageId = UUID.randomUUID().toString();
+		Map<String, String> requestMetadata = metadata != null ? new HashMap<>(metadata) : new HashMap<>();
+		requestMetadata.put(MESSAGE_ID, messageId);
+		long acceptedAt = System.nanoTime();
+
+		queued.incrementAndGet();
+		CompletableFuture<String> completion;
+		try {
+			completion = CompletableFuture
+					.supplyAsync(() -> encrypt(target, payload, requestMetadata), producerCryptoExecutor)
+					.thenApplyAsync(message -> {
+						messageProducerService.send(target, message);
+						return messageId;
+					}, producerSendExecutor);
+		} catch (RejectedExecutionException e) {
+			// Executor apagándose: el mensaje nunca entró al pipeline
+			queued.decrementAndGet();
+			capacity.release();
+			throw e;
+		}
+
+		completion.whenComplete((sentId, error) -> {
+			inFlight.decrementAndGet();
+			capacity.release();
+			latency.record(System.nanoTime() - acceptedAt, TimeUnit.NANOSECONDS);
+			if (error != null) {
+				failed.increment();
+				Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+				log.error("Async message {} could not be sent: {}", messageId, cause.getMessage(), cause);
+			} else {
+				log.debug("Async message {} sent to SQS", messageId);
+			}
+		});
+		return new ProducerReceipt(messageId, completion);
+	}
+
+	public int getQueueDepth() {
+		return queued.get();
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	private MessageDto encrypt(String target, String payload, Map<String, String> metadata) {
+		queued.decrementAndGet();
+		inFlight.incrementAndGet();
+		try {
+			return messageProducerService.prepareMessage(target, payload, metadata);
+		} catch (Exception e) {
+			throw new CompletionException(e);
+		}
+	}
+}
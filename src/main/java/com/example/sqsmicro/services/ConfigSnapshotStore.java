@@ -0,0 +1,232 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.PeerDirectoryListing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+/**
+ * Copia local de la última configuración buena (propia y de peers) para arrancar sin esperar al Config Server.
+ * <p>
+ * Formato binario compacto: magic 'CFGS' + versión + longitud del cuerpo + cuerpo + CRC32C del cuerpo.
+ * El cuerpo lleva el ETag del directorio y, por servicio, sus propiedades con un tag de tipo
+ * (String, Integer, Long, Double, Boolean; el resto se guarda como String).
+ * Se escribe en un fichero temporal y se reemplaza con un move atómico: un crash a mitad de escritura deja
+ * la copia anterior intacta. Un fichero truncado o con checksum incorrecto se ignora.
+ * Con 'app.config.snapshot.path' vacío el snapshot queda deshabilitado.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ConfigSnapshotStore {
+
+	private static final int MAGIC = 0x43464753; // 'CFGS'
+	private static final byte VERSION = 1;
+
+	private static final byte TYPE_STRING = 'S';
+	private static final byte TYPE_INT = 'I';
+	private static final byte TYPE_LONG = 'L';
+	private static final byte TYPE_DOUBLE = 'D';
+	private static final byte TYPE_BOOLEAN = 'B';
+
+	private final Path path;
+
+	public ConfigSnapshotStore(@Value("${app.config.snapshot.path:}") String path) {
+		this.path = path == null || path.isBlank() ? null : Path.of(path);
+	}
+
+	public boolean isEnabled() {
+		return path != null;
+	}
+
+	/**
+	 * Lee el snapshot. Vacío si está deshabilitado, no existe o está corrupto.
+	 */
+	public Optional<PeerDirectoryListing> read() {
+		if (path == null) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(decode(Files.readAllBytes(path)));
+		} catch (NoSuchFileException e) {
+			log.info("No config snapshot at {}, waiting for the config server", path);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Ignoring unreadable config snapshot {}: {}", path, e.getMessage());
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Reemplaza el snapshot. Un fallo de escritura solo se loguea: el servicio sigue con la config en memoria.
+	 */
+	public void write(PeerDirectoryListing listing) {
+		if (path == null) {
+			return;
+		}
+		try {
+			Path directory = path.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+			try {
+				restrictToOwner(temp);
+				Files.write(temp, encode(listing));
+				try {
+					Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+			log.debug("Config snapshot written to {} ({} services)", path, listing.peers().size());
+		} catch (IOException e) {
+			log.warn("Could not write config snapshot {}: {}", path, e.getMessage());
+		}
+	}
+
+	static byte[] encode(PeerDirectoryListing listing) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+		DataOutputStream out = new DataOutputStream(body);
+		out.writeBoolean(listing.etag() != null);
+		if (listing.etag() != null) {
+			writeString(out, listing.etag());
+		}
+		out.writeInt(listing.peers().size());
+		for (var service : listing.peers().entrySet()) {
+			writeString(out, service.getKey());
+			out.writeInt(service.getValue().size());
+			for (var property : service.getValue().entrySet()) {
+				writeString(out, property.getKey());
+				writeValue(out, property.getValue());
+			}
+		}
+		out.flush();
+		byte[] bodyBytes = body.toByteArray();
+
+		ByteArrayOutputStream file = new ByteArrayOutputStream(bodyBytes.length + 17);
+		DataOutputStream fileOut = new DataOutputStream(file);
+		fileOut.writeInt(MAGIC);
+		fileOut.writeByte(VERSION);
+		fileOut.writeInt(bodyBytes.length);
+		fileOut.write(bodyBytes);
+		fileOut.writeLong(crc(bodyBytes));
+		fileOut.flush();
+		return file.toByteArray();
+	}
+
+	static PeerDirectoryListing decode(byte[] content) throws IOException {
+		DataInputStream fileIn = new DataInputStream(new ByteArrayInputStream(content));
+		if (fileIn.readInt() != MAGIC) {
+			throw new IOException("Not a config snapshot");
+		}
+		byte version = fileIn.readByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported snapshot version " + version);
+		}
+		int length = fileIn.readInt();
+		if (length < 0 || length > content.length) {
+			throw new IOException("Truncated snapshot");
+		}
+		byte[] bodyBytes = fileIn.readNBytes(length);
+		if (bodyBytes.length != length || fileIn.readLong() != crc(bodyBytes)) {
+			throw new IOException("Snapshot checksum mismatch");
+		}
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bodyBytes));
+		String etag = in.readBoolean() ? readString(in) : null;
+		int services = in.readInt();
+		Map<String, Map<String, Object>> peers = new HashMap<>();
+		for (int i = 0; i < services; i++) {
+			String serviceName = readString(in);
+			int count = in.readInt();
+			Map<String, Object> properties = new HashMap<>();
+			for (int j = 0; j < count; j++) {
+				String key = readString(in);
+				properties.put(key, readValue(in));
+			}
+			peers.put(serviceName, properties);
+		}
+		return new PeerDirectoryListing(peers, etag);
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof Integer i) {
+			out.writeByte(TYPE_INT);
+			out.writeInt(i);
+		} else if (value instanceof Long l) {
+			out.writeByte(TYPE_LONG);
+			out.writeLong(l);
+		} else if (value instanceof Double d) {
+			out.writeByte(TYPE_DOUBLE);
+			out.writeDouble(d);
+		} else if (value instanceof Boolean b) {
+			out.writeByte(TYPE_BOOLEAN);
+			out.writeBoolean(b);
+		} else {
+			out.writeByte(TYPE_STRING);
+			writeString(out, value != null ? value.toString() : "");
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		return switch (type) {
+			case TYPE_STRING -> readString(in);
+			case TYPE_INT -> in.readInt();
+			case TYPE_LONG -> in.readLong();
+			case TYPE_DOUBLE -> in.readDouble();
+			case TYPE_BOOLEAN -> in.readBoolean();
+			default -> throw new IOException("Unknown value type " + type);
+		};
+	}
+
+	// Longitud + UTF-8 (writeUTF limita a 64KB y usa UTF-8 modificado)
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > in.available()) {
+			throw new IOException("Truncated string");
+		}
+		byte[] bytes = in.readNBytes(length);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static long crc(byte[] bytes) {
+		CRC32C crc = new CRC32C();
+		crc.update(bytes);
+		return crc.getValue();
+	}
+
+	private static void restrictToOwner(Path file) {
+		try {
+			// La config puede traer datos sensibles: solo lectura/escritura para el usuario del proceso
+			Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+		} catch (UnsupportedOperationException | IOException e) {
+			log.debug("Could not restrict permissions of {}: {}", file, e.getMessage());
+		}
+	}
+}
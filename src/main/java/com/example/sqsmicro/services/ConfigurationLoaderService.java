@@ -1,108 +1,593 @@
 package com.example.sqsmicro.services;
 
-import com.example.sqsmicro.records.ConfigServerResponse;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.scheduling.annotation.Scheduled;
+import com.example.sqsmicro.records.PeerDirectoryListing;
+import com.example.sqsmicro.records.PeerRoute;
+import com.example.sqsmicro.util.EnvelopeFormat;
+import com.example.sqsmicro.util.KeyRegistry;
+import com.example.sqsmicro.util.PayloadCodec;
+import com.example.sqsmicro.util.PayloadFormat;
+import com.example.sqsmicro.util.PublicKeyCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.time.Duration;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.example.sqsmicro.services.PeerDirectory.CONTENT_ENCODING_PROPERTY;
+import static com.example.sqsmicro.services.PeerDirectory.ENVELOPE_PROPERTY;
+import static com.example.sqsmicro.services.PeerDirectory.FORMAT_VERSION_PROPERTY;
+import static com.example.sqsmicro.services.PeerDirectory.INBOUND_QUEUE_PROPERTY;
+import static com.example.sqsmicro.services.PeerDirectory.KEY_ID_PROPERTY;
+import static com.example.sqsmicro.services.PeerDirectory.PUBLIC_KEY_PROPERTY;
+import static com.example.sqsmicro.services.PeerDirectory.TARGET_NAME_PROPERTY;
 
 /**
+ * Configuración de servicios (propia y de peers) obtenida de un {@link PeerDirectory} (Config Server u OData).
+ * <p>
+ * - Carga completa: el warm-up y cada refresh piden el directorio entero en una sola petición, con If-None-Match;
+ *   un directorio sin cambios cuesta un 304.
+ * - Single-flight: como máximo una carga completa y una petición por servicio en curso; los demás llamadores esperan
+ *   esa misma carga.
+ * - Stale-while-revalidate: una vez cargada, la config se sirve siempre desde memoria. Si un refresh falla se sigue
+ *   sirviendo la última copia buena.
+ * - Refresh en segundo plano cada 'refresh-interval' (+/- jitter para no sincronizar instancias); tras un fallo se
+ *   reintenta con backoff exponencial hasta 'backoff-max'.
+ * - Snapshot local ({@link ConfigSnapshotStore}): cada carga buena se guarda en disco y el arranque parte de esa copia,
+ *   así el listener obtiene su cola sin esperar al Config Server.
+ * Solo el primer acceso a un servicio que no vino en el directorio (ni en el snapshot) espera al HTTP, como máximo
+ * 'initial-load-timeout'.
+ * <p>
+ * Hilos: las peticiones HTTP corren en un pool de I/O ('fetch-threads'); el scheduler solo programa los refresh y
+ * reintentos. Así un Config Server lento no retrasa los timers ni la carga de otros servicios.
+ * <p>
+ * Para el camino de envío, cada refresh resuelve un {@link PeerRoute} inmutable por peer y lo publica en un snapshot
+ * (Map inmutable en un campo volatile) que se reemplaza completo: el productor hace una sola lectura sin locks por mensaje.
+ *
  * @author ian.paris
  * @since 2026-01-13
  */
+@Slf4j
 @Service("configurationLoaderService")
 public class ConfigurationLoaderService {
 
-	private final RestClient restClient;
+	private final PeerDirectory peerDirectory;
+	private final PublicKeyCache publicKeyCache;
+	private final ConfigSnapshotStore snapshotStore;
+
+	// Identidad propia en el directorio: nombre en el Config Server, o IataCode en OData
+	private final String selfId;
 
-	// Identidad propia
-	private static final String MY_SERVICE_ID = "airlines-b";
+	private final Duration refreshInterval;
+	private final double jitter;
+	private final Duration backoffInitial;
+	private final Duration backoffMax;
+	private final Duration initialLoadTimeout;
+	private final Duration ownQueueTimeout;
+	private final PayloadFormat defaultPayloadFormat;
+	private final EnvelopeFormat defaultEnvelopeFormat;
 
-	// Cache segregada: Key = Nombre del Servicio (ej: 'airport-c'), Value = Sus propiedades
+	// Cache segregada: Key = Nombre del Servicio (ej: 'airport-c'), Value = Sus propiedades (última copia buena)
 	private final Map<String, Map<String, Object>> servicesConfigurationCache = new ConcurrentHashMap<>();
 
-	// Set de servicios que queremos mantener actualizados automáticamente con el @Scheduled
+	// Set de servicios que queremos mantener actualizados automáticamente
 	private final Set<String> trackedServices = ConcurrentHashMap.newKeySet();
 
-	public ConfigurationLoaderService(@Qualifier("configRestClient") RestClient restClient) {
-		this.restClient = restClient;
-		// Al iniciar, siempre queremos rastrear nuestra propia config
-		this.trackedServices.add(MY_SERVICE_ID);
+	// Snapshot de rutas por peer: solo se reemplaza completo (copy-on-write), nunca se modifica
+	private volatile Map<String, PeerRoute> peerRoutes = Map.of();
+
+	// Single-flight: carga en curso por servicio y carga completa del directorio en curso
+	private final Map<String, CompletableFuture<Map<String, Object>>> inFlightLoads = new ConcurrentHashMap<>();
+	private final AtomicReference<CompletableFuture<Void>> inFlightDirectoryLoad = new AtomicReference<>();
+
+	// Primera carga de cada servicio (se conserva completada): solo esa bloquea a los llamadores
+	private final Map<String, CompletableFuture<Map<String, Object>>> firstLoads = new ConcurrentHashMap<>();
+
+	// Fallos consecutivos y próximo reintento por servicio (cargas individuales) y del directorio completo
+	private final Map<String, RefreshState> refreshStates = new ConcurrentHashMap<>();
+	private final RefreshState directoryState = new RefreshState();
+
+	// Peers con config pero sin ruta válida (ej: sin clave): el envío falla rápido y se revalida en segundo plano
+	private final Map<String, RefreshState> invalidRoutes = new ConcurrentHashMap<>();
+
+	// ETag del último listado aplicado (If-None-Match del siguiente refresh)
+	private volatile String directoryEtag;
+
+	private final ScheduledExecutorService refreshScheduler;
+	private final ExecutorService fetchExecutor;
+
+	public ConfigurationLoaderService(
+			PeerDirectory peerDirectory,
+			PublicKeyCache publicKeyCache,
+			ConfigSnapshotStore snapshotStore,
+			@Value("${app.config.refresh-interval:10m}") Duration refreshInterval,
+			@Value("${app.config.refresh-jitter:0.1}") double jitter,
+			@Value("${app.config.backoff-initial:5s}") Duration backoffInitial,
+			@Value("${app.config.backoff-max:5m}") Duration backoffMax,
+			@Value("${app.config.initial-load-timeout:5s}") Duration initialLoadTimeout,
+			@Value("${app.config.own-queue-timeout:2m}") Duration ownQueueTimeout,
+			@Value("${app.config.fetch-threads:4}") int fetchThreads,
+			@Value("${app.config.self-id.${app.config.directory:spring-config}:airlines-b}") String selfId,
+			@Value("${app.config.peers:}") List<String> preloadedPeers,
+			@Value("${app.crypto.payload-format:AES_ECB}") PayloadFormat defaultPayloadFormat,
+			@Value("${app.producer.envelope:JSON}") EnvelopeFormat defaultEnvelopeFormat) {
+		this.peerDirectory = peerDirectory;
+		this.publicKeyCache = publicKeyCache;
+		this.snapshotStore = snapshotStore;
+		this.refreshInterval = refreshInterval;
+		this.jitter = jitter;
+		this.backoffInitial = backoffInitial;
+		this.backoffMax = backoffMax;
+		this.initialLoadTimeout = initialLoadTimeout;
+		this.ownQueueTimeout = ownQueueTimeout;
+		this.defaultPayloadFormat = defaultPayloadFormat;
+		this.defaultEnvelopeFormat = defaultEnvelopeFormat;
+		this.selfId = selfId;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("config-refresh-");
+		threadFactory.setDaemon(true);
+		this.refreshScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		CustomizableThreadFactory fetchThreadFactory = new CustomizableThreadFactory("config-fetch-");
+		fetchThreadFactory.setDaemon(true);
+		this.fetchExecutor = Executors.newFixedThreadPool(fetchThreads, fetchThreadFactory);
+		// Al iniciar, siempre queremos rastrear nuestra propia config y la de los peers conocidos
+		this.trackedServices.add(selfId);
+		preloadedPeers.stream().map(String::trim).filter(peer -> !peer.isEmpty()).forEach(trackedServices::add);
+	}
+
+	@PostConstruct
+	public void warmUp() {
+		// Arranque sin esperar al Config Server: la última copia buena en disco, y se reconcilia en segundo plano
+		restoreSnapshot();
+		// Una sola petición para todos los servicios, en vez de una por peer
+		loadDirectoryAsync();
+	}
+
+	/**
+	 * Carga el snapshot local en memoria (config, rutas y ETag). Con el ETag restaurado, si nada cambió
+	 * mientras el pod estaba parado la reconciliación cuesta un 304.
+	 */
+	void restoreSnapshot() {
+		snapshotStore.read().ifPresent(snapshot -> {
+			Map<String, PeerRoute> routes = new HashMap<>();
+			snapshot.peers().forEach((serviceName, properties) -> {
+				PeerRoute route = applyConfiguration(serviceName, properties);
+				if (route != null) {
+					routes.put(serviceName, route);
+				}
+			});
+			publishPeerRoutes(routes);
+			directoryEtag = snapshot.etag();
+			log.info("Config restored from local snapshot: {} services, {} routes", snapshot.peers().size(), routes.size());
+		});
 	}
 
 	/**
-	 * Carga/Refresca la configuración de un servicio específico.
-	 * Retorna el mapa de propiedades para uso inmediato si se desea.
+	 * Escribe la config en memoria al snapshot local. Copia y escritura bajo el mismo lock: con varias cargas en paralelo
+	 * una copia vieja nunca pisa a una más nueva.
+	 */
+	private void persistSnapshot() {
+		if (snapshotStore.isEnabled()) {
+			synchronized (snapshotStore) {
+				snapshotStore.write(new PeerDirectoryListing(Map.copyOf(servicesConfigurationCache), directoryEtag));
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		refreshScheduler.shutdownNow();
+		fetchExecutor.shutdownNow();
+	}
+
+	/**
+	 * Carga/Refresca la configuración de un servicio específico y espera el resultado.
+	 * Si la carga falla retorna la última copia buena (o un mapa vacío si nunca se cargó).
 	 */
 	public Map<String, Object> loadConfigurationFor(String serviceName) {
+		return loadAsync(serviceName).join();
+	}
+
+	/**
+	 * Refresca en segundo plano todos los servicios rastreados (una carga completa del directorio), sin esperar.
+	 */
+	public void refreshAllTrackedConfigurations() {
+		loadDirectoryAsync();
+	}
+
+	/**
+	 * Single-flight de la carga completa: si ya hay una en curso se retorna esa misma. Nunca termina con excepción.
+	 */
+	CompletableFuture<Void> loadDirectoryAsync() {
+		CompletableFuture<Void> load = new CompletableFuture<>();
+		CompletableFuture<Void> existing = inFlightDirectoryLoad.compareAndExchange(null, load);
+		if (existing != null) {
+			return existing;
+		}
 		try {
-			var response = restClient.get()
-					.uri("/{name}/default", serviceName)
-					.retrieve()
-					.body(ConfigServerResponse.class);
+			fetchExecutor.execute(() -> {
+				try {
+					fetchDirectory();
+				} finally {
+					inFlightDirectoryLoad.compareAndSet(load, null);
+					load.complete(null);
+				}
+			});
+		} catch (RuntimeException e) {
+			// Pool apagado (shutdown de la aplicación)
+			inFlightDirectoryLoad.compareAndSet(load, null);
+			load.complete(null);
+		}
+		return load;
+	}
 
-			if (response != null && response.propertySources() != null) {
-				var newProperties = new HashMap<String, Object>();
+	private void fetchDirectory() {
+		try {
+			// Orden estable: misma petición (y mismo ETag) mientras no cambien los servicios rastreados
+			PeerDirectoryListing listing = peerDirectory.fetchAll(new TreeSet<>(trackedServices), directoryEtag);
+			if (listing == null) {
+				log.debug("Peer directory not modified, keeping {} routes", peerRoutes.size());
+			} else {
+				Map<String, PeerRoute> routes = new HashMap<>();
+				listing.peers().forEach((serviceName, properties) -> {
+					PeerRoute route = applyConfiguration(serviceName, properties);
+					if (route != null) {
+						routes.put(serviceName, route);
+					}
+				});
+				// El listado es el directorio completo: un peer que ya no está (o perdió la clave) deja de ser destino
+				replacePeerRoutes(routes);
+				directoryEtag = listing.etag();
+				persistSnapshot();
+				log.info("Peer directory loaded: {} services", listing.peers().size());
+			}
+			directoryState.failures = 0;
+			directoryState.retryAfter = 0;
+			scheduleDirectoryRefresh(withJitter(refreshInterval.toMillis()));
+		} catch (Exception e) {
+			directoryState.failures++;
+			long delay = withJitter(backoffDelayMillis(directoryState.failures));
+			directoryState.retryAfter = System.currentTimeMillis() + delay;
+			scheduleDirectoryRefresh(delay);
+			log.warn("Error fetching peer directory (attempt {}), retrying in {} ms, serving last known config: {}",
+					directoryState.failures, delay, e.getMessage());
+		}
+	}
 
-				// Lógica de prioridad de Spring (Sources vienen en orden de prioridad descendente)
-				// Iteramos en reverso para que las más altas sobrescriban a las bajas
-				var reversedSources = new ArrayList<>(response.propertySources());
-				Collections.reverse(reversedSources);
+	private void scheduleDirectoryRefresh(long delayMillis) {
+		synchronized (directoryState) {
+			if (directoryState.nextRefresh != null) {
+				directoryState.nextRefresh.cancel(false);
+			}
+			directoryState.nextRefresh = refreshScheduler.schedule(this::loadDirectoryAsync, delayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
 
-				for (var source : reversedSources) {
-					newProperties.putAll(source.source());
+	/**
+	 * Single-flight: si ya hay una carga en curso para el servicio se retorna esa misma. Nunca termina con excepción.
+	 */
+	CompletableFuture<Map<String, Object>> loadAsync(String serviceName) {
+		CompletableFuture<Map<String, Object>> existing = inFlightLoads.get(serviceName);
+		if (existing != null) {
+			return existing;
+		}
+		CompletableFuture<Map<String, Object>> load = new CompletableFuture<>();
+		existing = inFlightLoads.putIfAbsent(serviceName, load);
+		if (existing != null) {
+			return existing;
+		}
+		try {
+			fetchExecutor.execute(() -> {
+				Map<String, Object> properties = servicesConfigurationCache.getOrDefault(serviceName, Map.of());
+				try {
+					properties = fetch(serviceName);
+				} finally {
+					// Se libera antes de completar: quien llame después de ver el resultado dispara una carga nueva
+					inFlightLoads.remove(serviceName, load);
+					load.complete(properties);
 				}
+			});
+		} catch (RuntimeException e) {
+			// Pool apagado (shutdown de la aplicación)
+			inFlightLoads.remove(serviceName, load);
+			load.complete(servicesConfigurationCache.getOrDefault(serviceName, Map.of()));
+		}
+		return load;
+	}
 
-				servicesConfigurationCache.put(serviceName, newProperties);
-				trackedServices.add(serviceName); // Lo agregamos a la lista de refresh automático
-
-				System.out.println("Config updated for: " + serviceName);
-				return newProperties;
+	private Map<String, Object> fetch(String serviceName) {
+		try {
+			var newProperties = peerDirectory.fetch(serviceName);
+			publishPeerRoutes(singletonRoute(serviceName, applyConfiguration(serviceName, newProperties)));
+			RefreshState state = refreshStates.get(serviceName);
+			if (state != null) {
+				// A partir de ahora lo refresca la carga completa del directorio
+				state.failures = 0;
+				state.retryAfter = 0;
+				cancelRefresh(state);
 			}
+			persistSnapshot();
+			log.info("Config updated for: {}", serviceName);
+			return newProperties;
 		} catch (Exception e) {
-			System.err.println("Error fetching config for " + serviceName + ": " + e.getMessage());
-			// En caso de error, podríamos retornar la caché vieja si existe, o lanzar exepción
+			RefreshState state = refreshStates.computeIfAbsent(serviceName, name -> new RefreshState());
+			state.failures++;
+			long delay = withJitter(backoffDelayMillis(state.failures));
+			state.retryAfter = System.currentTimeMillis() + delay;
+			scheduleRefresh(serviceName, state, delay);
+			Map<String, Object> lastGood = servicesConfigurationCache.get(serviceName);
+			log.warn("Error fetching config for {} (attempt {}), retrying in {} ms{}: {}", serviceName, state.failures, delay,
+					lastGood != null ? ", serving last known config" : "", e.getMessage());
+			return lastGood != null ? lastGood : Map.of();
 		}
-		return Map.of();
 	}
 
-	@Scheduled(fixedRate = 600000) // 10 minutos
-	public void refreshAllTrackedConfigurations() {
-		// Refresca la config propia y la de cualquier peer que hayamos consultado antes
-		trackedServices.forEach(this::loadConfigurationFor);
+	/**
+	 * Guarda la copia nueva de un servicio y resuelve su ruta (null si no es un destino válido).
+	 */
+	private PeerRoute applyConfiguration(String serviceName, Map<String, Object> newProperties) {
+		var previousProperties = servicesConfigurationCache.put(serviceName, newProperties);
+		// Si el peer rotó su clave, la versión parseada en cache deja de ser válida
+		if (previousProperties != null && !Objects.equals(
+				previousProperties.get(PUBLIC_KEY_PROPERTY), newProperties.get(PUBLIC_KEY_PROPERTY))) {
+			publicKeyCache.invalidate(serviceName);
+		}
+		trackedServices.add(serviceName); // Lo agregamos a la lista de refresh automático
+		return resolvePeerRoute(serviceName, newProperties);
 	}
 
-	private Object getProperty(String serviceName, String key) {
-		// Si no tenemos la config de ese servicio, intentamos cargarla por primera vez (Lazy Loading)
-		if (!servicesConfigurationCache.containsKey(serviceName)) {
-			loadConfigurationFor(serviceName);
+	private void scheduleRefresh(String serviceName, RefreshState state, long delayMillis) {
+		synchronized (state) {
+			if (state.nextRefresh != null) {
+				state.nextRefresh.cancel(false);
+			}
+			state.nextRefresh = refreshScheduler.schedule(() -> loadAsync(serviceName), delayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void cancelRefresh(RefreshState state) {
+		synchronized (state) {
+			if (state.nextRefresh != null) {
+				state.nextRefresh.cancel(false);
+				state.nextRefresh = null;
+			}
 		}
+	}
+
+	long backoffDelayMillis(int failures) {
+		long delay = backoffInitial.toMillis() << Math.min(failures - 1, 30);
+		return delay > 0 ? Math.min(delay, backoffMax.toMillis()) : backoffMax.toMillis();
+	}
+
+	private long withJitter(long delayMillis) {
+		double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+		return Math.max(1, (long) (delayMillis * factor));
+	}
 
+	private Object getProperty(String serviceName, String key) {
+		// Camino caliente: siempre desde memoria, aunque la copia esté desactualizada (se revalida en segundo plano)
 		var props = servicesConfigurationCache.get(serviceName);
+		if (props == null) {
+			props = loadOnFirstAccess(serviceName);
+		}
 		return (props != null) ? props.get(key) : null;
 	}
 
+	/**
+	 * Primer acceso a un servicio (Lazy Loading): espera la carga como máximo 'initial-load-timeout'.
+	 * Si hay una carga completa en curso (warm-up) se espera esa antes de pedir el servicio por separado.
+	 * Solo se espera la primera carga de cada servicio: una vez terminada (bien o mal) se retorna lo que haya en cache
+	 * sin bloquear, y tras un fallo los reintentos corren en segundo plano con backoff.
+	 */
+	private Map<String, Object> loadOnFirstAccess(String serviceName) {
+		try {
+			CompletableFuture<Void> directoryLoad = inFlightDirectoryLoad.get();
+			if (directoryLoad != null) {
+				directoryLoad.get(initialLoadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+				var props = servicesConfigurationCache.get(serviceName);
+				if (props != null) {
+					return props;
+				}
+			}
+			CompletableFuture<Map<String, Object>> firstLoad = firstLoads.computeIfAbsent(serviceName, this::loadAsync);
+			if (firstLoad.isDone()) {
+				return servicesConfigurationCache.get(serviceName);
+			}
+			return firstLoad.get(initialLoadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			log.warn("Config for {} not loaded after {} ms", serviceName, initialLoadTimeout.toMillis());
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Ruta pre-resuelta hacia un peer: una lectura volatile en el camino caliente.
+	 * Solo el primer envío a un peer espera la carga de su config. Si la config ya está cargada pero no da una ruta
+	 * válida, el envío falla sin esperar al HTTP.
+	 */
+	public PeerRoute getPeerRoute(String peerId) {
+		PeerRoute route = peerRoutes.get(peerId);
+		if (route != null) {
+			return route;
+		}
+		if (servicesConfigurationCache.containsKey(peerId)) {
+			revalidateRoute(peerId);
+		} else {
+			loadOnFirstAccess(peerId);
+			route = peerRoutes.get(peerId);
+		}
+		if (route == null) {
+			throw new IllegalStateException("No route available for peer " + peerId + " (missing config or public key)");
+		}
+		return route;
+	}
+
+	/**
+	 * Recarga en segundo plano la config de un peer sin ruta válida, con el mismo backoff que los fallos de carga.
+	 * El primer reintento espera el backoff: la config se acaba de cargar.
+	 */
+	private void revalidateRoute(String peerId) {
+		RefreshState state = invalidRoutes.computeIfAbsent(peerId, name -> new RefreshState());
+		synchronized (state) {
+			long now = System.currentTimeMillis();
+			if (now < state.retryAfter) {
+				return;
+			}
+			boolean justLoaded = state.failures == 0;
+			state.failures++;
+			state.retryAfter = now + withJitter(backoffDelayMillis(state.failures));
+			if (justLoaded) {
+				return;
+			}
+		}
+		loadAsync(peerId);
+	}
+
+	/**
+	 * Resuelve la ruta del peer (parseo de la clave incluido).
+	 * Servicios sin clave pública (ej: la config propia) no son destinos y no generan ruta.
+	 */
+	private PeerRoute resolvePeerRoute(String serviceName, Map<String, Object> properties) {
+		Object publicKeyContent = properties.get(PUBLIC_KEY_PROPERTY);
+		if (!(publicKeyContent instanceof String publicKeyPem)) {
+			return null;
+		}
+		try {
+			PublicKey publicKey = publicKeyCache.get(serviceName, publicKeyPem);
+			String keyId = KeyRegistry.keyId(publicKey);
+			// Si el directorio publica el key id, tiene que ser el de la clave publicada (ej: clave pegada del peer equivocado)
+			Object declaredKeyId = properties.get(KEY_ID_PROPERTY);
+			if (declaredKeyId != null && !keyId.equalsIgnoreCase(String.valueOf(declaredKeyId))) {
+				throw new GeneralSecurityException("Declared key id " + declaredKeyId + " does not match the public key (" + keyId + ")");
+			}
+			Object formatVersion = properties.get(FORMAT_VERSION_PROPERTY);
+			Object envelope = properties.get(ENVELOPE_PROPERTY);
+			Object contentEncoding = properties.get(CONTENT_ENCODING_PROPERTY);
+			return new PeerRoute(
+					serviceName,
+					(String) properties.get(TARGET_NAME_PROPERTY),
+					(String) properties.get(INBOUND_QUEUE_PROPERTY),
+					publicKey,
+					keyId,
+					formatVersion != null ? PayloadFormat.fromVersion(String.valueOf(formatVersion)) : defaultPayloadFormat,
+					envelope != null ? EnvelopeFormat.fromValue(String.valueOf(envelope)) : defaultEnvelopeFormat,
+					contentEncoding != null ? PayloadCodec.fromEncoding(String.valueOf(contentEncoding)) : PayloadCodec.IDENTITY
+			);
+		} catch (Exception e) {
+			// Se mantiene la ruta anterior (si existe): mejor una clave vieja que dejar de enviar
+			log.error("Invalid route config for {}, keeping previous route: {}", serviceName, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Publica un snapshot nuevo con las rutas dadas sumadas a las actuales (refresh de un solo peer o snapshot local).
+	 */
+	private void publishPeerRoutes(Map<String, PeerRoute> routes) {
+		if (routes.isEmpty()) {
+			return;
+		}
+		synchronized (this) {
+			Map<String, PeerRoute> updated = new HashMap<>(peerRoutes);
+			updated.putAll(routes);
+			peerRoutes = Map.copyOf(updated);
+		}
+		routes.keySet().forEach(invalidRoutes::remove);
+	}
 
+	/**
+	 * Reemplaza el snapshot completo por las rutas de una carga completa del directorio.
+	 */
+	private void replacePeerRoutes(Map<String, PeerRoute> routes) {
+		synchronized (this) {
+			peerRoutes = Map.copyOf(routes);
+		}
+		routes.keySet().forEach(invalidRoutes::remove);
+	}
+
+	private static Map<String, PeerRoute> singletonRoute(String serviceName, PeerRoute route) {
+		return route != null ? Map.of(serviceName, route) : Map.of();
+	}
+
+	/**
+	 * Cola de escucha propia. A diferencia de la config de los peers no hay copia vieja que servir: sin ella el listener
+	 * arrancaría sin cola. Se reintenta (con backoff) hasta 'own-queue-timeout' y después se falla el arranque.
+	 */
 	public String getMyListeningQueue() {
-		return (String) getProperty(MY_SERVICE_ID, "config.queues.inbound");
+		String queue = (String) getProperty(selfId, INBOUND_QUEUE_PROPERTY);
+		long deadline = System.nanoTime() + ownQueueTimeout.toNanos();
+		int attempts = 0;
+		while (queue == null) {
+			long remainingNanos = deadline - System.nanoTime();
+			if (remainingNanos <= 0) {
+				throw new IllegalStateException("Own inbound queue (" + INBOUND_QUEUE_PROPERTY + " of '" + selfId
+						+ "') not available after " + ownQueueTimeout + ", the listener cannot start");
+			}
+			try {
+				// Un refresh en segundo plano pudo haberla cargado mientras esperábamos
+				Map<String, Object> cached = servicesConfigurationCache.get(selfId);
+				queue = cached != null ? (String) cached.get(INBOUND_QUEUE_PROPERTY) : null;
+				if (queue == null) {
+					queue = (String) loadAsync(selfId).get(remainingNanos, TimeUnit.NANOSECONDS).get(INBOUND_QUEUE_PROPERTY);
+				}
+				if (queue == null) {
+					attempts++;
+					log.warn("Own inbound queue for {} not available yet (attempt {}), retrying", selfId, attempts);
+					TimeUnit.MILLISECONDS.sleep(Math.min(backoffDelayMillis(attempts),
+							TimeUnit.NANOSECONDS.toMillis(Math.max(deadline - System.nanoTime(), 0)) + 1));
+				}
+			} catch (TimeoutException e) {
+				// El deadline venció con la carga en curso: la siguiente vuelta falla con el mensaje de arriba
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the own inbound queue of " + selfId, e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Could not load the own inbound queue of " + selfId, e);
+			}
+		}
+		return queue;
 	}
 
 	public String getPeerPublicKey(String targetServiceName) {
-		return (String) getProperty(targetServiceName, "config.security.public-key");
+		return (String) getProperty(targetServiceName, PUBLIC_KEY_PROPERTY);
 	}
 
 	public String getPeerTargetQueue(String targetServiceName) {
-		return (String) getProperty(targetServiceName, "config.queues.inbound");
+		return (String) getProperty(targetServiceName, INBOUND_QUEUE_PROPERTY);
 	}
 
 	public String getPeerTargetName(String targetServiceName) {
-		return (String) getProperty(targetServiceName, "config.target-name");
+		return (String) getProperty(targetServiceName, TARGET_NAME_PROPERTY);
+	}
+
+	private static final class RefreshState {
+		private volatile int failures;
+		private volatile long retryAfter;
+		private ScheduledFuture<?> nextRefresh;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,307 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.listener.FailureClass;
+import com.example.sqsmicro.records.ReplayReport;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.Visibility;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Fallos del consumidor: dead-letter de los mensajes que no tiene sentido reintentar y backoff exponencial del resto.
+ * <p>
+ * - {@link FailureClass#PERMANENT}: el body original va a la DLQ en la primera entrega, con el diagnóstico en
+ *   message attributes ('dlq_*'), y el mensaje se confirma en la cola de entrada.
+ * - {@link FailureClass#TRANSIENT}: el mensaje no se confirma y su visibility timeout pasa a
+ *   initial * 2^(entregas - 1), hasta 'max'. Al llegar a 'max-receives' entregas también va a la DLQ.
+ * Si el envío a la DLQ falla, el mensaje sigue el camino transitorio: nunca se confirma sin haberlo guardado.
+ * <p>
+ * {@link #replay(int)} devuelve los mensajes de la DLQ a la cola de entrada en lotes de 10 (SendMessageBatch)
+ * y solo borra de la DLQ los que SQS aceptó.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Service
+public class DeadLetterService {
+
+	static final String FAILURE_CLASS = "dlq_failure_class";
+	static final String ERROR = "dlq_error";
+	static final String SOURCE_QUEUE = "dlq_source_queue";
+	static final String RECEIVE_COUNT = "dlq_receive_count";
+	static final String FAILED_AT = "dlq_failed_at";
+
+	private static final String DIAGNOSTIC_PREFIX = "dlq_";
+	// Límites de SQS: 10 message attributes por mensaje, 10 entradas por batch
+	private static final int MAX_MESSAGE_ATTRIBUTES = 10;
+	private static final int MAX_BATCH_ENTRIES = 10;
+	private static final int MAX_ERROR_LENGTH = 512;
+
+	private final SqsAsyncClient sqsAsyncClient;
+	private final ConfigurationLoaderService configurationLoaderService;
+	private final boolean enabled;
+	private final String configuredQueue;
+	private final int maxReceives;
+	private final Duration initialBackoff;
+	private final Duration maxBackoff;
+	private final ConcurrentMap<String, String> queueUrls = new ConcurrentHashMap<>();
+
+	private final Counter deadLettered;
+	private final Counter retried;
+	private final Counter replayed;
+
+	public DeadLetterService(
+			SqsAsyncClient sqsAsyncClient,
+			ConfigurationLoaderService configurationLoaderService,
+			MeterRegistry meterRegistry,
+			@Value("${app.consumer.dead-letter.enabled:true}") boolean enabled,
+			@Value("${app.consumer.dead-letter.queue:}") String configuredQueue,
+			@Value("${app.consumer.dead-letter.max-receives:5}") int maxReceives,
+			@Value("${app.consumer.dead-letter.backoff.initial:5s}") Duration initialBackoff,
+			@Value("${app.consumer.dead-letter.backoff.max:15m}") Duration maxBackoff) {
+		this.sqsAsyncClient = sqsAsyncClient;
+		this.configurationLoaderService = configurationLoaderService;
+		this.enabled = enabled;
+		this.configuredQueue = configuredQueue;
+		this.maxReceives = maxReceives;
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = maxBackoff;
+		this.deadLettered = outcome(meterRegistry, "dead_lettered");
+		this.retried = outcome(meterRegistry, "retry_scheduled");
+		this.replayed = outcome(meterRegistry, "replayed");
+	}
+
+	private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+		return Counter.builder("sqs.consumer.dead_letter")
+				.description("Failed inbound messages by what was done with them")
+				.tag("outcome", outcome)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Retorna true si el mensaje quedó en la DLQ (se debe confirmar), false si se deja para la re-entrega.
+	 */
+	public boolean handleFailure(Message<String> message, Throwable failure) {
+		if (!enabled) {
+			return false;
+		}
+		FailureClass failureClass = FailureClass.of(failure);
+		int receiveCount = receiveCount(message);
+		if (failureClass == FailureClass.PERMANENT || receiveCount >= maxReceives) {
+			try {
+				deadLetter(message, failure, failureClass, receiveCount);
+				deadLettered.increment();
+				log.warn("Message moved to the dead-letter queue after {} deliveries ({}): {}", receiveCount, failureClass, failure.toString());
+				return true;
+			} catch (RuntimeException e) {
+				log.error("Message could not be moved to the dead-letter queue, it will be redelivered: {}", e.getMessage());
+			}
+		}
+		scheduleRetry(message, receiveCount);
+		return false;
+	}
+
+	private void deadLetter(Message<String> message, Throwable failure, FailureClass failureClass, int receiveCount) {
+		Map<String, MessageAttributeValue> attributes = new HashMap<>();
+		attributes.put(FAILURE_CLASS, string(failureClass.name()));
+		attributes.put(ERROR, string(truncate(failure.getClass().getName() + ": " + failure.getMessage())));
+		attributes.put(SOURCE_QUEUE, string(String.valueOf(message.getHeaders().get(SqsHeaders.SQS_QUEUE_NAME_HEADER))));
+		attributes.put(RECEIVE_COUNT, number(receiveCount));
+		attributes.put(FAILED_AT, string(Instant.now().toString()));
+		// Los attributes originales viajan si entran en el límite de SQS; el diagnóstico tiene prioridad
+		software.amazon.awssdk.services.sqs.model.Message source = sourceMessage(message);
+		if (source != null) {
+			for (var entry : source.messageAttributes().entrySet()) {
+				if (attributes.size() < MAX_MESSAGE_ATTRIBUTES) {
+					attributes.putIfAbsent(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		String queue = deadLetterQueue();
+		SendMessageRequest.Builder request = SendMessageRequest.builder()
+				.queueUrl(queueUrl(queue))
+				.messageBody(message.getPayload())
+				.messageAttributes(attributes);
+		if (SqsFifoSupport.isFifo(queue) && source != null) {
+			request.messageGroupId(source.attributes().getOrDefault(MessageSystemAttributeName.MESSAGE_GROUP_ID, "dead-letter"))
+					.messageDeduplicationId(source.messageId());
+		}
+		sqsAsyncClient.sendMessage(request.build()).join();
+	}
+
+	private void scheduleRetry(Message<String> message, int receiveCount) {
+		Object visibility = message.getHeaders().get(SqsHeaders.SQS_VISIBILITY_TIMEOUT_HEADER);
+		if (!(visibility instanceof Visibility)) {
+			return;
+		}
+		int seconds = backoffSeconds(receiveCount, initialBackoff, maxBackoff);
+		((Visibility) visibility).changeToAsync(seconds).whenComplete((ignored, e) -> {
+			if (e != null) {
+				log.warn("Could not delay the redelivery of a failed message: {}", e.getMessage());
+			}
+		});
+		retried.increment();
+		log.debug("Failed message will be redelivered in {}s (delivery {})", seconds, receiveCount);
+	}
+
+	/**
+	 * initial * 2^(entregas - 1), acotado a 'max' y al máximo de SQS (12 h).
+	 */
+	static int backoffSeconds(int receiveCount, Duration initial, Duration max) {
+		int exponent = Math.min(Math.max(receiveCount - 1, 0), 30);
+		long seconds = initial.toSeconds() << exponent;
+		if (seconds < 0 || seconds > max.toSeconds()) {
+			seconds = max.toSeconds();
+		}
+		return (int) Math.min(seconds, Visibility.MAX_VISIBILITY_TIMEOUT_SECONDS);
+	}
+
+	/**
+	 * Mueve hasta {@code maxMessages} mensajes de la DLQ a la cola de entrada. Se corta antes si la DLQ queda vacía.
+	 * Los attributes de diagnóstico ('dlq_*') no se reenvían: el mensaje vuelve como lo mandó el productor.
+	 */
+	public ReplayReport replay(int maxMessages) {
+		String deadLetterQueue = deadLetterQueue();
+		String targetQueue = configurationLoaderService.getMyListeningQueue();
+		String deadLetterUrl = queueUrl(deadLetterQueue);
+		String targetUrl = queueUrl(targetQueue);
+		int moved = 0;
+		int failed = 0;
+		while (moved + failed < maxMessages) {
+			int batchSize = Math.min(MAX_BATCH_ENTRIES, maxMessages - moved - failed);
+			List<software.amazon.awssdk.services.sqs.model.Message> received = sqsAsyncClient.receiveMessage(ReceiveMessageRequest.builder()
+					.queueUrl(deadLetterUrl)
+					.maxNumberOfMessages(batchSize)
+					.waitTimeSeconds(1)
+					.messageAttributeNames("All")
+					.messageSystemAttributeNames(MessageSystemAttributeName.MESSAGE_GROUP_ID)
+					.build())
+					.join()
+					.messages();
+			if (received.isEmpty()) {
+				break;
+			}
+			List<SendMessageBatchRequestEntry> entries = new ArrayList<>(received.size());
+			for (int i = 0; i < received.size(); i++) {
+				entries.add(replayEntry(String.valueOf(i), received.get(i), targetQueue));
+			}
+			SendMessageBatchResponse response = sqsAsyncClient.sendMessageBatch(SendMessageBatchRequest.builder()
+					.queueUrl(targetUrl)
+					.entries(entries)
+					.build())
+					.join();
+			List<DeleteMessageBatchRequestEntry> toDelete = new ArrayList<>(response.successful().size());
+			for (SendMessageBatchResultEntry sent : response.successful()) {
+				toDelete.add(DeleteMessageBatchRequestEntry.builder()
+						.id(sent.id())
+						.receiptHandle(received.get(Integer.parseInt(sent.id())).receiptHandle())
+						.build());
+			}
+			if (!toDelete.isEmpty()) {
+				sqsAsyncClient.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+						.queueUrl(deadLetterUrl)
+						.entries(toDelete)
+						.build())
+						.join();
+			}
+			moved += response.successful().size();
+			failed += received.size() - response.successful().size();
+			response.failed().forEach(entry -> log.warn("Dead-letter message could not be replayed: {}", entry.message()));
+		}
+		replayed.increment(moved);
+		log.info("Dead-letter replay from {} to {}: {} replayed, {} failed", deadLetterQueue, targetQueue, moved, failed);
+		return new ReplayReport(moved, failed, deadLetterQueue, targetQueue);
+	}
+
+	private static SendMessageBatchRequestEntry replayEntry(String id, software.amazon.awssdk.services.sqs.model.Message message, String targetQueue) {
+		Map<String, MessageAttributeValue> attributes = new HashMap<>();
+		message.messageAttributes().forEach((key, value) -> {
+			if (!key.startsWith(DIAGNOSTIC_PREFIX)) {
+				attributes.put(key, value);
+			}
+		});
+		SendMessageBatchRequestEntry.Builder entry = SendMessageBatchRequestEntry.builder()
+				.id(id)
+				.messageBody(message.body())
+				.messageAttributes(attributes);
+		if (SqsFifoSupport.isFifo(targetQueue)) {
+			entry.messageGroupId(message.attributes().getOrDefault(MessageSystemAttributeName.MESSAGE_GROUP_ID, "dead-letter"))
+					.messageDeduplicationId(message.messageId());
+		}
+		return entry.build();
+	}
+
+	/**
+	 * 'app.consumer.dead-letter.queue', o la cola de entrada + '-dlq' (antes del '.fifo' en colas FIFO).
+	 */
+	String deadLetterQueue() {
+		if (configuredQueue != null && !configuredQueue.isBlank()) {
+			return configuredQueue;
+		}
+		String inbound = configurationLoaderService.getMyListeningQueue();
+		return SqsFifoSupport.isFifo(inbound)
+				? inbound.substring(0, inbound.length() - ".fifo".length()) + "-dlq.fifo"
+				: inbound + "-dlq";
+	}
+
+	private String queueUrl(String queue) {
+		return queueUrls.computeIfAbsent(queue, name -> sqsAsyncClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(name).build())
+				.join()
+				.queueUrl());
+	}
+
+	private static int receiveCount(Message<String> message) {
+		Object value = message.getHeaders().get(SqsHeaders.MessageSystemAttributes.SQS_APPROXIMATE_RECEIVE_COUNT);
+		if (value == null) {
+			return 1;
+		}
+		try {
+			return Integer.parseInt(value.toString());
+		} catch (NumberFormatException e) {
+			return 1;
+		}
+	}
+
+	private static software.amazon.awssdk.services.sqs.model.Message sourceMessage(Message<String> message) {
+		Object source = message.getHeaders().get(SqsHeaders.SQS_SOURCE_DATA_HEADER);
+		return source instanceof software.amazon.awssdk.services.sqs.model.Message ? (software.amazon.awssdk.services.sqs.model.Message) source : null;
+	}
+
+	private static MessageAttributeValue string(String value) {
+		return MessageAttributeValue.builder().dataType("String").stringValue(value).build();
+	}
+
+	private static MessageAttributeValue number(int value) {
+		return MessageAttributeValue.builder().dataType("Number").stringValue(String.valueOf(value)).build();
+	}
+
+	private static String truncate(String value) {
+		return value.length() <= MAX_ERROR_LENGTH ? value : value.substring(0, MAX_ERROR_LENGTH);
+	}
+}
@@ -0,0 +1,167 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.LoadReport;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Modo generador de carga (app.load-generator.enabled=true): reemplaza al cron de {@link SchedulerService} y
+ * envía los payloads de payloads.txt con el MessageProducerService real (cifrado + SQS/ElasticMQ) a un ritmo objetivo.
+ * <p>
+ * Open-loop: el instante de cada envío se fija de antemano según el perfil (rampa lineal de 0 a 'rate' durante
+ * 'ramp' y luego constante hasta 'duration') y no depende de cuándo terminó el anterior. Si el productor se atrasa,
+ * los envíos se encolan y su latencia se mide desde el instante programado; así no hay coordinated omission
+ * (un cliente que espera la respuesta antes de enviar el siguiente baja el ritmo justo cuando el sistema se degrada
+ * y esconde esa latencia). 'concurrency' es el número de hilos que envían.
+ * Al terminar loguea el throughput y p50/p99/p999 (HdrHistogram).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.load-generator.enabled", havingValue = "true")
+public class LoadGeneratorService {
+
+	private final MessageProducerService messageProducerService;
+	private final List<String> payloads;
+	private final double rate;
+	private final Duration ramp;
+	private final Duration duration;
+	private final int concurrency;
+	private final Duration drainTimeout;
+
+	public LoadGeneratorService(
+			MessageProducerService messageProducerService,
+			@Value("classpath:payloads.txt") Resource payloadsResource,
+			@Value("${app.load-generator.rate:100}") double rate,
+			@Value("${app.load-generator.ramp:30s}") Duration ramp,
+			@Value("${app.load-generator.duration:2m}") Duration duration,
+			@Value("${app.load-generator.concurrency:16}") int concurrency,
+			@Value("${app.load-generator.drain-timeout:1m}") Duration drainTimeout) {
+		if (rate <= 0 || concurrency <= 0) {
+			throw new IllegalArgumentException("app.load-generator.rate and concurrency must be positive");
+		}
+		this.messageProducerService = messageProducerService;
+		this.payloads = readPayloads(payloadsResource);
+		this.rate = rate;
+		this.ramp = ramp;
+		this.duration = duration;
+		this.concurrency = concurrency;
+		this.drainTimeout = drainTimeout;
+	}
+
+	// Arranca cuando el contexto ya está listo (listeners, config de peers), en su propio hilo
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		Thread generator = new Thread(() -> {
+			try {
+				run();
+			} catch (Exception e) {
+				log.error("Load generator aborted", e);
+			}
+		}, "load-generator");
+		generator.setDaemon(true);
+		generator.start();
+	}
+
+	public LoadReport run() throws InterruptedException {
+		log.info("Load generator: {} msg/s after a {}s ramp, {}s total, {} sender threads",
+				rate, ramp.toSeconds(), duration.toSeconds(), concurrency);
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("load-sender-");
+		threadFactory.setDaemon(true);
+		ExecutorService senders = Executors.newFixedThreadPool(concurrency, threadFactory);
+		Recorder recorder = new Recorder(3);
+		LongAdder sent = new LongAdder();
+		LongAdder failed = new LongAdder();
+
+		long rampNanos = ramp.toNanos();
+		long durationNanos = duration.toNanos();
+		long start = System.nanoTime();
+		for (long i = 0; ; i++) {
+			long offset = scheduledOffsetNanos(i, rate, rampNanos);
+			if (offset >= durationNanos) {
+				break;
+			}
+			long scheduled = start + offset;
+			long wait;
+			while ((wait = scheduled - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			String payload = payloads.get((int) (i % payloads.size()));
+			senders.execute(() -> {
+				try {
+					messageProducerService.sendMessage(payload, new HashMap<>());
+					recorder.recordValue(Math.max(0, (System.nanoTime() - scheduled) / 1_000));
+					sent.increment();
+				} catch (Exception e) {
+					failed.increment();
+					log.debug("Load generator send failed: {}", e.getMessage());
+				}
+			});
+		}
+		senders.shutdown();
+		if (!senders.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+			log.warn("Load generator: sends still pending after {}s, abandoning them", drainTimeout.toSeconds());
+			senders.shutdownNow();
+		}
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		Histogram latency = recorder.getIntervalHistogram();
+		LoadReport report = new LoadReport(sent.sum(), failed.sum(), elapsedMillis,
+				latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+				latency.getValueAtPercentile(99.9), latency.getMaxValue());
+		log.info("Load generator finished: {} sent, {} failed in {} ms | throughput {} msg/s | latency p50={} us p99={} us p999={} us max={} us",
+				report.sent(), report.failed(), report.elapsedMillis(), String.format("%.1f", report.throughput()),
+				report.p50Micros(), report.p99Micros(), report.p999Micros(), report.maxMicros());
+		return report;
+	}
+
+	/**
+	 * Instante programado del envío i, en nanos desde el inicio. En la rampa el ritmo sube lineal de 0 a 'rate':
+	 * los enviados hasta t son rate·t²/(2·ramp), despejando t = sqrt(2·i·ramp/rate). Después, uno cada 1/rate.
+	 */
+	static long scheduledOffsetNanos(long i, double rate, long rampNanos) {
+		double rampSeconds = rampNanos / 1e9;
+		double rampMessages = rate * rampSeconds / 2;
+		double seconds = i < rampMessages
+				? Math.sqrt(2 * i * rampSeconds / rate)
+				: rampSeconds + (i - rampMessages) / rate;
+		return (long) (seconds * 1e9);
+	}
+
+	private static List<String> readPayloads(Resource payloadsResource) {
+		try (var reader = new BufferedReader(
+				new InputStreamReader(payloadsResource.getInputStream(), StandardCharsets.UTF_8))) {
+			List<String> lines = reader.lines().filter(line -> !line.isBlank()).toList();
+			if (lines.isEmpty()) {
+				throw new IllegalStateException("payloads.txt has no payloads for the load generator");
+			}
+			return lines;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read payloads.txt", e);
+		}
+	}
+}
@@ -1,27 +1,61 @@
 package com.example.sqsmicro.services;
 
-import com.example.sqslib.iata.IATAAIDXFlightLegNotifRQ;
+import com.example.sqsmicro.records.FlightLegNotification;
 import com.example.sqslib.iata.IATAAIDXFlightLegRQ;
 import com.example.sqslib.service.XmlService;
 import com.example.sqsmicro.builders.FlightNotificationBuilder;
+import com.example.sqsmicro.records.BatchEntryResult;
 import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.records.OutboundMessage;
+import com.example.sqsmicro.records.PeerRoute;
 import com.example.sqslib.producer.SqsProducerService;
 import com.example.sqsmicro.records.UniqueFlightId;
+import com.example.sqsmicro.util.ClaimCheck;
 import com.example.sqsmicro.util.EncryptDecryptMessageUtil;
+import com.example.sqsmicro.util.EnvelopeFormat;
+import com.example.sqsmicro.util.KeyRegistry;
+import com.example.sqsmicro.util.MessageEnvelope;
+import com.example.sqsmicro.util.MessageTrace;
+import com.example.sqsmicro.util.PayloadCodec;
+import com.example.sqsmicro.util.PayloadCompressor;
+import com.example.sqsmicro.util.PayloadFormat;
+import com.example.sqsmicro.util.PipelineMetrics;
+import com.example.sqsmicro.util.PipelineStage;
+import com.example.sqsmicro.util.SessionKeyManager;
+import com.example.sqsmicro.util.StageRecorder;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.SecretKey;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
+ * Cada etapa del envío (config, XML, compresión, AES, Base64, RSA, SQS) se mide en {@link PipelineMetrics}
+ * por peer destino y message_type.
+ *
  * @author ian.paris
  * @since 2025-12-15
  */
@@ -34,56 +68,97 @@ public class MessageProducerService {
     private final XmlService xmlService;
     private final FlightNotificationBuilder flightNotificationBuilder;
     private final ConfigurationLoaderService configurationLoaderService;
-
+    private final SessionKeyManager sessionKeyManager;
+    private final PayloadCompressor payloadCompressor;
+    private final ClaimCheck claimCheck;
+    private final SqsBatchSender sqsBatchSender;
+    private final ExecutorService producerCryptoExecutor;
+    private final SqsTemplate sqsTemplate;
+    private final PipelineMetrics pipelineMetrics;
+    private final MessageTrace messageTrace;
+    private final String outboundQueue;
+    private final String defaultTarget;
 
     public MessageProducerService(
             SqsProducerService sqsProducerService,
             EncryptDecryptMessageUtil encryptDecryptMessageUtil,
             XmlService xmlService,
             FlightNotificationBuilder flightNotificationBuilder,
-            ConfigurationLoaderService configurationLoaderService) {
+            ConfigurationLoaderService configurationLoaderService,
+            SessionKeyManager sessionKeyManager,
+            PayloadCompressor payloadCompressor,
+            ClaimCheck claimCheck,
+            SqsBatchSender sqsBatchSender,
+            @Qualifier("producerCryptoExecutor") ExecutorService producerCryptoExecutor,
+            SqsTemplate sqsTemplate,
+            PipelineMetrics pipelineMetrics,
+            MessageTrace messageTrace,
+            @Value("${app.producer.outbound-queue:cola-aws-sqs-1}") String outboundQueue,
+            @Value("${app.producer.default-target:airport-c}") String defaultTarget) {
         this.sqsProducerService = sqsProducerService;
         this.encryptDecryptMessageUtil = encryptDecryptMessageUtil;
         this.xmlService = xmlService;
         this.flightNotificationBuilder = flightNotificationBuilder;
         this.configurationLoaderService = configurationLoaderService;
+        this.sessionKeyManager = sessionKeyManager;
+        this.payloadCompressor = payloadCompressor;
+        this.claimCheck = claimCheck;
+        this.sqsBatchSender = sqsBatchSender;
+        this.producerCryptoExecutor = producerCryptoExecutor;
+        this.sqsTemplate = sqsTemplate;
+        this.pipelineMetrics = pipelineMetrics;
+        this.messageTrace = messageTrace;
+        this.outboundQueue = outboundQueue;
+        this.defaultTarget = defaultTarget;
     }
 
     public void sendFlightLegNotifRequest() throws Exception {
-        String target = "airport-c";
-        String targetName = configurationLoaderService.getPeerTargetName(target);
-        String targetQueue = configurationLoaderService.getPeerTargetQueue(target);
-        String receiverPubKey = configurationLoaderService.getPeerPublicKey(target);
-        log.debug("Before preparing the SQS shipment. TargetName {} | TargetQueue {} | ReceiverPubKey {}", targetName, targetQueue, receiverPubKey);
-        IATAAIDXFlightLegNotifRQ request = flightNotificationBuilder.buildNotif("QR", "1234");
-        String xmlPayload = xmlService.toXml(request);
-        UniqueFlightId uniqueFlightId = new UniqueFlightId(request.getFlightLegs().getFirst().getLegIdentifier().getAirline().getValue(), request.getFlightLegs().getFirst().getLegIdentifier().getFlightNumber(), request.getTimeStamp().toLocalDate(), request.getFlightLegs().getFirst().getLegIdentifier().getDepartureAirport().getValue(), request.getFlightLegs().getFirst().getLegIdentifier().getArrivalAirport().getValue(), Optional.empty(), Optional.empty());
-        log.debug("Before preparing the SQS shipment. Payload to encrypt: {}", xmlPayload);
-        encryptDecryptMessageUtil.loadPublicKey(receiverPubKey);
-        EncryptDecryptMessageUtil.EncryptedMessageBundle encryptedMessageBundle = encryptDecryptMessageUtil.encryptHybrid(xmlPayload);
+        sendFlightLegNotifRequest(defaultTarget);
+    }
+
+    public void sendFlightLegNotifRequest(String target) throws Exception {
+        StageRecorder stages = pipelineMetrics.producer(target, "IATAAIDXFlightLegNotifRQ");
+        PeerRoute route = resolveRoute(target, stages);
+        if (log.isDebugEnabled()) {
+            log.debug("Before preparing the SQS shipment. TargetName {} | TargetQueue {} | ReceiverKeyId {}", route.targetName(), route.targetQueue(), route.keyId());
+        }
+        FlightLegNotification notification = flightNotificationBuilder.newNotification("QR", "1234");
+        String xmlPayload = stages.time(PipelineStage.XML_MARSHAL, () -> flightNotificationBuilder.toXml(notification));
+        UniqueFlightId uniqueFlightId = new UniqueFlightId(notification.airlineCode(), notification.flightNumber(), notification.timeStamp().toLocalDate(), notification.departureAirport(), notification.arrivalAirport(), Optional.empty(), Optional.empty());
         Map<String, String> requestMetadata = new HashMap<>();
+        EncryptDecryptMessageUtil.EncryptedMessageBundle encryptedMessageBundle = encrypt(route, xmlPayload, requestMetadata, stages);
         requestMetadata.put("message_type", "IATAAIDXFlightLegNotifRQ");
-        requestMetadata.put("correlation_id", request.getCorrelationID());
-        requestMetadata.put("key_public", encryptDecryptMessageUtil.getPublicKeyAsString());
-        MessageDto message = new MessageDto(
-                requestMetadata,
-                encryptedMessageBundle.encryptedPayload(),
-                encryptedMessageBundle.encryptedKey(),
-                uniqueFlightId.toKeyId()
-        );
-        log.info("Preparing the SQS shipment. Metadata: {}", requestMetadata.toString());
-        log.info("Preparing the SQS shipment. EncryptedPayload: {}", message.encryptedPayload());
-        log.info("Preparing the SQS shipment. EncryptedKey: {}", message.encryptedKey());
-        log.info("Preparing the SQS shipment. UniqueFlightId: {}", message.uniqueFlightId());
-        sqsProducerService.send("cola-aws-sqs-1", message);
+        requestMetadata.put("correlation_id", notification.correlationId());
+        requestMetadata.put(KeyRegistry.KEY_ID, route.keyId());
+        MessageDto message = toMessage(requestMetadata, encryptedMessageBundle, uniqueFlightId);
+        messageTrace.outbound(route.targetName(), xmlPayload, message);
+        send(route, message, stages);
+    }
+
+    /**
+     * Fan-out de la notificación: el XML se genera una sola vez para todos los destinos (ver {@link #fanOut(Collection, String, Map)}).
+     */
+    public Map<String, BatchEntryResult> sendFlightLegNotifRequest(Collection<String> targets) throws Exception {
+        FlightLegNotification notification = flightNotificationBuilder.newNotification("QR", "1234");
+        String xmlPayload = pipelineMetrics.producer(PipelineMetrics.FAN_OUT_PEER, "IATAAIDXFlightLegNotifRQ")
+                .time(PipelineStage.XML_MARSHAL, () -> flightNotificationBuilder.toXml(notification));
+        UniqueFlightId uniqueFlightId = new UniqueFlightId(notification.airlineCode(), notification.flightNumber(), notification.timeStamp().toLocalDate(), notification.departureAirport(), notification.arrivalAirport(), Optional.empty(), Optional.empty());
+        Map<String, String> requestMetadata = new HashMap<>();
+        requestMetadata.put("message_type", "IATAAIDXFlightLegNotifRQ");
+        requestMetadata.put("correlation_id", notification.correlationId());
+        return fanOut(targets, xmlPayload, requestMetadata, uniqueFlightId);
     }
 
     public void sendFlightLegRequest() throws Exception {
-        String target = "airport-c";
-        String targetName = configurationLoaderService.getPeerTargetName(target);
-        String targetQueue = configurationLoaderService.getPeerTargetQueue(target);
-        String receiverPubKey = configurationLoaderService.getPeerPublicKey(target);
-        log.debug("Before preparing the SQS shipment. TargetName {} | TargetQueue {} | ReceiverPubKey {}", targetName, targetQueue, receiverPubKey);
+        sendFlightLegRequest(defaultTarget);
+    }
+
+    public void sendFlightLegRequest(String target) throws Exception {
+        StageRecorder stages = pipelineMetrics.producer(target, "IATAAIDXFlightLegRQ");
+        PeerRoute route = resolveRoute(target, stages);
+        if (log.isDebugEnabled()) {
+            log.debug("Before preparing the SQS shipment. TargetName {} | TargetQueue {} | ReceiverKeyId {}", route.targetName(), route.targetQueue(), route.keyId());
+        }
         IATAAIDXFlightLegRQ request = new IATAAIDXFlightLegRQ();
         request.setEchoToken(UUID.randomUUID().toString());
         request.setTimeStamp(LocalDateTime.now());
@@ -91,58 +166,344 @@ public class MessageProducerService {
         request.setVersion(new BigDecimal("21.3"));
         request.setTransactionIdentifier("t2");
         request.setSequenceNmbr(BigInteger.TWO);
-        request.setCorrelationID("t2");
+        request.setCorrelationID(UUID.randomUUID().toString());
         request.setTransactionStatusCode("Start");
         request.setRetransmissionIndicator(false);
         IATAAIDXFlightLegRQ.Airline airline = new IATAAIDXFlightLegRQ.Airline();
         airline.setCode("QR");
         airline.setCodeContext("IATA");
         request.setAirline(airline);
-        String xmlPayload = xmlService.toXml(request);
-        log.debug("Before preparing the SQS shipment. Payload to encrypt: {}", xmlPayload);
-        encryptDecryptMessageUtil.loadPublicKey(receiverPubKey);
-        EncryptDecryptMessageUtil.EncryptedMessageBundle encryptedMessageBundle = encryptDecryptMessageUtil.encryptHybrid(xmlPayload);
+        String xmlPayload = stages.time(PipelineStage.XML_MARSHAL, () -> xmlService.toXml(request));
         Map<String, String> requestMetadata = new HashMap<>();
+        EncryptDecryptMessageUtil.EncryptedMessageBundle encryptedMessageBundle = encrypt(route, xmlPayload, requestMetadata, stages);
         requestMetadata.put("message_type", "IATAAIDXFlightLegRQ");
         requestMetadata.put("correlation_id", request.getCorrelationID());
-        requestMetadata.put("key_public", encryptDecryptMessageUtil.getPublicKeyAsString());
+        requestMetadata.put(KeyRegistry.KEY_ID, route.keyId());
         UniqueFlightId uniqueFlightId = new UniqueFlightId(request.getAirline().getCode(), "", request.getTimeStamp().toLocalDate(), "*", "*", Optional.empty(), Optional.empty());
-        MessageDto message = new MessageDto(
-                requestMetadata,
-                encryptedMessageBundle.encryptedPayload(),
-                encryptedMessageBundle.encryptedKey(),
-                uniqueFlightId.toKeyId()
-        );
-        log.info("Preparing the SQS shipment. Metadata: {}", requestMetadata.toString());
-        log.info("Preparing the SQS shipment. EncryptedPayload: {}", message.encryptedPayload());
-        log.info("Preparing the SQS shipment. EncryptedKey: {}", message.encryptedKey());
-        log.info("Preparing the SQS shipment. UniqueFlightId: {}", message.uniqueFlightId());
-        sqsProducerService.send("cola-aws-sqs-1", message);
+        MessageDto message = toMessage(requestMetadata, encryptedMessageBundle, uniqueFlightId);
+        messageTrace.outbound(route.targetName(), xmlPayload, message);
+        send(route, message, stages);
     }
 
     public void sendMessage(String payload, Map<String, String> metadata) throws Exception {
-        String target = "airport-c";
-        String targetName = configurationLoaderService.getPeerTargetName(target);
-        String targetQueue = configurationLoaderService.getPeerTargetQueue(target);
-        String receiverPubKey = configurationLoaderService.getPeerPublicKey(target);
-        log.debug("Before preparing the SQS shipment. TargetName {} | TargetQueue {} | ReceiverPubKey {}", targetName, targetQueue, receiverPubKey);
-        log.debug("Before preparing the SQS shipment. Payload to encrypt: {}", payload);
-        encryptDecryptMessageUtil.loadPublicKey(receiverPubKey);
-        EncryptDecryptMessageUtil.EncryptedMessageBundle encryptedMessageBundle = encryptDecryptMessageUtil.encryptHybrid(payload);
-        metadata.put("message_type", metadata.get("message_type"));
-        metadata.put("correlation_id", metadata.get("correlation_id"));
-        metadata.put("key_public", encryptDecryptMessageUtil.getPublicKeyAsString());
-        UniqueFlightId uniqueFlightId = new UniqueFlightId("QR", "1234", LocalDate.now(), "LAX", "GRU", Optional.empty(), Optional.empty());
-        MessageDto message = new MessageDto(
+        sendMessage(defaultTarget, payload, metadata);
+    }
+
+    public void sendMessage(String target, String payload, Map<String, String> metadata) throws Exception {
+        StageRecorder stages = pipelineMetrics.producer(target, metadata.get("message_type"));
+        PeerRoute route = resolveRoute(target, stages);
+        if (log.isDebugEnabled()) {
+            log.debug("Before preparing the SQS shipment. TargetName {} | TargetQueue {} | ReceiverKeyId {}", route.targetName(), route.targetQueue(), route.keyId());
+        }
+        MessageDto message = prepareMessage(route, payload, metadata, stages);
+        messageTrace.outbound(route.targetName(), payload, message);
+        send(route, message, stages);
+    }
+
+    /**
+     * Etapa de cifrado del pipeline asíncrono: resuelve la llave del peer y cifra, sin enviar.
+     */
+    public MessageDto prepareMessage(String target, String payload, Map<String, String> metadata) throws GeneralSecurityException {
+        StageRecorder stages = pipelineMetrics.producer(target, metadata.get("message_type"));
+        return prepareMessage(resolveRoute(target, stages), payload, metadata, stages);
+    }
+
+    public String getDefaultTarget() {
+        return defaultTarget;
+    }
+
+    /**
+     * Etapa de envío del pipeline asíncrono: I/O bloqueante hacia SQS.
+     * En colas FIFO (*.fifo) el MessageGroupId es el uniqueFlightId: orden estricto por vuelo, paralelismo entre vuelos.
+     */
+    public void send(MessageDto message) {
+        send(defaultTarget, message);
+    }
+
+    public void send(String target, MessageDto message) {
+        StageRecorder stages = pipelineMetrics.producer(target, message.metadata() != null ? message.metadata().get("message_type") : null);
+        send(resolveRoute(target, stages), message, stages);
+    }
+
+    private PeerRoute resolveRoute(String target, StageRecorder stages) {
+        return stages.time(PipelineStage.CONFIG_RESOLVE, () -> configurationLoaderService.getPeerRoute(target));
+    }
+
+    private void send(PeerRoute route, MessageDto message, StageRecorder stages) {
+        try {
+            stages.run(PipelineStage.SQS_SEND, () -> send(route, message));
+            stages.count("sent");
+        } catch (RuntimeException e) {
+            stages.count("failed");
+            throw e;
+        }
+    }
+
+    /**
+     * El body va como JSON o como {@link MessageEnvelope} según lo negociado con el peer ({@link PeerRoute#envelopeFormat()}).
+     */
+    private void send(PeerRoute route, MessageDto message) {
+        String queue = queueFor(route);
+        boolean binary = route.envelopeFormat() == EnvelopeFormat.BINARY;
+        if (!binary && !SqsFifoSupport.isFifo(queue)) {
+            sqsProducerService.send(queue, message);
+            return;
+        }
+        Object payload = binary ? MessageEnvelope.encode(message) : message;
+        if (!SqsFifoSupport.isFifo(queue)) {
+            sqsTemplate.send(queue, payload);
+            return;
+        }
+        sqsTemplate.send(to -> to.queue(queue)
+                .payload(payload)
+                .messageGroupId(SqsFifoSupport.messageGroupId(message))
+                .messageDeduplicationId(SqsFifoSupport.deduplicationId(message)));
+    }
+
+    /**
+     * Cola inbound del peer; 'outbound-queue' solo si el peer no declara una.
+     */
+    private String queueFor(PeerRoute route) {
+        return route.targetQueue() != null ? route.targetQueue() : outboundQueue;
+    }
+
+    /**
+     * Envío batch: cifra todas las entradas en paralelo y las envía con SendMessageBatch
+     * (hasta 10 entradas o 256KB por llamada). Retorna un resultado por entrada, en el mismo orden.
+     * Una entrada que falla al cifrarse no impide el envío del resto.
+     */
+    public List<BatchEntryResult> sendBatch(List<OutboundMessage> messages) throws Exception {
+        return sendBatch(defaultTarget, messages);
+    }
+
+    public List<BatchEntryResult> sendBatch(String target, List<OutboundMessage> messages) throws Exception {
+        StageRecorder batchStages = pipelineMetrics.producer(target, PipelineMetrics.BATCH_MESSAGE_TYPE);
+        PeerRoute route = resolveRoute(target, batchStages);
+
+        List<CompletableFuture<MessageDto>> encryptedMessages = new ArrayList<>(messages.size());
+        for (OutboundMessage outboundMessage : messages) {
+            encryptedMessages.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    Map<String, String> metadata = outboundMessage.metadata() != null ? new HashMap<>(outboundMessage.metadata()) : new HashMap<>();
+                    return prepareMessage(route, outboundMessage.payload(), metadata, pipelineMetrics.producer(target, metadata.get("message_type")));
+                } catch (GeneralSecurityException e) {
+                    throw new CompletionException(e);
+                }
+            }, producerCryptoExecutor));
+        }
+
+        BatchEntryResult[] results = new BatchEntryResult[messages.size()];
+        List<MessageDto> readyToSend = new ArrayList<>(messages.size());
+        List<Integer> readyIndexes = new ArrayList<>(messages.size());
+        for (int i = 0; i < encryptedMessages.size(); i++) {
+            try {
+                readyToSend.add(encryptedMessages.get(i).join());
+                readyIndexes.add(i);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("Batch entry {} could not be encrypted: {}", i, cause.getMessage());
+                results[i] = BatchEntryResult.failed(i, cause.getMessage());
+            }
+        }
+
+        List<BatchEntryResult> sent = batchStages.time(PipelineStage.SQS_SEND,
+                () -> sqsBatchSender.sendBatch(queueFor(route), readyToSend, route.envelopeFormat()));
+        for (int j = 0; j < sent.size(); j++) {
+            int index = readyIndexes.get(j);
+            results[index] = sent.get(j).withIndex(index);
+        }
+        for (BatchEntryResult result : results) {
+            batchStages.count(result.success() ? "sent" : "failed");
+        }
+        log.info("Batch of {} messages processed for {}", messages.size(), target);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Fan-out: el mismo payload a varios peers (ej: aeropuerto, handlers, aerolíneas socias), por IATA code o nombre de servicio.
+     * El payload se comprime y se cifra una sola vez (una vez por formato si los peers no usan el mismo) con una data key nueva;
+     * por destinatario solo se envuelve la data key con su clave pública, en paralelo en 'producerCryptoExecutor'.
+     * Cada mensaje va a la cola inbound del peer (o a 'outbound-queue' si el peer no declara una), agrupados por cola con SendMessageBatch.
+     * Retorna un resultado por destino, en el orden recibido. Un peer sin ruta no impide el envío al resto.
+     * No usa session keys: la data key del fan-out se comparte entre peers y no se reutiliza en otros mensajes.
+     */
+    public Map<String, BatchEntryResult> fanOut(Collection<String> targets, String payload, Map<String, String> metadata) throws GeneralSecurityException {
+        return fanOut(targets, payload, metadata, placeholderFlightId());
+    }
+
+    private Map<String, BatchEntryResult> fanOut(Collection<String> targets, String payload, Map<String, String> metadata, UniqueFlightId uniqueFlightId) throws GeneralSecurityException {
+        List<String> recipients = List.copyOf(new LinkedHashSet<>(targets));
+        BatchEntryResult[] results = new BatchEntryResult[recipients.size()];
+        PeerRoute[] routes = new PeerRoute[recipients.size()];
+        String messageType = metadata != null ? metadata.get("message_type") : null;
+        StageRecorder sharedStages = pipelineMetrics.producer(PipelineMetrics.FAN_OUT_PEER, messageType);
+        StageRecorder[] recipientStages = new StageRecorder[recipients.size()];
+        Map<EncryptionGroup, List<Integer>> recipientsByGroup = new LinkedHashMap<>();
+        boolean anyAcceptsCompression = false;
+        for (int i = 0; i < recipients.size(); i++) {
+            recipientStages[i] = pipelineMetrics.producer(recipients.get(i), messageType);
+            try {
+                routes[i] = resolveRoute(recipients.get(i), recipientStages[i]);
+                anyAcceptsCompression |= routes[i].accepts(payloadCompressor.codec());
+            } catch (RuntimeException e) {
+                log.warn("Fan-out recipient {} skipped: {}", recipients.get(i), e.getMessage());
+                results[i] = BatchEntryResult.failed(i, e.getMessage());
+            }
+        }
+
+        Map<String, String> sharedMetadata = metadata != null ? new HashMap<>(metadata) : new HashMap<>();
+        sharedMetadata.remove(SessionKeyManager.SESSION_KEY_ID);
+        // Un mismo message_id para todas las copias: es un solo mensaje lógico, cada destinatario lo deduplica por separado
+        sharedMetadata.putIfAbsent(MessageDto.MESSAGE_ID, UUID.randomUUID().toString());
+        sharedMetadata.remove(PayloadCodec.METADATA_KEY);
+        // Se comprime una vez si algún destinatario lo acepta; los que no declararon el codec reciben el payload plano
+        ByteBuffer compressed = anyAcceptsCompression
+                ? sharedStages.time(PipelineStage.COMPRESS, () -> payloadCompressor.compress(payload))
+                : null;
+        for (int i = 0; i < recipients.size(); i++) {
+            if (routes[i] != null) {
+                boolean compressedForRecipient = compressed != null && routes[i].accepts(payloadCompressor.codec());
+                recipientsByGroup.computeIfAbsent(new EncryptionGroup(routes[i].payloadFormat(), compressedForRecipient),
+                        group -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<CompletableFuture<MessageDto>> prepared = new ArrayList<>(Collections.nCopies(recipients.size(), null));
+        for (Map.Entry<EncryptionGroup, List<Integer>> group : recipientsByGroup.entrySet()) {
+            PayloadFormat format = group.getKey().format();
+            boolean groupCompressed = group.getKey().compressed();
+            SecretKey dataKey = encryptDecryptMessageUtil.generateDataKey();
+            // El buffer comprimido es del hilo actual: cada grupo cifra su propia vista, sin mover la posición del original
+            String encryptedPayload = groupCompressed
+                    ? encryptDecryptMessageUtil.encryptWithDataKey(compressed.duplicate(), dataKey, format, sharedStages)
+                    : encryptDecryptMessageUtil.encryptWithDataKey(payload, dataKey, format, sharedStages);
+            for (int i : group.getValue()) {
+                PeerRoute route = routes[i];
+                StageRecorder stages = recipientStages[i];
+                prepared.set(i, CompletableFuture.supplyAsync(() -> {
+                    try {
+                        Map<String, String> recipientMetadata = new HashMap<>(sharedMetadata);
+                        recipientMetadata.put(PayloadFormat.METADATA_KEY, format.version());
+                        if (groupCompressed) {
+                            recipientMetadata.put(PayloadCodec.METADATA_KEY, payloadCompressor.codec().encoding());
+                        }
+                        recipientMetadata.put(KeyRegistry.KEY_ID, route.keyId());
+                        String wrappedKey = stages.time(PipelineStage.RSA_WRAP, () -> encryptDecryptMessageUtil.wrapDataKey(dataKey, route.publicKey()));
+                        // Claim-check por destinatario: cada consumidor borra su blob al procesarlo
+                        return toMessage(recipientMetadata, new EncryptDecryptMessageUtil.EncryptedMessageBundle(encryptedPayload, wrappedKey), uniqueFlightId);
+                    } catch (GeneralSecurityException e) {
+                        throw new CompletionException(e);
+                    }
+                }, producerCryptoExecutor));
+            }
+        }
+
+        // Un SendMessageBatch por cola (y formato de envelope): peers que comparten cola comparten llamada
+        Map<Destination, List<Integer>> recipientsByDestination = new LinkedHashMap<>();
+        MessageDto[] messages = new MessageDto[recipients.size()];
+        for (int i = 0; i < recipients.size(); i++) {
+            if (prepared.get(i) == null) {
+                continue;
+            }
+            try {
+                messages[i] = prepared.get(i).join();
+                String queue = queueFor(routes[i]);
+                recipientsByDestination.computeIfAbsent(new Destination(queue, routes[i].envelopeFormat()), destination -> new ArrayList<>()).add(i);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("Fan-out message for {} could not be encrypted: {}", recipients.get(i), cause.getMessage());
+                results[i] = BatchEntryResult.failed(i, cause.getMessage());
+            }
+        }
+        for (Map.Entry<Destination, List<Integer>> destination : recipientsByDestination.entrySet()) {
+            List<Integer> indexes = destination.getValue();
+            List<MessageDto> batch = indexes.stream().map(index -> messages[index]).toList();
+            List<BatchEntryResult> sent = sharedStages.time(PipelineStage.SQS_SEND,
+                    () -> sqsBatchSender.sendBatch(destination.getKey().queue(), batch, destination.getKey().envelopeFormat()));
+            for (int j = 0; j < sent.size(); j++) {
+                int index = indexes.get(j);
+                results[index] = sent.get(j).withIndex(index);
+            }
+        }
+
+        Map<String, BatchEntryResult> resultsByTarget = new LinkedHashMap<>();
+        for (int i = 0; i < recipients.size(); i++) {
+            resultsByTarget.put(recipients.get(i), results[i]);
+            recipientStages[i].count(results[i].success() ? "sent" : "failed");
+        }
+        log.info("Fan-out of one message to {} recipients processed", recipients.size());
+        return resultsByTarget;
+    }
+
+    private record Destination(String queue, EnvelopeFormat envelopeFormat) {}
+
+    // Destinatarios que comparten el mismo ciphertext: mismo formato y mismo payload (comprimido o no)
+    private record EncryptionGroup(PayloadFormat format, boolean compressed) {}
+
+    private MessageDto prepareMessage(PeerRoute route, String payload, Map<String, String> metadata, StageRecorder stages) throws GeneralSecurityException {
+        EncryptDecryptMessageUtil.EncryptedMessageBundle encryptedMessageBundle = encrypt(route, payload, metadata, stages);
+        metadata.put(KeyRegistry.KEY_ID, route.keyId());
+        return toMessage(metadata, encryptedMessageBundle, placeholderFlightId());
+    }
+
+    private static UniqueFlightId placeholderFlightId() {
+        return new UniqueFlightId("QR", "1234", LocalDate.now(), "LAX", "GRU", Optional.empty(), Optional.empty());
+    }
+
+    /**
+     * Si el payload cifrado no entra en SQS viaja por claim-check: el MessageDto solo lleva la referencia en la metadata.
+     */
+    private MessageDto toMessage(Map<String, String> metadata, EncryptDecryptMessageUtil.EncryptedMessageBundle encryptedMessageBundle, UniqueFlightId uniqueFlightId) {
+        // El consumidor etiqueta sus métricas por emisor
+        metadata.put(PipelineMetrics.SENDER_ID, pipelineMetrics.senderId());
+        // Un id por mensaje (el pipeline asíncrono ya trae el suyo): el consumidor deduplica por este id, no por correlation_id
+        metadata.putIfAbsent(MessageDto.MESSAGE_ID, UUID.randomUUID().toString());
+        String encryptedPayload = encryptedMessageBundle.encryptedPayload();
+        if (claimCheck.shouldOffload(encryptedPayload)) {
+            claimCheck.offload(encryptedPayload, metadata);
+            encryptedPayload = null;
+        } else {
+            // Una referencia heredada de la petición haría que el consumidor busque un blob que no existe
+            metadata.remove(ClaimCheck.REFERENCE_KEY);
+            metadata.remove(ClaimCheck.CHECKSUM_KEY);
+        }
+        return new MessageDto(
                 metadata,
-                encryptedMessageBundle.encryptedPayload(),
+                encryptedPayload,
                 encryptedMessageBundle.encryptedKey(),
                 uniqueFlightId.toKeyId()
         );
-        log.info("Preparing the SQS shipment. Metadata: {}", metadata.toString());
-        log.info("Preparing the SQS shipment. EncryptedPayload: {}", message.encryptedPayload());
-        log.info("Preparing the SQS shipment. EncryptedKey: {}", message.encryptedKey());
-        log.info("Preparing the SQS shipment. UniqueFlightId: {}", message.uniqueFlightId());
-        sqsProducerService.send("cola-aws-sqs-1", message);
+    }
+
+    /**
+     * Cifrado híbrido hacia el peer. En modo session key la data key se reutiliza y su id viaja en la metadata
+     * para que el consumidor no repita el RSA decrypt en cada mensaje. El formato del payload también viaja
+     * en la metadata para que consumidores legacy (AES/ECB) y nuevos (AES/GCM) convivan; cada peer declara el suyo.
+     * Si el payload se comprime antes de cifrar, el codec viaja en 'content_encoding'.
+     * Con session key AES, Base64 y el RSA ocasional de la rotación se miden juntos como 'aes_encrypt'.
+     */
+    private EncryptDecryptMessageUtil.EncryptedMessageBundle encrypt(PeerRoute route, String payload, Map<String, String> metadata, StageRecorder stages) throws GeneralSecurityException {
+        PayloadFormat payloadFormat = route.payloadFormat();
+        metadata.put(PayloadFormat.METADATA_KEY, payloadFormat.version());
+        // Solo se comprime para peers que declararon el codec (config.messaging.content-encoding)
+        ByteBuffer compressed = route.accepts(payloadCompressor.codec())
+                ? stages.time(PipelineStage.COMPRESS, () -> payloadCompressor.compress(payload))
+                : null;
+        if (compressed != null) {
+            metadata.put(PayloadCodec.METADATA_KEY, payloadCompressor.codec().encoding());
+        } else {
+            // Un 'content_encoding' heredado de la petición haría que el consumidor intente descomprimir texto plano
+            metadata.remove(PayloadCodec.METADATA_KEY);
+        }
+        if (!sessionKeyManager.isEnabledFor(payloadFormat)) {
+            return compressed != null
+                    ? encryptDecryptMessageUtil.encryptHybrid(compressed, route.publicKey(), payloadFormat, stages)
+                    : encryptDecryptMessageUtil.encryptHybrid(payload, route.publicKey(), payloadFormat, stages);
+        }
+        EncryptDecryptMessageUtil.EncryptedMessageBundle encryptedMessageBundle = stages.time(PipelineStage.AES_ENCRYPT, () -> compressed != null
+                ? sessionKeyManager.encrypt(route.peerId(), compressed, route.publicKey(), payloadFormat)
+                : sessionKeyManager.encrypt(route.peerId(), payload, route.publicKey(), payloadFormat));
+        metadata.put(SessionKeyManager.SESSION_KEY_ID, encryptedMessageBundle.sessionKeyId());
+        return encryptedMessageBundle;
     }
 }
\ No newline at end of file
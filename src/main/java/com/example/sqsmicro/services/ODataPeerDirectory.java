@@ -0,0 +1,88 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.ParticipantsConfigResponse;
+import com.example.sqsmicro.records.PeerDirectoryListing;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Directorio sobre el servicio OData de participantes.
+ * La carga completa es un único GET '/Participants' (todas las aerolíneas y aeropuertos); con If-None-Match
+ * un directorio sin cambios cuesta un 304 sin cuerpo.
+ * Cada participante se indexa por IataCode y se normaliza a las claves del Config Server.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Service
+@ConditionalOnProperty(name = "app.config.directory", havingValue = "odata")
+public class ODataPeerDirectory implements PeerDirectory {
+
+	private final RestClient restClient;
+
+	public ODataPeerDirectory(@Qualifier("configRestClient2") RestClient restClient) {
+		this.restClient = restClient;
+	}
+
+	@Override
+	public Map<String, Object> fetch(String serviceName) {
+		var response = restClient.get()
+				// RestClient usa uri variables: el placeholder es {serviceName}, no '{serviceName}'
+				.uri("/Participants?%24filter=IataCode%20eq%20'{serviceName}'", serviceName)
+				.retrieve()
+				.body(ParticipantsConfigResponse.class);
+
+		if (response == null || response.participants() == null) {
+			throw new IllegalStateException("Empty response from participants service");
+		}
+		return response.participants().stream()
+				.filter(p -> serviceName.equals(p.iataCode()))
+				.findFirst()
+				.map(ODataPeerDirectory::toProperties)
+				.orElseThrow(() -> new IllegalStateException("Participant " + serviceName + " not found"));
+	}
+
+	@Override
+	public PeerDirectoryListing fetchAll(Collection<String> serviceNames, String etag) {
+		var request = restClient.get().uri("/Participants");
+		if (etag != null) {
+			request.header(HttpHeaders.IF_NONE_MATCH, etag);
+		}
+		ResponseEntity<ParticipantsConfigResponse> response = request.retrieve().toEntity(ParticipantsConfigResponse.class);
+		if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+			return null;
+		}
+		if (response.getBody() == null || response.getBody().participants() == null) {
+			throw new IllegalStateException("Empty response from participants service");
+		}
+		Map<String, Map<String, Object>> peers = new HashMap<>();
+		for (var participant : response.getBody().participants()) {
+			if (participant.iataCode() != null) {
+				peers.put(participant.iataCode(), toProperties(participant));
+			}
+		}
+		return new PeerDirectoryListing(peers, response.getHeaders().getETag());
+	}
+
+	private static Map<String, Object> toProperties(ParticipantsConfigResponse.Participant participant) {
+		var properties = new HashMap<String, Object>();
+		if (participant.publicKey() != null) {
+			properties.put(PUBLIC_KEY_PROPERTY, participant.publicKey());
+		}
+		if (participant.name() != null) {
+			properties.put(TARGET_NAME_PROPERTY, participant.name());
+			// El directorio no publica cola: el participante recibe en la cola con su nombre
+			properties.put(INBOUND_QUEUE_PROPERTY, participant.name());
+		}
+		return properties;
+	}
+}
@@ -0,0 +1,41 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.PeerDirectoryListing;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Origen de la configuración de los peers (Config Server de Spring u OData de participantes).
+ * Cada backend normaliza sus entradas a las mismas claves de propiedades, de modo que la cache, el refresh y
+ * la resolución de {@link com.example.sqsmicro.records.PeerRoute} viven una sola vez en {@link ConfigurationLoaderService}.
+ * Se elige con 'app.config.directory' ('spring-config' por defecto, u 'odata').
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public interface PeerDirectory {
+
+	String PUBLIC_KEY_PROPERTY = "config.security.public-key";
+	String KEY_ID_PROPERTY = "config.security.key-id";
+	String TARGET_NAME_PROPERTY = "config.target-name";
+	String INBOUND_QUEUE_PROPERTY = "config.queues.inbound";
+	String FORMAT_VERSION_PROPERTY = "config.crypto.format-version";
+	String ENVELOPE_PROPERTY = "config.messaging.envelope";
+	String CONTENT_ENCODING_PROPERTY = "config.messaging.content-encoding";
+
+	/**
+	 * Carga un único servicio (primer acceso a un peer que todavía no está en la cache).
+	 * Lanza excepción si el servicio no existe o el origen no responde.
+	 */
+	Map<String, Object> fetch(String serviceName);
+
+	/**
+	 * Carga el directorio completo en una sola petición.
+	 *
+	 * @param serviceNames servicios rastreados (el backend OData los ignora: siempre retorna todos los participantes)
+	 * @param etag         ETag del último listado aplicado, o null
+	 * @return el listado nuevo, o null si el origen respondió 304 (sin cambios desde 'etag')
+	 */
+	PeerDirectoryListing fetchAll(Collection<String> serviceNames, String etag);
+}
@@ -0,0 +1,14 @@
+package com.example.sqsmicro.services;
+
+/**
+ * El pipeline asíncrono alcanzó 'app.producer.async.queue-capacity'. El controller lo traduce a HTTP 429.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class ProducerQueueFullException extends RuntimeException {
+
+	public ProducerQueueFullException(int capacity) {
+		super("Producer queue is full (capacity " + capacity + "). Retry later.");
+	}
+}
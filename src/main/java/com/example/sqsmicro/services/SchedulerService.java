@@ -4,6 +4,7 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.Resource;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -24,6 +25,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 @Component
 @RequiredArgsConstructor
+// En modo generador de carga (app.load-generator.enabled) el cron no corre: lo reemplaza LoadGeneratorService
+@ConditionalOnProperty(name = "app.load-generator.enabled", havingValue = "false", matchIfMissing = true)
 public class SchedulerService {
 	private final MessageProducerService messageProducerService;
 	private List<String> loadedMessages;
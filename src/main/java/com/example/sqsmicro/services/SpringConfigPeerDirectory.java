@@ -0,0 +1,133 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.ConfigServerResponse;
+import com.example.sqsmicro.records.PeerDirectoryListing;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directorio sobre el Config Server de Spring.
+ * La carga completa pide todos los servicios rastreados en una sola petición ('/{a},{b}/default') y reparte
+ * los property sources por servicio según el nombre del fichero (ej: 'airport-c.yml', 'airport-c-docker.yml').
+ * Los sources compartidos ('application.yml') se aplican a todos.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Service
+@ConditionalOnProperty(name = "app.config.directory", havingValue = "spring-config", matchIfMissing = true)
+public class SpringConfigPeerDirectory implements PeerDirectory {
+
+	private final RestClient restClient;
+
+	public SpringConfigPeerDirectory(@Qualifier("configRestClient") RestClient restClient) {
+		this.restClient = restClient;
+	}
+
+	@Override
+	public Map<String, Object> fetch(String serviceName) {
+		var response = restClient.get()
+				.uri("/{name}/default", serviceName)
+				.retrieve()
+				.body(ConfigServerResponse.class);
+
+		if (response == null || response.propertySources() == null) {
+			throw new IllegalStateException("Empty response from config server");
+		}
+		return merge(response.propertySources());
+	}
+
+	@Override
+	public PeerDirectoryListing fetchAll(Collection<String> serviceNames, String etag) {
+		var request = restClient.get().uri("/{names}/default", String.join(",", serviceNames));
+		if (etag != null) {
+			request.header(HttpHeaders.IF_NONE_MATCH, etag);
+		}
+		ResponseEntity<ConfigServerResponse> response = request.retrieve().toEntity(ConfigServerResponse.class);
+		if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+			return null;
+		}
+		if (response.getBody() == null || response.getBody().propertySources() == null) {
+			throw new IllegalStateException("Empty response from config server");
+		}
+		return new PeerDirectoryListing(
+				splitByService(serviceNames, response.getBody().propertySources()), response.getHeaders().getETag());
+	}
+
+	/**
+	 * Lógica de prioridad de Spring (Sources vienen en orden de prioridad descendente):
+	 * se itera en reverso para que las más altas sobrescriban a las bajas.
+	 */
+	private static Map<String, Object> merge(List<ConfigServerResponse.PropertySource> sources) {
+		var reversedSources = new ArrayList<>(sources);
+		Collections.reverse(reversedSources);
+		var properties = new HashMap<String, Object>();
+		for (var source : reversedSources) {
+			properties.putAll(source.source());
+		}
+		return properties;
+	}
+
+	/**
+	 * Reparte una respuesta multi-aplicación por servicio. Un servicio sin sources propios no se incluye
+	 * (mejor conservar su última copia buena que publicar solo la config compartida).
+	 */
+	static Map<String, Map<String, Object>> splitByService(
+			Collection<String> serviceNames, List<ConfigServerResponse.PropertySource> sources) {
+		Map<String, List<ConfigServerResponse.PropertySource>> sourcesByService = new HashMap<>();
+		List<ConfigServerResponse.PropertySource> shared = new ArrayList<>();
+		for (var source : sources) {
+			String owner = ownerOf(source.name(), serviceNames);
+			if (owner == null) {
+				shared.add(source);
+			} else {
+				sourcesByService.computeIfAbsent(owner, name -> new ArrayList<>()).add(source);
+			}
+		}
+		Map<String, Map<String, Object>> peers = new HashMap<>();
+		sourcesByService.forEach((serviceName, own) -> {
+			// Se conserva el orden de prioridad original entre sources propios y compartidos
+			var applicable = new ArrayList<ConfigServerResponse.PropertySource>();
+			for (var source : sources) {
+				if (own.contains(source) || shared.contains(source)) {
+					applicable.add(source);
+				}
+			}
+			peers.put(serviceName, merge(applicable));
+		});
+		return peers;
+	}
+
+	/**
+	 * Servicio al que pertenece un property source ('.../airport-c-docker.yml' => 'airport-c'), o null si es compartido.
+	 * Ante prefijos solapados gana el nombre más largo.
+	 */
+	private static String ownerOf(String sourceName, Collection<String> serviceNames) {
+		if (sourceName == null) {
+			return null;
+		}
+		String file = sourceName.substring(Math.max(sourceName.lastIndexOf('/'), sourceName.lastIndexOf(':')) + 1);
+		int extension = file.lastIndexOf('.');
+		String baseName = extension > 0 ? file.substring(0, extension) : file;
+		String owner = null;
+		for (String serviceName : serviceNames) {
+			boolean matches = baseName.equals(serviceName) || baseName.startsWith(serviceName + "-");
+			if (matches && (owner == null || serviceName.length() > owner.length())) {
+				owner = serviceName;
+			}
+		}
+		return owner;
+	}
+}
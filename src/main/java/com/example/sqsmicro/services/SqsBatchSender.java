@@ -0,0 +1,152 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.BatchEntryResult;
+import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.util.EnvelopeFormat;
+import com.example.sqsmicro.util.MessageEnvelope;
+import io.awspring.cloud.sqs.operations.SendBatchOperationFailedException;
+import io.awspring.cloud.sqs.operations.SendResult;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Envío agrupado con SendMessageBatch: hasta 10 entradas o 256KB por llamada a SQS.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SqsBatchSender {
+
+	// Límites de SendMessageBatch
+	static final int MAX_BATCH_ENTRIES = 10;
+	static final int MAX_BATCH_BYTES = 256 * 1024;
+
+	// Margen por entrada para las llaves del JSON y los message attributes que agrega Spring
+	private static final int PER_MESSAGE_OVERHEAD_BYTES = 512;
+
+	private final SqsTemplate sqsTemplate;
+
+	/**
+	 * Envía los mensajes en el menor número de llamadas posible.
+	 * Retorna un resultado por mensaje, en el mismo orden (index = posición en la lista recibida).
+	 */
+	public List<BatchEntryResult> sendBatch(String queue, List<MessageDto> messages) {
+		return sendBatch(queue, messages, EnvelopeFormat.JSON);
+	}
+
+	/**
+	 * Igual que {@link #sendBatch(String, List)} con el body en el formato negociado con el peer.
+	 */
+	public List<BatchEntryResult> sendBatch(String queue, List<MessageDto> messages, EnvelopeFormat envelopeFormat) {
+		BatchEntryResult[] results = new BatchEntryResult[messages.size()];
+		List<Message<Object>> batch = new ArrayList<>(MAX_BATCH_ENTRIES);
+		Map<UUID, Integer> batchIndexes = new HashMap<>();
+		int batchBytes = 0;
+
+		for (int i = 0; i < messages.size(); i++) {
+			MessageDto messageDto = messages.get(i);
+			Object payload;
+			int size;
+			if (envelopeFormat == EnvelopeFormat.BINARY) {
+				String body = MessageEnvelope.encode(messageDto);
+				payload = body;
+				// Body Base64: chars == bytes, el margen queda para los message attributes
+				size = PER_MESSAGE_OVERHEAD_BYTES + body.length();
+			} else {
+				payload = messageDto;
+				size = estimateSize(messageDto);
+			}
+			if (size > MAX_BATCH_BYTES) {
+				results[i] = BatchEntryResult.failed(i, "Message exceeds the SQS size limit (" + size + " bytes)");
+				continue;
+			}
+			if (batch.size() == MAX_BATCH_ENTRIES || batchBytes + size > MAX_BATCH_BYTES) {
+				flush(queue, batch, batchIndexes, results);
+				batch = new ArrayList<>(MAX_BATCH_ENTRIES);
+				batchIndexes = new HashMap<>();
+				batchBytes = 0;
+			}
+			MessageBuilder<Object> builder = MessageBuilder.withPayload(payload);
+			if (SqsFifoSupport.isFifo(queue)) {
+				// FIFO: el orden dentro de un mismo MessageGroupId se respeta también en SendMessageBatch
+				builder.copyHeaders(SqsFifoSupport.headers(messageDto));
+			}
+			Message<Object> message = builder.build();
+			batch.add(message);
+			batchIndexes.put(message.getHeaders().getId(), i);
+			batchBytes += size;
+		}
+		flush(queue, batch, batchIndexes, results);
+		return Arrays.asList(results);
+	}
+
+	private void flush(String queue, List<Message<Object>> batch, Map<UUID, Integer> batchIndexes, BatchEntryResult[] results) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		SendResult.Batch<Object> batchResult;
+		try {
+			batchResult = sqsTemplate.sendMany(queue, batch);
+		} catch (SendBatchOperationFailedException e) {
+			// Fallo parcial: SQS aceptó algunas entradas y rechazó otras
+			batchResult = e.getSendBatchResult(Object.class);
+		} catch (RuntimeException e) {
+			log.error("SendMessageBatch to {} failed for {} entries", queue, batch.size(), e);
+			batchIndexes.values().forEach(index -> results[index] = BatchEntryResult.failed(index, e.getMessage()));
+			return;
+		}
+
+		for (SendResult<Object> sent : batchResult.successful()) {
+			Integer index = batchIndexes.remove(sent.message().getHeaders().getId());
+			if (index != null) {
+				results[index] = BatchEntryResult.sent(index, String.valueOf(sent.messageId()));
+			}
+		}
+		for (SendResult.Failed<Object> failed : batchResult.failed()) {
+			Integer index = batchIndexes.remove(failed.message().getHeaders().getId());
+			if (index != null) {
+				results[index] = BatchEntryResult.failed(index, failed.errorMessage());
+			}
+		}
+		// Cualquier entrada sin resultado la reportamos como fallida para que el cliente pueda reintentarla
+		batchIndexes.values().forEach(index -> results[index] = BatchEntryResult.failed(index, "No result reported by SQS"));
+		if (log.isDebugEnabled()) {
+			log.debug("SendMessageBatch to {}: {} sent, {} failed", queue, batchResult.successful().size(), batchResult.failed().size());
+		}
+	}
+
+	/**
+	 * Estimación conservadora del tamaño del body JSON de un MessageDto.
+	 */
+	static int estimateSize(MessageDto messageDto) {
+		int size = PER_MESSAGE_OVERHEAD_BYTES
+				+ length(messageDto.encryptedPayload())
+				+ length(messageDto.encryptedKey())
+				+ length(messageDto.uniqueFlightId());
+		if (messageDto.metadata() != null) {
+			for (var entry : messageDto.metadata().entrySet()) {
+				// UTF-8: hasta 3 bytes por char fuera de ASCII, + comillas/separadores
+				size += 3 * (length(entry.getKey()) + length(entry.getValue())) + 6;
+			}
+		}
+		return size;
+	}
+
+	private static int length(String value) {
+		return value != null ? value.length() : 0;
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.util.ClaimCheck;
+import com.example.sqsmicro.util.KeyRegistry;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Atributos de colas FIFO derivados del MessageDto.
+ * <p>
+ * - MessageGroupId = uniqueFlightId ({@code UniqueFlightId.toKeyId()}): SQS entrega en orden los mensajes de un mismo
+ *   vuelo y en paralelo los de vuelos distintos.
+ * - MessageDeduplicationId = SHA-256(uniqueFlightId | message_id | key_id). Un reintento del envío del mismo mensaje
+ *   se descarta dentro de la ventana de 5 minutos de SQS; dos mensajes distintos nunca, aunque compartan vuelo, message_type y correlation_id.
+ *   Sin message_id se usa el payload cifrado (el IV aleatorio lo hace único por cifrado: solo deduplica reintentos del envío).
+ *   Incluye el 'key_id' del destinatario: en un fan-out las copias comparten message_id, y si dos peers comparten cola
+ *   SQS descartaría todas menos la primera.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public final class SqsFifoSupport {
+
+	private static final String FIFO_SUFFIX = ".fifo";
+
+	private SqsFifoSupport() {
+	}
+
+	public static boolean isFifo(String queue) {
+		return queue != null && queue.endsWith(FIFO_SUFFIX);
+	}
+
+	public static String messageGroupId(MessageDto messageDto) {
+		return messageDto.uniqueFlightId();
+	}
+
+	public static String deduplicationId(MessageDto messageDto) {
+		Map<String, String> metadata = messageDto.metadata() != null ? messageDto.metadata() : Map.of();
+		String messageId = metadata.get(MessageDto.MESSAGE_ID);
+		String discriminator = messageId != null
+				? messageId
+				: messageDto.encryptedPayload() != null ? messageDto.encryptedPayload() : metadata.get(ClaimCheck.CHECKSUM_KEY);
+		return sha256Hex(messageDto.uniqueFlightId() + "|" + discriminator + "|" + metadata.getOrDefault(KeyRegistry.KEY_ID, ""));
+	}
+
+	/**
+	 * Headers que Spring Cloud AWS traduce a MessageGroupId/MessageDeduplicationId (también en SendMessageBatch).
+	 */
+	public static Map<String, Object> headers(MessageDto messageDto) {
+		Map<String, Object> headers = new HashMap<>();
+		headers.put(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_GROUP_ID_HEADER, messageGroupId(messageDto));
+		headers.put(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER, deduplicationId(messageDto));
+		return headers;
+	}
+
+	private static String sha256Hex(String value) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package com.example.sqsmicro.util;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * AES-GCM ({@link PayloadFormat#AES_GCM}) sobre ByteBuffers reutilizados por hilo.
+ * Formato del payload: Base64(IV[12] + ciphertext + tag[16]).
+ * <p>
+ * Camino de cifrado: chars -> UTF-8 en un buffer reutilizado -> Cipher.doFinal(ByteBuffer, ByteBuffer) ->
+ * Base64 escrito directo en un buffer de salida reutilizado. La única copia proporcional al payload
+ * que queda es el String final que viaja en el MessageDto.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public final class AesGcmPayloadCipher {
+
+    public static final int IV_LENGTH = 12;
+    public static final int TAG_LENGTH = 16;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    // Por encima de este tamaño no retenemos el buffer en el hilo (payloads excepcionales)
+    private static final int MAX_RETAINED_BUFFER = 4 * 1024 * 1024;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(AesGcmPayloadCipher::newCipher);
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private AesGcmPayloadCipher() {
+    }
+
+    public static String encrypt(CharSequence rawPayload, SecretKey aesKey) throws GeneralSecurityException {
+        Buffers buffers = BUFFERS.get();
+        return encrypt(buffers.encodeUtf8(rawPayload), aesKey, buffers);
+    }
+
+    /**
+     * Cifra los bytes restantes de {@code plaintext} (ej: payload ya comprimido).
+     */
+    public static String encrypt(ByteBuffer plaintext, SecretKey aesKey) throws GeneralSecurityException {
+        return encrypt(plaintext, aesKey, BUFFERS.get());
+    }
+
+    /**
+     * Solo el cifrado: IV + ciphertext + tag en el buffer del hilo actual, válido hasta la siguiente llamada en el mismo hilo.
+     * {@link #encrypt(CharSequence, SecretKey)} = seal + {@link #encodeBase64(ByteBuffer)}; separados para medir cada etapa.
+     */
+    public static ByteBuffer seal(CharSequence rawPayload, SecretKey aesKey) throws GeneralSecurityException {
+        Buffers buffers = BUFFERS.get();
+        return seal(buffers.encodeUtf8(rawPayload), aesKey, buffers);
+    }
+
+    public static ByteBuffer seal(ByteBuffer plaintext, SecretKey aesKey) throws GeneralSecurityException {
+        return seal(plaintext, aesKey, BUFFERS.get());
+    }
+
+    /**
+     * Base64 de los bytes restantes de {@code sealed}, con el buffer de salida del hilo.
+     */
+    public static String encodeBase64(ByteBuffer sealed) {
+        return BUFFERS.get().encodeBase64(sealed);
+    }
+
+    public static String decrypt(String encryptedPayload, SecretKey aesKey) throws GeneralSecurityException {
+        ByteBuffer plaintext = decryptToBuffer(encryptedPayload, aesKey);
+        return new String(plaintext.array(), plaintext.arrayOffset() + plaintext.position(), plaintext.remaining(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Descifra a un buffer del hilo actual. El buffer retornado solo es válido hasta la siguiente llamada en el mismo hilo.
+     */
+    public static ByteBuffer decryptToBuffer(String encryptedPayload, SecretKey aesKey) throws GeneralSecurityException {
+        return decryptToBuffer(BUFFERS.get().decodeBase64(encryptedPayload), aesKey);
+    }
+
+    /**
+     * Igual que {@link #decryptToBuffer(String, SecretKey)} sobre IV + ciphertext + tag ya en binario
+     * (ej: un blob del claim-check mapeado en memoria, sin pasar por Base64). Consume los bytes restantes de {@code sealed}.
+     */
+    public static ByteBuffer decryptToBuffer(ByteBuffer sealed, SecretKey aesKey) throws GeneralSecurityException {
+        if (sealed.remaining() < IV_LENGTH + TAG_LENGTH) {
+            throw new AEADBadTagException("Encrypted payload too short for AES-GCM");
+        }
+        // El IV se copia: el buffer puede ser directo (mapeado) y no exponer un array
+        byte[] iv = new byte[IV_LENGTH];
+        sealed.get(iv);
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, aesKey, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+        ByteBuffer plaintext = BUFFERS.get().plain(cipher.getOutputSize(sealed.remaining()));
+        cipher.doFinal(sealed, plaintext);
+        plaintext.flip();
+        return plaintext;
+    }
+
+    private static String encrypt(ByteBuffer plaintext, SecretKey aesKey, Buffers buffers) throws GeneralSecurityException {
+        return buffers.encodeBase64(seal(plaintext, aesKey, buffers));
+    }
+
+    private static ByteBuffer seal(ByteBuffer plaintext, SecretKey aesKey, Buffers buffers) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, aesKey, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+        ByteBuffer sealed = buffers.sealed(IV_LENGTH + cipher.getOutputSize(plaintext.remaining()));
+        sealed.put(iv);
+        cipher.doFinal(plaintext, sealed);
+        sealed.flip();
+        return sealed;
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cipher not available: " + TRANSFORMATION, e);
+        }
+    }
+
+    /**
+     * Buffers de trabajo de un hilo: texto plano, IV+ciphertext y salida Base64.
+     */
+    private static final class Buffers {
+
+        private final CharsetEncoder utf8Encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final Base64Sink base64Sink = new Base64Sink();
+        private ByteBuffer plain = ByteBuffer.allocate(8 * 1024);
+        private ByteBuffer sealed = ByteBuffer.allocate(8 * 1024);
+
+        ByteBuffer encodeUtf8(CharSequence text) {
+            ByteBuffer target = plain((int) Math.ceil(text.length() * (double) utf8Encoder.maxBytesPerChar()));
+            utf8Encoder.reset();
+            utf8Encoder.encode(CharBuffer.wrap(text), target, true);
+            utf8Encoder.flush(target);
+            target.flip();
+            return target;
+        }
+
+        ByteBuffer decodeBase64(String base64) {
+            ByteBuffer target = sealed(base64.length() / 4 * 3 + 3);
+            try (InputStream decoded = Base64.getDecoder().wrap(new CharSequenceInputStream(base64))) {
+                int read = decoded.readNBytes(target.array(), target.arrayOffset(), target.capacity());
+                target.limit(read);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid Base64 payload", e);
+            }
+            return target;
+        }
+
+        String encodeBase64(ByteBuffer bytes) {
+            base64Sink.reset();
+            try (OutputStream encoder = Base64.getEncoder().wrap(base64Sink)) {
+                encoder.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            String encoded = base64Sink.toLatin1String();
+            base64Sink.trim();
+            return encoded;
+        }
+
+        ByteBuffer plain(int capacity) {
+            if (capacity > MAX_RETAINED_BUFFER) {
+                return ByteBuffer.allocate(capacity);
+            }
+            if (plain.capacity() < capacity) {
+                plain = ByteBuffer.allocate(capacity);
+            }
+            return plain.clear();
+        }
+
+        ByteBuffer sealed(int capacity) {
+            if (capacity > MAX_RETAINED_BUFFER) {
+                return ByteBuffer.allocate(capacity);
+            }
+            if (sealed.capacity() < capacity) {
+                sealed = ByteBuffer.allocate(capacity);
+            }
+            return sealed.clear();
+        }
+    }
+
+    /**
+     * Salida Base64 reutilizable: close() no libera nada porque el wrapper de Base64 lo invoca al terminar.
+     */
+    private static final class Base64Sink extends ByteArrayOutputStream {
+
+        Base64Sink() {
+            super(8 * 1024);
+        }
+
+        String toLatin1String() {
+            return new String(buf, 0, count, StandardCharsets.ISO_8859_1);
+        }
+
+        void trim() {
+            if (buf.length > MAX_RETAINED_BUFFER) {
+                buf = new byte[8 * 1024];
+            }
+        }
+
+        @Override
+        public void close() {
+            // no-op: el buffer se reutiliza en el siguiente mensaje
+        }
+    }
+}
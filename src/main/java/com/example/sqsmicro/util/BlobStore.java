@@ -0,0 +1,31 @@
+package com.example.sqsmicro.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Almacén de payloads del claim-check: los mensajes que no entran en SQS se guardan aquí ya cifrados
+ * y la cola solo transporta la referencia (ver {@link ClaimCheck}).
+ * La implementación por defecto es {@link FileSystemBlobStore} (local y tests); para compartir los blobs entre
+ * servicios basta con registrar otro bean BlobStore (ej: S3) y el default se desactiva.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public interface BlobStore {
+
+    /**
+     * Guarda los bytes restantes de {@code content}. Retorna una referencia opaca para {@link #get(String)}.
+     */
+    String put(ByteBuffer content) throws IOException;
+
+    /**
+     * Retorna el contenido en un buffer de solo lectura (puede estar mapeado desde disco, sin copiarlo al heap).
+     */
+    ByteBuffer get(String reference) throws IOException;
+
+    /**
+     * Borra el blob. No falla si ya no existe.
+     */
+    void delete(String reference) throws IOException;
+}
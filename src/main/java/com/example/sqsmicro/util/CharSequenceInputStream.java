@@ -0,0 +1,43 @@
+package com.example.sqsmicro.util;
+
+import java.io.InputStream;
+
+/**
+ * InputStream sobre un texto ASCII (ej: Base64) sin copiarlo a un byte[] intermedio.
+ * Cada char se entrega como un byte (se asume que todos son &lt; 0x80).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class CharSequenceInputStream extends InputStream {
+
+    private final CharSequence source;
+    private int position;
+
+    public CharSequenceInputStream(CharSequence source) {
+        this.source = source;
+    }
+
+    @Override
+    public int read() {
+        return position < source.length() ? source.charAt(position++) & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        int available = source.length() - position;
+        if (available <= 0) {
+            return length == 0 ? 0 : -1;
+        }
+        int count = Math.min(length, available);
+        for (int i = 0; i < count; i++) {
+            buffer[offset + i] = (byte) source.charAt(position++);
+        }
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return source.length() - position;
+    }
+}
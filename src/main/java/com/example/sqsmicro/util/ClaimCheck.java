@@ -0,0 +1,112 @@
+package com.example.sqsmicro.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Claim-check de payloads grandes: si el payload cifrado supera 'threshold' (el body de SQS tiene un límite de 256KB)
+ * se guarda en el {@link BlobStore}, ya cifrado y en binario (sin el +33% de Base64), y el MessageDto solo lleva
+ * en la metadata la referencia ('claim_check') y el SHA-256 del blob ('claim_check_sha256').
+ * El consumidor lee el blob sin copiarlo al heap, verifica el checksum antes de descifrar y lo borra al procesarlo.
+ * <p>
+ * Desactivado por defecto: el productor solo debe activarlo con un BlobStore compartido (ej: S3). Con el
+ * {@link FileSystemBlobStore} los blobs quedan en el disco de este host y los peers no los pueden leer.
+ * Leer referencias recibidas ('fetch') funciona siempre, esté activado o no.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ClaimCheck {
+
+    public static final String REFERENCE_KEY = "claim_check";
+    public static final String CHECKSUM_KEY = "claim_check_sha256";
+
+    private final BlobStore blobStore;
+    private final boolean enabled;
+    private final int threshold;
+
+    public ClaimCheck(
+            BlobStore blobStore,
+            @Value("${app.claim-check.enabled:false}") boolean enabled,
+            @Value("${app.claim-check.threshold:196608}") int threshold) {
+        this.blobStore = blobStore;
+        this.enabled = enabled;
+        this.threshold = threshold;
+        if (enabled && blobStore instanceof FileSystemBlobStore) {
+            log.warn("Claim-check is enabled with a local FileSystemBlobStore: peers on other hosts cannot read the blobs");
+        }
+    }
+
+    /**
+     * Largo del payload en Base64 (chars == bytes) contra el umbral. El margen hasta 256KB queda para la metadata y el JSON.
+     */
+    public boolean shouldOffload(String encryptedPayload) {
+        return enabled && encryptedPayload != null && encryptedPayload.length() > threshold;
+    }
+
+    /**
+     * Guarda el payload cifrado en el BlobStore y anota la referencia y el checksum en la metadata.
+     */
+    public void offload(String encryptedPayload, Map<String, String> metadata) {
+        ByteBuffer sealed = ByteBuffer.wrap(Base64.getDecoder().decode(encryptedPayload));
+        String checksum = sha256(sealed.duplicate());
+        try {
+            String reference = blobStore.put(sealed);
+            metadata.put(REFERENCE_KEY, reference);
+            metadata.put(CHECKSUM_KEY, checksum);
+            log.debug("Payload of {} bytes moved to blob {}", sealed.capacity(), reference);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store claim-check payload", e);
+        }
+    }
+
+    public static boolean isClaimCheck(Map<String, String> metadata) {
+        return metadata != null && metadata.get(REFERENCE_KEY) != null;
+    }
+
+    /**
+     * Payload cifrado del blob referenciado en la metadata, en binario. Falla si el checksum no coincide.
+     */
+    public ByteBuffer fetch(Map<String, String> metadata) throws IOException {
+        String reference = metadata.get(REFERENCE_KEY);
+        ByteBuffer sealed = blobStore.get(reference);
+        String expected = metadata.get(CHECKSUM_KEY);
+        if (expected == null || !MessageDigest.isEqual(expected.getBytes(), sha256(sealed.duplicate()).getBytes())) {
+            throw new IOException("Checksum mismatch for claim-check blob " + reference);
+        }
+        return sealed;
+    }
+
+    /**
+     * Mensaje procesado: el blob ya no hace falta. Un fallo solo se loguea (el mensaje ya se procesó bien).
+     */
+    public void release(Map<String, String> metadata) {
+        String reference = metadata.get(REFERENCE_KEY);
+        try {
+            blobStore.delete(reference);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not delete claim-check blob {}: {}", reference, e.getMessage());
+        }
+    }
+
+    private static String sha256(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content);
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
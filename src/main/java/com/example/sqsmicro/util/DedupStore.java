@@ -0,0 +1,30 @@
+package com.example.sqsmicro.util;
+
+/**
+ * Registro de mensajes ya procesados por el consumidor (SQS es at-least-once).
+ * La implementación por defecto es {@link InMemoryDedupStore}; para compartir el estado entre instancias basta con
+ * registrar otro bean DedupStore (ej: Redis o DynamoDB con TTL) y el default se desactiva.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public interface DedupStore {
+
+    enum Claim {
+        CLAIMED,     // Primera vez: el llamador debe procesar y luego invocar complete() o release()
+        IN_PROGRESS, // Otra copia se está procesando ahora mismo
+        DONE         // Ya procesado: es un duplicado
+    }
+
+    Claim tryClaim(String key);
+
+    /**
+     * Procesamiento exitoso: las siguientes copias con la misma clave se descartan.
+     */
+    void complete(String key);
+
+    /**
+     * Procesamiento fallido: libera la clave para que la re-entrega se procese.
+     */
+    void release(String key);
+}
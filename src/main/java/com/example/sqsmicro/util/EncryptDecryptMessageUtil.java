@@ -5,49 +5,114 @@ import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.openssl.PEMKeyPair;
 import org.bouncycastle.openssl.PEMParser;
 import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.KeyGenerator;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
+import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.interfaces.RSAPrivateCrtKey;
 import java.security.spec.InvalidKeySpecException;
+import java.security.spec.RSAPublicKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
 import java.util.Base64;
 
 /**
+ * Cifrado híbrido (AES + RSA). Es un singleton compartido por todos los hilos productores/consumidores:
+ * las operaciones por llamada reciben la clave del destinatario como argumento y usan instancias
+ * de {@link Cipher}/{@link KeyGenerator} propias de cada hilo, sin estado mutable compartido.
+ *
  * @author ian.paris
  * @since 2025-12-15
  */
 @Component
 public class EncryptDecryptMessageUtil {
 
-    private PrivateKey privateKey;
-    private PublicKey publicKey;
+    private static final String RSA_TRANSFORMATION = "RSA/ECB/PKCS1Padding";
+    private static final String AES_TRANSFORMATION = "AES"; // O "AES/ECB/PKCS5Padding". Solo PayloadFormat.AES_ECB (legacy)
 
+    // Cipher y KeyGenerator no son thread-safe: una instancia por hilo, reutilizada entre mensajes
+    private static final ThreadLocal<Cipher> RSA_CIPHER = ThreadLocal.withInitial(() -> newCipher(RSA_TRANSFORMATION));
+    private static final ThreadLocal<Cipher> AES_CIPHER = ThreadLocal.withInitial(() -> newCipher(AES_TRANSFORMATION));
+    private static final ThreadLocal<KeyGenerator> AES_KEY_GENERATOR = ThreadLocal.withInitial(EncryptDecryptMessageUtil::newAesKeyGenerator);
+
+    // Claves privadas propias por key id: la vigente y, durante una rotación, la anterior
+    private final KeyRegistry ownKeys = new KeyRegistry();
+    private final String ownKeyId;
+
+    // Solo para el API legacy basado en estado (loadPublicKey + encryptHybrid(String))
+    private volatile PublicKey publicKey;
+
+    public EncryptDecryptMessageUtil(Resource resourcePrivateKey) throws Exception {
+        this(resourcePrivateKey, null, null);
+    }
+
+    /**
+     * @param previousPrivateKey    clave anterior a una rotación (opcional): se sigue aceptando hasta 'previousKeyValidUntil'
+     *                              para los mensajes que los productores cifraron antes de ver la clave nueva en el directorio
+     */
+    @Autowired
     public EncryptDecryptMessageUtil(
-            @Value("classpath:private_key_b.pem") Resource resourcePrivateKey) throws Exception{
+            @Value("classpath:private_key_b.pem") Resource resourcePrivateKey,
+            @Value("${app.crypto.previous-private-key:#{null}}") Resource previousPrivateKey,
+            @Value("${app.crypto.previous-key-valid-until:#{null}}") Instant previousKeyValidUntil) throws Exception{
         if (!resourcePrivateKey.exists()) {
             throw new RuntimeException("FATAL ERROR: private KEY not found in src/main/resource");
         }
-        loadPrivateKey(resourcePrivateKey);
+        if (previousPrivateKey != null) {
+            KeyPair previous = loadKeyPair(previousPrivateKey);
+            ownKeys.register(KeyRegistry.keyId(previous.getPublic()), previous.getPrivate(),
+                    Instant.EPOCH, previousKeyValidUntil != null ? previousKeyValidUntil : Instant.MAX);
+        }
+        KeyPair current = loadKeyPair(resourcePrivateKey);
+        this.ownKeyId = KeyRegistry.keyId(current.getPublic());
+        ownKeys.register(ownKeyId, current.getPrivate(), Instant.now(), Instant.MAX);
+    }
+
+    /**
+     * Key id de nuestra clave vigente: es el que los productores envían en 'key_id' tras leer nuestra clave pública del directorio.
+     */
+    public String getOwnKeyId() {
+        return ownKeyId;
     }
 
+    /**
+     * @deprecated guarda la clave en el singleton y no es seguro con envíos concurrentes a peers distintos.
+     * Usar {@link #parsePublicKey(String)} (o {@link PublicKeyCache}) y {@link #encryptHybrid(String, PublicKey)}.
+     */
+    @Deprecated
     public void loadPublicKey(String publicKeyContent) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+        this.publicKey = parsePublicKey(publicKeyContent);
+    }
+
+    /**
+     * Convierte el contenido de la clave (PEM o Raw Base64) en un {@link PublicKey} sin tocar el estado del util.
+     * Es la operación cara que {@link PublicKeyCache} evita repetir en cada envío.
+     */
+    public static PublicKey parsePublicKey(String publicKeyContent) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
         // 1. Limpieza preventiva: A veces el Config Server mete saltos de linea o espacios
         String cleanedKey = publicKeyContent
                 .replace("\n", "")
@@ -57,18 +122,17 @@ public class EncryptDecryptMessageUtil {
         // 2. DETECCIÓN: ¿Es formato PEM (con cabeceras) o Raw Base64?
         if (cleanedKey.startsWith("-----BEGIN")) {
             // Es PEM, usamos tu lógica de Bouncy Castle pero mejorada
-            loadPublicKeyFromPem(publicKeyContent);
-        } else {
-            // 3. Es Raw Base64 (lo que tienes en tu YAML) -> Usamos Java Nativo
-            byte[] keyBytes = Base64.getDecoder().decode(cleanedKey);
-            X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
-            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-            this.publicKey = keyFactory.generatePublic(spec);
+            return parsePublicKeyFromPem(publicKeyContent);
         }
+        // 3. Es Raw Base64 (lo que tienes en tu YAML) -> Usamos Java Nativo
+        byte[] keyBytes = Base64.getDecoder().decode(cleanedKey);
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        return keyFactory.generatePublic(spec);
     }
 
     // Extraemos tu lógica anterior a un método privado para mantener el código limpio
-    private void loadPublicKeyFromPem(String pemContent) throws IOException {
+    private static PublicKey parsePublicKeyFromPem(String pemContent) throws IOException {
         try (Reader reader = new StringReader(pemContent);
              PEMParser pemParser = new PEMParser(reader)) {
 
@@ -77,10 +141,10 @@ public class EncryptDecryptMessageUtil {
 
             if (object instanceof SubjectPublicKeyInfo) {
                 // PKCS#8 (El estándar moderno)
-                this.publicKey = converter.getPublicKey((SubjectPublicKeyInfo) object);
+                return converter.getPublicKey((SubjectPublicKeyInfo) object);
             } else if (object instanceof PEMKeyPair) {
                 // Si por error pasaron un par de claves
-                this.publicKey = converter.getKeyPair((PEMKeyPair) object).getPublic();
+                return converter.getKeyPair((PEMKeyPair) object).getPublic();
             } else if (object instanceof org.bouncycastle.asn1.pkcs.RSAPublicKey) {
                 // CASO FALTANTE: PKCS#1 (-----BEGIN RSA PUBLIC KEY-----)
                 // Bouncy Castle a veces devuelve esto directamente
@@ -95,64 +159,268 @@ public class EncryptDecryptMessageUtil {
         }
     }
 
-    private void loadPrivateKey(Resource resource) throws Exception {
+    /**
+     * Lee la clave privada (PKCS#1 o PKCS#8) y su pública, necesaria para calcular el key id.
+     */
+    private static KeyPair loadKeyPair(Resource resource) throws Exception {
         try (Reader reader = new InputStreamReader(resource.getInputStream());
              PEMParser pemParser = new PEMParser(reader)) {
             Object object = pemParser.readObject();
             JcaPEMKeyConverter converter = new JcaPEMKeyConverter();
             if (object instanceof PEMKeyPair) {
-                this.privateKey = converter.getKeyPair((PEMKeyPair) object).getPrivate();
+                return converter.getKeyPair((PEMKeyPair) object);
             } else if (object instanceof PrivateKeyInfo) {
-                this.privateKey = converter.getPrivateKey((PrivateKeyInfo) object);
+                PrivateKey privateKey = converter.getPrivateKey((PrivateKeyInfo) object);
+                if (!(privateKey instanceof RSAPrivateCrtKey rsaKey)) {
+                    throw new RuntimeException("The private key does not carry its public exponent, the key id cannot be derived");
+                }
+                PublicKey publicKey = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(rsaKey.getModulus(), rsaKey.getPublicExponent()));
+                return new KeyPair(publicKey, privateKey);
             } else {
                 throw new RuntimeException("The private_key_b.pem file does not have a supported format (expected PKCS#1 or PKCS#8)");
             }
         }
     }
 
+    /**
+     * @deprecated depende de la clave cargada con {@link #loadPublicKey(String)}. Usar {@link #encryptPayload(String, PublicKey)}.
+     */
+    @Deprecated
     public String encryptPayload(String rawPayload) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException, IllegalBlockSizeException, BadPaddingException {
-        Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
-        cipher.init(Cipher.ENCRYPT_MODE, publicKey);
+        return encryptPayload(rawPayload, publicKey);
+    }
+
+    public String encryptPayload(String rawPayload, PublicKey recipientKey) throws InvalidKeyException, IllegalBlockSizeException, BadPaddingException {
+        Cipher cipher = RSA_CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, recipientKey);
         byte[] encryptedBytes = cipher.doFinal(rawPayload.getBytes());
         return Base64.getEncoder().encodeToString(encryptedBytes);
     }
 
+    /**
+     * @deprecated depende de la clave cargada con {@link #loadPublicKey(String)}. Usar {@link #getPublicKeyAsString(PublicKey)}.
+     */
+    @Deprecated
     public String getPublicKeyAsString()  {
-        return Base64.getEncoder().encodeToString(this.publicKey.getEncoded());
+        return getPublicKeyAsString(this.publicKey);
     }
 
-    // Retorna un objeto o un DTO simple con las dos partes
+    public String getPublicKeyAsString(PublicKey publicKey) {
+        return Base64.getEncoder().encodeToString(publicKey.getEncoded());
+    }
+
+    /**
+     * @deprecated depende de la clave cargada con {@link #loadPublicKey(String)}. Usar {@link #encryptHybrid(String, PublicKey)}.
+     */
+    @Deprecated
     public EncryptedMessageBundle encryptHybrid(String rawPayload) throws Exception {
+        return encryptHybrid(rawPayload, publicKey);
+    }
+
+    // Retorna un objeto o un DTO simple con las dos partes
+    public EncryptedMessageBundle encryptHybrid(String rawPayload, PublicKey recipientKey) throws GeneralSecurityException {
+        return encryptHybrid(rawPayload, recipientKey, PayloadFormat.AES_ECB);
+    }
 
-        KeyGenerator keyGen = KeyGenerator.getInstance("AES");
-        keyGen.init(256); // AES-256
-        SecretKey aesKey = keyGen.generateKey();
+    public EncryptedMessageBundle encryptHybrid(String rawPayload, PublicKey recipientKey, PayloadFormat format) throws GeneralSecurityException {
+        return encryptHybrid(rawPayload, recipientKey, format, StageRecorder.NONE);
+    }
 
-        Cipher aesCipher = Cipher.getInstance("AES"); // O "AES/ECB/PKCS5Padding"
-        aesCipher.init(Cipher.ENCRYPT_MODE, aesKey);
-        byte[] encryptedXmlBytes = aesCipher.doFinal(rawPayload.getBytes());
-        String encryptedPayloadBase64 = Base64.getEncoder().encodeToString(encryptedXmlBytes);
+    /**
+     * Igual que {@link #encryptHybrid(String, PublicKey, PayloadFormat)}, registrando AES, Base64 y RSA por separado en {@code stages}.
+     */
+    public EncryptedMessageBundle encryptHybrid(String rawPayload, PublicKey recipientKey, PayloadFormat format, StageRecorder stages) throws GeneralSecurityException {
+        SecretKey aesKey = generateDataKey(); // AES-256
+        String encryptedPayloadBase64 = encryptWithDataKey(rawPayload, aesKey, format, stages);
+        String encryptedKeyBase64 = stages.time(PipelineStage.RSA_WRAP, () -> wrapDataKey(aesKey, recipientKey));
+        return new EncryptedMessageBundle(encryptedPayloadBase64, encryptedKeyBase64);
+    }
 
-        Cipher rsaCipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
-        rsaCipher.init(Cipher.ENCRYPT_MODE, publicKey);
-        byte[] encryptedKeyBytes = rsaCipher.doFinal(aesKey.getEncoded());
-        String encryptedKeyBase64 = Base64.getEncoder().encodeToString(encryptedKeyBytes);
+    /**
+     * Igual que {@link #encryptHybrid(String, PublicKey, PayloadFormat)} pero sobre bytes ya codificados (ej: payload comprimido).
+     */
+    public EncryptedMessageBundle encryptHybrid(ByteBuffer plaintext, PublicKey recipientKey, PayloadFormat format) throws GeneralSecurityException {
+        return encryptHybrid(plaintext, recipientKey, format, StageRecorder.NONE);
+    }
 
+    public EncryptedMessageBundle encryptHybrid(ByteBuffer plaintext, PublicKey recipientKey, PayloadFormat format, StageRecorder stages) throws GeneralSecurityException {
+        SecretKey aesKey = generateDataKey(); // AES-256
+        String encryptedPayloadBase64 = encryptWithDataKey(plaintext, aesKey, format, stages);
+        String encryptedKeyBase64 = stages.time(PipelineStage.RSA_WRAP, () -> wrapDataKey(aesKey, recipientKey));
         return new EncryptedMessageBundle(encryptedPayloadBase64, encryptedKeyBase64);
     }
 
     public String decryptHybrid(String encryptedPayload, String encryptedAesKeyBase64) throws Exception {
-        Cipher rsaCipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
-        rsaCipher.init(Cipher.DECRYPT_MODE, privateKey);
+        return decryptHybrid(encryptedPayload, encryptedAesKeyBase64, PayloadFormat.AES_ECB);
+    }
+
+    public String decryptHybrid(String encryptedPayload, String encryptedAesKeyBase64, PayloadFormat format) throws GeneralSecurityException {
+        return decryptHybrid(encryptedPayload, encryptedAesKeyBase64, null, format);
+    }
+
+    /**
+     * @param keyId 'key_id' del mensaje (null en productores anteriores: se usa la clave vigente)
+     */
+    public String decryptHybrid(String encryptedPayload, String encryptedAesKeyBase64, String keyId, PayloadFormat format) throws GeneralSecurityException {
+        SecretKey aesKey = unwrapDataKey(encryptedAesKeyBase64, keyId);
+        return decryptWithDataKey(encryptedPayload, aesKey, format);
+    }
+
+    // ==========================================
+    // PRIMITIVAS DEL CIFRADO HÍBRIDO
+    // Permiten reutilizar una data key (AES) entre mensajes: ver SessionKeyManager / SessionKeyCache
+    // ==========================================
+
+    public SecretKey generateDataKey() {
+        return AES_KEY_GENERATOR.get().generateKey();
+    }
+
+    /**
+     * RSA: cifra la data key con la clave pública del destinatario. Retorna Base64.
+     */
+    public String wrapDataKey(SecretKey aesKey, PublicKey recipientKey) throws GeneralSecurityException {
+        Cipher rsaCipher = RSA_CIPHER.get();
+        rsaCipher.init(Cipher.ENCRYPT_MODE, recipientKey);
+        byte[] encryptedKeyBytes = rsaCipher.doFinal(aesKey.getEncoded());
+        return Base64.getEncoder().encodeToString(encryptedKeyBytes);
+    }
+
+    /**
+     * RSA: descifra la data key con nuestra clave privada. Es la operación más cara del consumidor.
+     */
+    public SecretKey unwrapDataKey(String encryptedAesKeyBase64) throws GeneralSecurityException {
+        return unwrapDataKey(encryptedAesKeyBase64, null);
+    }
+
+    /**
+     * Igual que {@link #unwrapDataKey(String)} con la clave privada del key id recibido. Falla si no es una clave nuestra vigente.
+     */
+    public SecretKey unwrapDataKey(String encryptedAesKeyBase64, String keyId) throws GeneralSecurityException {
+        Cipher rsaCipher = RSA_CIPHER.get();
+        rsaCipher.init(Cipher.DECRYPT_MODE, ownKeys.resolve(keyId, Instant.now()));
         byte[] aesKeyBytes = rsaCipher.doFinal(Base64.getDecoder().decode(encryptedAesKeyBase64));
-        SecretKey aesKey = new SecretKeySpec(aesKeyBytes, "AES");
-        Cipher aesCipher = Cipher.getInstance("AES");
+        return new SecretKeySpec(aesKeyBytes, "AES");
+    }
+
+    public String encryptWithDataKey(String rawPayload, SecretKey aesKey) throws GeneralSecurityException {
+        return encryptWithDataKey(rawPayload, aesKey, PayloadFormat.AES_ECB);
+    }
+
+    public String encryptWithDataKey(String rawPayload, SecretKey aesKey, PayloadFormat format) throws GeneralSecurityException {
+        return encryptWithDataKey(rawPayload, aesKey, format, StageRecorder.NONE);
+    }
+
+    public String encryptWithDataKey(String rawPayload, SecretKey aesKey, PayloadFormat format, StageRecorder stages) throws GeneralSecurityException {
+        ByteBuffer sealed = stages.time(PipelineStage.AES_ENCRYPT, () -> format == PayloadFormat.AES_GCM
+                ? AesGcmPayloadCipher.seal(rawPayload, aesKey)
+                : sealEcb(ByteBuffer.wrap(rawPayload.getBytes(StandardCharsets.UTF_8)), aesKey));
+        return stages.time(PipelineStage.BASE64_ENCODE, () -> encodeSealed(sealed, format));
+    }
+
+    /**
+     * Cifra los bytes restantes de {@code plaintext}, sin pasar por String (ej: payload comprimido).
+     */
+    public String encryptWithDataKey(ByteBuffer plaintext, SecretKey aesKey, PayloadFormat format) throws GeneralSecurityException {
+        return encryptWithDataKey(plaintext, aesKey, format, StageRecorder.NONE);
+    }
+
+    public String encryptWithDataKey(ByteBuffer plaintext, SecretKey aesKey, PayloadFormat format, StageRecorder stages) throws GeneralSecurityException {
+        ByteBuffer sealed = stages.time(PipelineStage.AES_ENCRYPT, () -> format == PayloadFormat.AES_GCM
+                ? AesGcmPayloadCipher.seal(plaintext, aesKey)
+                : sealEcb(plaintext, aesKey));
+        return stages.time(PipelineStage.BASE64_ENCODE, () -> encodeSealed(sealed, format));
+    }
+
+    /**
+     * AES/ECB (legacy) sobre los bytes restantes de {@code plaintext}.
+     */
+    private static ByteBuffer sealEcb(ByteBuffer plaintext, SecretKey aesKey) throws GeneralSecurityException {
+        Cipher aesCipher = AES_CIPHER.get();
+        aesCipher.init(Cipher.ENCRYPT_MODE, aesKey);
+        return ByteBuffer.wrap(aesCipher.doFinal(plaintext.array(), plaintext.arrayOffset() + plaintext.position(), plaintext.remaining()));
+    }
+
+    private static String encodeSealed(ByteBuffer sealed, PayloadFormat format) {
+        if (format == PayloadFormat.AES_GCM) {
+            return AesGcmPayloadCipher.encodeBase64(sealed);
+        }
+        return Base64.getEncoder().encodeToString(sealed.array());
+    }
+
+    public String decryptWithDataKey(String encryptedPayload, SecretKey aesKey) throws GeneralSecurityException {
+        return decryptWithDataKey(encryptedPayload, aesKey, PayloadFormat.AES_ECB);
+    }
+
+    public String decryptWithDataKey(String encryptedPayload, SecretKey aesKey, PayloadFormat format) throws GeneralSecurityException {
+        if (format == PayloadFormat.AES_GCM) {
+            return AesGcmPayloadCipher.decrypt(encryptedPayload, aesKey);
+        }
+        Cipher aesCipher = AES_CIPHER.get();
         aesCipher.init(Cipher.DECRYPT_MODE, aesKey);
         byte[] decryptedBytes = aesCipher.doFinal(Base64.getDecoder().decode(encryptedPayload));
+        return new String(decryptedBytes, StandardCharsets.UTF_8);
+    }
 
-        return new String(decryptedBytes);
+    /**
+     * Descifra sin materializar el payload como String: el consumidor lo parsea en streaming (ver AidxFlightEventParser).
+     * - AES_GCM: el tag se verifica antes de entregar un solo byte, así que se descifra al buffer del hilo y se
+     *   expone sin copiarlo.
+     * - AES_ECB (legacy): Base64 -> CipherInputStream, descifrado por bloques a medida que se lee.
+     * El stream usa el Cipher/buffer del hilo actual: se debe consumir completo en el mismo hilo antes de volver a descifrar.
+     */
+    public InputStream decryptToStream(String encryptedPayload, SecretKey aesKey, PayloadFormat format) throws GeneralSecurityException {
+        if (format == PayloadFormat.AES_GCM) {
+            ByteBuffer plaintext = AesGcmPayloadCipher.decryptToBuffer(encryptedPayload, aesKey);
+            return new ByteArrayInputStream(plaintext.array(), plaintext.arrayOffset() + plaintext.position(), plaintext.remaining());
+        }
+        Cipher aesCipher = AES_CIPHER.get();
+        aesCipher.init(Cipher.DECRYPT_MODE, aesKey);
+        return new CipherInputStream(Base64.getDecoder().wrap(new CharSequenceInputStream(encryptedPayload)), aesCipher);
     }
 
-    public record EncryptedMessageBundle(String encryptedPayload, String encryptedKey) {}
+    /**
+     * Igual que {@link #decryptToStream(String, SecretKey, PayloadFormat)} sobre el payload cifrado en binario
+     * (sin Base64), ej: un blob del claim-check mapeado desde disco. Consume los bytes restantes de {@code sealed}.
+     */
+    public InputStream decryptToStream(ByteBuffer sealed, SecretKey aesKey, PayloadFormat format) throws GeneralSecurityException {
+        ByteBuffer plaintext;
+        if (format == PayloadFormat.AES_GCM) {
+            plaintext = AesGcmPayloadCipher.decryptToBuffer(sealed, aesKey);
+        } else {
+            Cipher aesCipher = AES_CIPHER.get();
+            aesCipher.init(Cipher.DECRYPT_MODE, aesKey);
+            plaintext = ByteBuffer.allocate(aesCipher.getOutputSize(sealed.remaining()));
+            aesCipher.doFinal(sealed, plaintext);
+            plaintext.flip();
+        }
+        return new ByteArrayInputStream(plaintext.array(), plaintext.arrayOffset() + plaintext.position(), plaintext.remaining());
+    }
+
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cipher not available: " + transformation, e);
+        }
+    }
+
+    private static KeyGenerator newAesKeyGenerator() {
+        try {
+            KeyGenerator keyGen = KeyGenerator.getInstance("AES");
+            keyGen.init(256); // AES-256
+            return keyGen;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES KeyGenerator not available", e);
+        }
+    }
+
+    /**
+     * @param sessionKeyId solo presente cuando la data key se reutiliza entre mensajes (modo session key)
+     */
+    public record EncryptedMessageBundle(String encryptedPayload, String encryptedKey, String sessionKeyId) {
+        public EncryptedMessageBundle(String encryptedPayload, String encryptedKey) {
+            this(encryptedPayload, encryptedKey, null);
+        }
+    }
 }
 
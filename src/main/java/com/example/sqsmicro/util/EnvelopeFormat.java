@@ -0,0 +1,36 @@
+package com.example.sqsmicro.util;
+
+/**
+ * Formato del body SQS que el productor usa con cada peer ('config.messaging.envelope' del peer, o app.producer.envelope).
+ * El consumidor lee los dos sin configuración: lo detecta por el primer carácter del body (ver {@link MessageEnvelope#isEnvelope(String)}).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public enum EnvelopeFormat {
+
+    /** MessageDto serializado a JSON (el formato original). */
+    JSON("json"),
+
+    /** {@link MessageEnvelope}: cabecera binaria con offsets fijos + ciphertext. */
+    BINARY("binary");
+
+    private final String value;
+
+    EnvelopeFormat(String value) {
+        this.value = value;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    public static EnvelopeFormat fromValue(String value) {
+        for (EnvelopeFormat format : values()) {
+            if (format.value.equalsIgnoreCase(value) || format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported message envelope: " + value);
+    }
+}
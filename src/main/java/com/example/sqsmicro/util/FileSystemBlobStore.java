@@ -0,0 +1,87 @@
+package com.example.sqsmicro.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * BlobStore sobre un directorio local: un fichero por blob, nombrado por un UUID (la referencia).
+ * <p>
+ * - put: FileChannel.write desde el buffer del payload a un temporal y move atómico; un lector nunca ve un blob a medias.
+ * - get: FileChannel.map de solo lectura; el contenido no se copia al heap y el mapping sigue válido tras cerrar el canal.
+ * Los ficheros quedan solo para el usuario del proceso (rw-------) cuando el sistema de ficheros es POSIX.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final String SUFFIX = ".blob";
+
+    // La referencia llega desde la metadata del mensaje: solo se aceptan UUIDs (nada de '../')
+    private static final Pattern REFERENCE = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    private final Path root;
+
+    public FileSystemBlobStore(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public String put(ByteBuffer content) throws IOException {
+        Files.createDirectories(root);
+        String reference = UUID.randomUUID().toString();
+        Path temp = Files.createTempFile(root, reference, ".tmp");
+        try {
+            restrictToOwner(temp);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+            }
+            try {
+                Files.move(temp, path(reference), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path(reference));
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return reference;
+    }
+
+    @Override
+    public ByteBuffer get(String reference) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(reference), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public void delete(String reference) throws IOException {
+        Files.deleteIfExists(path(reference));
+    }
+
+    private Path path(String reference) {
+        if (reference == null || !REFERENCE.matcher(reference).matches()) {
+            throw new IllegalArgumentException("Invalid blob reference: " + reference);
+        }
+        return root.resolve(reference + SUFFIX);
+    }
+
+    private static void restrictToOwner(Path file) throws IOException {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // Sistema de ficheros no POSIX (ej: Windows): quedan los permisos por defecto del directorio
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.sqsmicro.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DedupStore en memoria, acotado por tamaño (max-entries) y por tiempo (ttl).
+ * Las entradas se mantienen en orden de última escritura: las más antiguas son las primeras en expirar o ser desalojadas.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class InMemoryDedupStore implements DedupStore {
+
+    private final Map<String, Entry> entries;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    public InMemoryDedupStore(int maxEntries, Duration ttl, Clock clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Claim tryClaim(String key) {
+        long now = clock.millis();
+        purgeExpired(now);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            return entry.done() ? Claim.DONE : Claim.IN_PROGRESS;
+        }
+        entries.put(key, new Entry(false, now + ttlMillis));
+        return Claim.CLAIMED;
+    }
+
+    @Override
+    public synchronized void complete(String key) {
+        // remove + put para mover la entrada al final (el TTL corre desde que se completó)
+        entries.remove(key);
+        entries.put(key, new Entry(true, clock.millis() + ttlMillis));
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().expiresAt() <= now) {
+            iterator.remove();
+        }
+    }
+
+    private record Entry(boolean done, long expiresAt) {}
+}
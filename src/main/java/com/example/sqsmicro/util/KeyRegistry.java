@@ -0,0 +1,91 @@
+package com.example.sqsmicro.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Claves privadas propias indexadas por key id, con ventana de validez para rotar sin cortar el tráfico.
+ * <p>
+ * El key id es el SHA-256 (hex) de la clave pública en X.509 DER: el productor lo calcula sobre la clave que publica
+ * el directorio de peers y lo envía en la metadata ('key_id'), en lugar de la clave completa. El consumidor solo acepta
+ * ids de claves que tiene registradas y vigentes; el id nunca viene acompañado de material de clave en el que confiar.
+ * <p>
+ * Rotación: se publica la clave nueva en el directorio y se registra la anterior con 'notAfter'. Mientras las dos
+ * ventanas se solapan, los mensajes en vuelo cifrados con la anterior se siguen descifrando.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+public class KeyRegistry {
+
+    public static final String KEY_ID = "key_id";
+
+    // Copy-on-write: se registra una vez al arrancar (o al rotar), se lee en cada mensaje
+    private volatile List<Entry> entries = List.of();
+
+    /**
+     * SHA-256 (hex) de la clave pública codificada (X.509 DER), independiente del formato de texto (PEM o Base64).
+     */
+    public static String keyId(PublicKey publicKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(publicKey.getEncoded()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public synchronized void register(String keyId, PrivateKey privateKey, Instant notBefore, Instant notAfter) {
+        if (!notAfter.isAfter(notBefore)) {
+            throw new IllegalArgumentException("Empty validity window for key " + keyId);
+        }
+        List<Entry> updated = new ArrayList<>(entries.size() + 1);
+        for (Entry entry : entries) {
+            if (!entry.keyId().equals(keyId)) {
+                updated.add(entry);
+            }
+        }
+        updated.add(new Entry(keyId, privateKey, notBefore, notAfter));
+        // La más nueva primero: es la que se usa cuando el mensaje no trae key id
+        updated.sort(Comparator.comparing(Entry::notBefore).reversed());
+        this.entries = List.copyOf(updated);
+        log.info("Private key {} registered, valid from {} to {}", keyId, notBefore, notAfter);
+    }
+
+    /**
+     * Clave privada para el key id recibido. Falla si no está registrada o su ventana no incluye 'at'.
+     * Sin key id (productores anteriores) se usa la clave vigente más nueva.
+     */
+    public PrivateKey resolve(String keyId, Instant at) throws GeneralSecurityException {
+        for (Entry entry : entries) {
+            if ((keyId == null || entry.keyId().equals(keyId)) && entry.validAt(at)) {
+                return entry.privateKey();
+            }
+        }
+        throw new GeneralSecurityException(keyId == null
+                ? "No private key valid at " + at
+                : "Unknown or expired key id: " + keyId);
+    }
+
+    public List<String> keyIds() {
+        return entries.stream().map(Entry::keyId).toList();
+    }
+
+    private record Entry(String keyId, PrivateKey privateKey, Instant notBefore, Instant notAfter) {
+
+        boolean validAt(Instant at) {
+            return !at.isBefore(notBefore) && at.isBefore(notAfter);
+        }
+    }
+}
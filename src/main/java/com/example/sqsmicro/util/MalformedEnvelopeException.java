@@ -0,0 +1,19 @@
+package com.example.sqsmicro.util;
+
+/**
+ * Body que no es un {@link MessageEnvelope} válido: magic o versión desconocidos, cabecera truncada o Base64 corrupto.
+ * Fallaría igual en cada re-entrega.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class MalformedEnvelopeException extends IllegalArgumentException {
+
+    public MalformedEnvelopeException(String message) {
+        super(message);
+    }
+
+    public MalformedEnvelopeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.sqsmicro.util;
+
+import com.example.sqsmicro.records.MessageDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Envelope binario del MessageDto ({@link EnvelopeFormat#BINARY}), alternativa compacta al JSON.
+ * <p>
+ * Body SQS: Base64(cabecera) + '.' + encryptedPayload. El ciphertext ya viaja en Base64 y se concatena tal cual:
+ * ni se codifica dos veces ni el consumidor lo vuelve a codificar. '.' y '{' no son Base64, así que un body
+ * JSON nunca se confunde con un envelope.
+ * <p>
+ * Cabecera (big-endian), con las longitudes en offsets fijos: el routing (vuelo, correlation_id, key id) se lee
+ * sin parsear JSON ni tocar el ciphertext:
+ * <pre>
+ *  0  u16  magic 0xAE1D
+ *  2  u8   versión (1)
+ *  3  u8   flags (bit 0: hay encryptedPayload; sin él el payload viaja por claim-check)
+ *  4  u16  largo uniqueFlightId
+ *  6  u16  largo correlation_id
+ *  8  u16  largo key id ('session_key_id')
+ * 10  u16  largo de la data key envuelta (binaria, sin Base64)
+ * 12  u16  número de entradas de metadata
+ * 14  uniqueFlightId, correlation_id, key id, data key, metadata (writeUTF clave + writeUTF valor)
+ * </pre>
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public final class MessageEnvelope {
+
+    private static final short MAGIC = (short) 0xAE1D;
+    private static final byte VERSION = 1;
+    private static final byte FLAG_PAYLOAD = 1;
+    private static final int HEADER_LENGTH = 14;
+
+    private static final char SEPARATOR = '.';
+
+    private static final String CORRELATION_ID = "correlation_id";
+    // Campos con sección propia en la cabecera
+    private static final Set<String> NOT_IN_METADATA = Set.of(CORRELATION_ID, SessionKeyManager.SESSION_KEY_ID);
+
+    private MessageEnvelope() {
+    }
+
+    public static String encode(MessageDto message) {
+        byte[] flightId = utf8(message.uniqueFlightId());
+        Map<String, String> metadata = message.metadata() != null ? message.metadata() : Map.of();
+        byte[] correlationId = utf8(metadata.get(CORRELATION_ID));
+        byte[] keyId = utf8(metadata.get(SessionKeyManager.SESSION_KEY_ID));
+        byte[] wrappedKey = message.encryptedKey() != null ? Base64.getDecoder().decode(message.encryptedKey()) : new byte[0];
+        try {
+            ByteArrayOutputStream header = new ByteArrayOutputStream(HEADER_LENGTH + flightId.length + wrappedKey.length + 256);
+            DataOutputStream out = new DataOutputStream(header);
+            out.writeShort(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(message.encryptedPayload() != null ? FLAG_PAYLOAD : 0);
+            out.writeShort(u16(flightId.length));
+            out.writeShort(u16(correlationId.length));
+            out.writeShort(u16(keyId.length));
+            out.writeShort(u16(wrappedKey.length));
+            int entries = 0;
+            for (var entry : metadata.entrySet()) {
+                if (!NOT_IN_METADATA.contains(entry.getKey()) && entry.getValue() != null) {
+                    entries++;
+                }
+            }
+            out.writeShort(u16(entries));
+            out.write(flightId);
+            out.write(correlationId);
+            out.write(keyId);
+            out.write(wrappedKey);
+            for (var entry : metadata.entrySet()) {
+                if (!NOT_IN_METADATA.contains(entry.getKey()) && entry.getValue() != null) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+            out.flush();
+            String encodedHeader = Base64.getEncoder().encodeToString(header.toByteArray());
+            String payload = message.encryptedPayload() != null ? message.encryptedPayload() : "";
+            return new StringBuilder(encodedHeader.length() + 1 + payload.length())
+                    .append(encodedHeader).append(SEPARATOR).append(payload)
+                    .toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * true si el body es un envelope binario; false para el JSON del MessageDto.
+     */
+    public static boolean isEnvelope(String body) {
+        return body != null && !body.isEmpty() && body.charAt(0) != '{' && body.indexOf(SEPARATOR) > 0;
+    }
+
+    /**
+     * Lanza {@link MalformedEnvelopeException} si el body no es un envelope válido.
+     */
+    public static MessageDto decode(String body) {
+        int separator = body.indexOf(SEPARATOR);
+        if (separator <= 0) {
+            throw new MalformedEnvelopeException("Not a binary message envelope");
+        }
+        byte[] header;
+        try {
+            header = Base64.getDecoder().decode(body.substring(0, separator));
+        } catch (IllegalArgumentException e) {
+            throw new MalformedEnvelopeException("Not a binary message envelope", e);
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+            if (in.readShort() != MAGIC) {
+                throw new MalformedEnvelopeException("Not a binary message envelope");
+            }
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new MalformedEnvelopeException("Unsupported message envelope version: " + version);
+            }
+            byte flags = in.readByte();
+            int flightIdLength = in.readUnsignedShort();
+            int correlationIdLength = in.readUnsignedShort();
+            int keyIdLength = in.readUnsignedShort();
+            int wrappedKeyLength = in.readUnsignedShort();
+            int entries = in.readUnsignedShort();
+
+            String flightId = readString(in, flightIdLength);
+            String correlationId = readString(in, correlationIdLength);
+            String keyId = readString(in, keyIdLength);
+            byte[] wrappedKey = new byte[wrappedKeyLength];
+            in.readFully(wrappedKey);
+            Map<String, String> metadata = new HashMap<>(entries + 4);
+            for (int i = 0; i < entries; i++) {
+                metadata.put(in.readUTF(), in.readUTF());
+            }
+            if (correlationId != null) {
+                metadata.put(CORRELATION_ID, correlationId);
+            }
+            if (keyId != null) {
+                metadata.put(SessionKeyManager.SESSION_KEY_ID, keyId);
+            }
+            String encryptedPayload = (flags & FLAG_PAYLOAD) != 0 ? body.substring(separator + 1) : null;
+            return new MessageDto(
+                    metadata,
+                    encryptedPayload,
+                    wrappedKeyLength > 0 ? Base64.getEncoder().encodeToString(wrappedKey) : null,
+                    flightId);
+        } catch (IOException e) {
+            throw new MalformedEnvelopeException("Truncated or corrupt message envelope", e);
+        }
+    }
+
+    private static String readString(DataInputStream in, int length) throws IOException {
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static int u16(int value) {
+        if (value > 0xFFFF) {
+            throw new IllegalArgumentException("Field too large for the message envelope: " + value + " bytes");
+        }
+        return value;
+    }
+}
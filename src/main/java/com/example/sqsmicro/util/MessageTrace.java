@@ -0,0 +1,89 @@
+package com.example.sqsmicro.util;
+
+import com.example.sqsmicro.records.MessageDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trazas muestreadas de mensajes (payload en claro, ciphertext, metadata) en el logger 'com.example.sqsmicro.trace'.
+ * <p>
+ * Camino caliente: si el logger no está en DEBUG o el mensaje no sale en la muestra ('sample-rate') se retorna
+ * antes de construir nada, sin allocations. Un mensaje muestreado genera un solo evento con pares clave/valor
+ * (campos propios con el perfil 'json-logs') y cada valor largo se trunca a 'max-length' caracteres.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Component
+public class MessageTrace {
+
+    public static final String LOGGER_NAME = "com.example.sqsmicro.trace";
+
+    private static final Logger TRACE = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final double sampleRate;
+    private final int maxLength;
+
+    public MessageTrace(
+            @Value("${app.logging.payload-trace.sample-rate:0.01}") double sampleRate,
+            @Value("${app.logging.payload-trace.max-length:256}") int maxLength) {
+        this.sampleRate = sampleRate;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Mensaje cifrado y listo para enviar a 'peer'. {@code plaintext} es el payload antes de comprimir/cifrar.
+     */
+    public void outbound(String peer, CharSequence plaintext, MessageDto message) {
+        if (!sampled()) {
+            return;
+        }
+        TRACE.atDebug()
+                .addKeyValue("direction", "outbound")
+                .addKeyValue("peer", peer)
+                .addKeyValue("flight", message.uniqueFlightId())
+                .addKeyValue("metadata", message.metadata())
+                .addKeyValue("payload", truncate(plaintext))
+                .addKeyValue("encrypted_payload", truncate(message.encryptedPayload()))
+                .addKeyValue("encrypted_key", truncate(message.encryptedKey()))
+                .log("Outbound message sampled");
+    }
+
+    /**
+     * Mensaje recibido y procesado. {@code payload} es lo que resultó de descifrarlo (XML o el evento ya parseado).
+     */
+    public void inbound(MessageDto message, Object payload) {
+        if (!sampled()) {
+            return;
+        }
+        TRACE.atDebug()
+                .addKeyValue("direction", "inbound")
+                .addKeyValue("flight", message.uniqueFlightId())
+                .addKeyValue("metadata", message.metadata())
+                .addKeyValue("payload", truncate(payload != null ? payload.toString() : null))
+                .addKeyValue("encrypted_payload", truncate(message.encryptedPayload()))
+                .addKeyValue("encrypted_key", truncate(message.encryptedKey()))
+                .log("Inbound message sampled");
+    }
+
+    boolean sampled() {
+        if (sampleRate <= 0 || !TRACE.isDebugEnabled()) {
+            return false;
+        }
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    String truncate(CharSequence value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.length() <= maxLength) {
+            return value.toString();
+        }
+        return value.subSequence(0, maxLength) + "...(" + value.length() + " chars)";
+    }
+}
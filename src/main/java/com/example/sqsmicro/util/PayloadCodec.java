@@ -0,0 +1,110 @@
+package com.example.sqsmicro.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresión aplicada al payload antes de cifrarlo. Viaja en la metadata ('content_encoding') para que el consumidor
+ * descomprima después de descifrar; sin la clave el payload va sin comprimir (productores anteriores a la compresión).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public enum PayloadCodec {
+
+    /** Sin compresión. */
+    IDENTITY("identity"),
+
+    /** zlib (RFC 1950) con java.util.zip.Deflater. El nivel solo afecta al productor: el consumidor no lo necesita. */
+    DEFLATE("deflate");
+
+    public static final String METADATA_KEY = "content_encoding";
+
+    // Límite del payload descomprimido: SQS acepta 256KB, un ratio mayor solo puede ser un payload malicioso
+    public static final int MAX_DECODED_BYTES = 16 * 1024 * 1024;
+
+    private final String encoding;
+
+    PayloadCodec(String encoding) {
+        this.encoding = encoding;
+    }
+
+    public String encoding() {
+        return encoding;
+    }
+
+    /**
+     * Envuelve el payload descifrado para leerlo descomprimido, sin materializarlo en memoria.
+     */
+    public InputStream decode(InputStream encoded) {
+        if (this == IDENTITY) {
+            return encoded;
+        }
+        return new BoundedInputStream(new InflaterInputStream(encoded), MAX_DECODED_BYTES);
+    }
+
+    public static PayloadCodec fromEncoding(String encoding) {
+        if (encoding == null) {
+            return IDENTITY;
+        }
+        for (PayloadCodec codec : values()) {
+            if (codec.encoding.equalsIgnoreCase(encoding)) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported payload content_encoding: " + encoding);
+    }
+
+    public static PayloadCodec fromMetadata(Map<String, String> metadata) {
+        return fromEncoding(metadata != null ? metadata.get(METADATA_KEY) : null);
+    }
+
+    /**
+     * Corta la lectura con un {@link PayloadTooLargeException} al superar el límite (zip bomb).
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                checkLimit(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                checkLimit(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            checkLimit(skipped);
+            return skipped;
+        }
+
+        private void checkLimit(long read) throws IOException {
+            count += read;
+            if (count > limit) {
+                throw new PayloadTooLargeException(limit);
+            }
+        }
+    }
+}
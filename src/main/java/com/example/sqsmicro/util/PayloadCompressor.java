@@ -0,0 +1,91 @@
+package com.example.sqsmicro.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+/**
+ * Etapa de compresión del productor, antes del cifrado (el ciphertext ya no se puede comprimir).
+ * Decide por tamaño:
+ * - Por debajo de 'min-size' no se comprime: en un XML corto la cabecera y el CPU no compensan.
+ * - Desde 'large-size' se usa 'large-level' (más rápido), para acotar la latencia de los payloads grandes.
+ * - Si el resultado no es más chico que la entrada se descarta y el payload viaja sin comprimir.
+ * Un Deflater y un buffer de salida por hilo, reutilizados entre mensajes (ver {@link AesGcmPayloadCipher}).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Component
+public class PayloadCompressor {
+
+    // Por encima de este tamaño no retenemos el buffer en el hilo (payloads excepcionales)
+    private static final int MAX_RETAINED_BUFFER = 4 * 1024 * 1024;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+    private static final ThreadLocal<ByteBuffer[]> BUFFER = ThreadLocal.withInitial(() -> new ByteBuffer[]{ByteBuffer.allocate(8 * 1024)});
+
+    private final PayloadCodec codec;
+    private final int minSize;
+    private final int level;
+    private final int largeSize;
+    private final int largeLevel;
+
+    public PayloadCompressor(
+            @Value("${app.producer.compression.codec:identity}") String codec,
+            @Value("${app.producer.compression.min-size:512}") int minSize,
+            @Value("${app.producer.compression.level:6}") int level,
+            @Value("${app.producer.compression.large-size:65536}") int largeSize,
+            @Value("${app.producer.compression.large-level:1}") int largeLevel) {
+        this.codec = PayloadCodec.fromEncoding(codec);
+        this.minSize = minSize;
+        this.level = level;
+        this.largeSize = largeSize;
+        this.largeLevel = largeLevel;
+    }
+
+    public PayloadCodec codec() {
+        return codec;
+    }
+
+    /**
+     * Retorna el payload comprimido con {@link #codec()}, o null si no conviene comprimirlo (viaja como UTF-8 plano).
+     * El buffer retornado es del hilo actual: solo es válido hasta la siguiente llamada en el mismo hilo.
+     */
+    public ByteBuffer compress(String payload) {
+        // Largo en chars <= largo en bytes UTF-8: si no llega al umbral en chars, tampoco en bytes
+        if (codec == PayloadCodec.IDENTITY || payload == null || payload.length() < minSize) {
+            return null;
+        }
+        byte[] input = payload.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setLevel(input.length >= largeSize ? largeLevel : level);
+        deflater.setInput(input);
+        deflater.finish();
+        // Capacidad = tamaño de entrada: si la salida no entra, comprimir no ahorra nada
+        ByteBuffer output = buffer(input.length);
+        while (!deflater.finished()) {
+            if (!output.hasRemaining()) {
+                return null;
+            }
+            int written = deflater.deflate(output.array(), output.arrayOffset() + output.position(), output.remaining());
+            output.position(output.position() + written);
+        }
+        output.flip();
+        return output;
+    }
+
+    private static ByteBuffer buffer(int capacity) {
+        if (capacity > MAX_RETAINED_BUFFER) {
+            return ByteBuffer.allocate(capacity);
+        }
+        ByteBuffer[] holder = BUFFER.get();
+        if (holder[0].capacity() < capacity) {
+            holder[0] = ByteBuffer.allocate(capacity);
+        }
+        return holder[0].clear().limit(capacity);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.sqsmicro.util;
+
+import java.util.Map;
+
+/**
+ * Formato del cifrado simétrico del payload. Viaja en la metadata ('format_version') para que
+ * productores y consumidores de versiones distintas convivan durante la migración.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public enum PayloadFormat {
+
+    /** Legacy: Cipher.getInstance("AES") == AES/ECB/PKCS5Padding, sin autenticación. Mensajes sin 'format_version'. */
+    AES_ECB("1"),
+
+    /** AES/GCM/NoPadding: IV de 12 bytes + ciphertext + tag de 16 bytes, todo en Base64. */
+    AES_GCM("2");
+
+    public static final String METADATA_KEY = "format_version";
+
+    private final String version;
+
+    PayloadFormat(String version) {
+        this.version = version;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    public static PayloadFormat fromVersion(String version) {
+        if (version == null) {
+            return AES_ECB;
+        }
+        for (PayloadFormat format : values()) {
+            if (format.version.equals(version)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported payload format_version: " + version);
+    }
+
+    public static PayloadFormat fromMetadata(Map<String, String> metadata) {
+        return fromVersion(metadata != null ? metadata.get(METADATA_KEY) : null);
+    }
+}
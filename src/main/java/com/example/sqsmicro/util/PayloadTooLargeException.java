@@ -0,0 +1,17 @@
+package com.example.sqsmicro.util;
+
+import java.io.IOException;
+
+/**
+ * El payload descomprimido supera {@link PayloadCodec#MAX_DECODED_BYTES} (zip bomb). A diferencia de un IOException
+ * de red, fallaría igual en cada re-entrega.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class PayloadTooLargeException extends IOException {
+
+    public PayloadTooLargeException(long limit) {
+        super("Decoded payload exceeds " + limit + " bytes");
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.sqsmicro.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers por etapa del pipeline, con histograma (p50/p99/p999 en Prometheus, /actuator/prometheus):
+ * - sqs.producer.stage / sqs.consumer.stage: tags 'stage' ({@link PipelineStage}), 'peer' y 'message_type'.
+ * - sqs.producer.messages / sqs.consumer.messages: mensajes por 'peer', 'message_type' y 'outcome'.
+ * En el productor 'peer' es el destino; en el consumidor es el emisor, que el productor envía en 'sender_id'.
+ * <p>
+ * Cada valor distinto de un tag es una serie más en el registry (y un histograma entero por timer), así que los
+ * valores se acotan a listas conocidas y el resto se reporta como 'other':
+ * - 'peer': los peers de 'app.metrics.peers' (por defecto, los de 'app.config.peers'), el id propio y 'fan_out'.
+ * - 'message_type': los tipos AIDX que maneja el servicio y 'batch'.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String SENDER_ID = "sender_id";
+    // Tag 'peer' de las etapas compartidas por todos los destinos de un fan-out
+    public static final String FAN_OUT_PEER = "fan_out";
+    // Tag 'message_type' del envío batch (las entradas pueden ser de tipos distintos)
+    public static final String BATCH_MESSAGE_TYPE = "batch";
+
+    private static final String MESSAGE_TYPE = "message_type";
+    private static final String NONE = "none";
+    private static final String OTHER = "other";
+    private static final Set<String> KNOWN_MESSAGE_TYPES = Set.of(
+            "IATAAIDXFlightLegNotifRQ", "IATAAIDXFlightLegRQ", BATCH_MESSAGE_TYPE);
+
+    private final MeterRegistry meterRegistry;
+    private final String senderId;
+    private final Set<String> knownPeers = new HashSet<>();
+    private final Map<Tags, BoundRecorder> recorders = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(
+            MeterRegistry meterRegistry,
+            @Value("${app.client.id:airlines-b}") String senderId,
+            @Value("${app.metrics.peers:${app.config.peers:}}") List<String> knownPeers) {
+        this.meterRegistry = meterRegistry;
+        this.senderId = senderId;
+        this.knownPeers.add(senderId);
+        this.knownPeers.add(FAN_OUT_PEER);
+        knownPeers.stream().map(String::trim).filter(peer -> !peer.isEmpty()).forEach(this.knownPeers::add);
+    }
+
+    /**
+     * Sin registry: las mediciones se descartan (tests y componentes construidos fuera de Spring).
+     */
+    public static PipelineMetrics noop() {
+        return new PipelineMetrics(new CompositeMeterRegistry(), NONE, List.of());
+    }
+
+    /**
+     * Id propio que viaja en 'sender_id' para que el consumidor etiquete sus métricas por emisor.
+     */
+    public String senderId() {
+        return senderId;
+    }
+
+    public StageRecorder producer(String peer, String messageType) {
+        return recorder(PipelineStage.Side.PRODUCER, peer, messageType);
+    }
+
+    public StageRecorder consumer(Map<String, String> metadata) {
+        return recorder(PipelineStage.Side.CONSUMER, value(metadata, SENDER_ID), value(metadata, MESSAGE_TYPE));
+    }
+
+    private BoundRecorder recorder(PipelineStage.Side side, String peer, String messageType) {
+        return recorders.computeIfAbsent(
+                new Tags(side, tagValue(peer, knownPeers), tagValue(messageType, KNOWN_MESSAGE_TYPES)), BoundRecorder::new);
+    }
+
+    private static String value(Map<String, String> metadata, String key) {
+        return metadata != null ? metadata.get(key) : null;
+    }
+
+    private static String tagValue(String value, Set<String> known) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        return known.contains(value) ? value : OTHER;
+    }
+
+    private record Tags(PipelineStage.Side side, String peer, String messageType) {}
+
+    /**
+     * Timers de todas las etapas de un lado para un par peer/message_type, registrados una sola vez.
+     */
+    private final class BoundRecorder implements StageRecorder {
+
+        private final Tags tags;
+        private final Timer[] timers = new Timer[PipelineStage.values().length];
+        private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+        BoundRecorder(Tags tags) {
+            this.tags = tags;
+            for (PipelineStage stage : PipelineStage.values()) {
+                if (stage.side() == tags.side()) {
+                    timers[stage.ordinal()] = Timer.builder(tags.side().prefix() + ".stage")
+                            .description("Time spent per pipeline stage")
+                            .tag("stage", stage.value())
+                            .tag("peer", tags.peer())
+                            .tag(MESSAGE_TYPE, tags.messageType())
+                            .publishPercentileHistogram()
+                            .minimumExpectedValue(Duration.ofNanos(1_000))
+                            .maximumExpectedValue(Duration.ofSeconds(30))
+                            .register(meterRegistry);
+                }
+            }
+        }
+
+        @Override
+        public void record(PipelineStage stage, long nanos) {
+            Timer timer = timers[stage.ordinal()];
+            if (timer == null) {
+                throw new IllegalArgumentException("Stage " + stage + " is not a " + tags.side() + " stage");
+            }
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void count(String outcome) {
+            counters.computeIfAbsent(outcome, value -> Counter.builder(tags.side().prefix() + ".messages")
+                    .description("Messages by outcome")
+                    .tag("peer", tags.peer())
+                    .tag(MESSAGE_TYPE, tags.messageType())
+                    .tag("outcome", value)
+                    .register(meterRegistry)).increment();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.sqsmicro.util;
+
+/**
+ * Etapas medidas del pipeline ({@link PipelineMetrics}). El valor es el tag 'stage' del timer.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public enum PipelineStage {
+
+    // Productor
+    CONFIG_RESOLVE(Side.PRODUCER, "config_resolve"),
+    KEY_PARSE(Side.PRODUCER, "key_parse"),
+    XML_MARSHAL(Side.PRODUCER, "xml_marshal"),
+    COMPRESS(Side.PRODUCER, "compress"),
+    AES_ENCRYPT(Side.PRODUCER, "aes_encrypt"),
+    BASE64_ENCODE(Side.PRODUCER, "base64_encode"),
+    RSA_WRAP(Side.PRODUCER, "rsa_wrap"),
+    SQS_SEND(Side.PRODUCER, "sqs_send"),
+
+    // Consumidor
+    RECEIVE(Side.CONSUMER, "receive"),
+    RSA_UNWRAP(Side.CONSUMER, "rsa_unwrap"),
+    AES_DECRYPT(Side.CONSUMER, "aes_decrypt"),
+    HANDLE(Side.CONSUMER, "handle");
+
+    private final Side side;
+    private final String value;
+
+    PipelineStage(Side side, String value) {
+        this.side = side;
+        this.value = value;
+    }
+
+    public Side side() {
+        return side;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    public enum Side {
+        PRODUCER("sqs.producer"),
+        CONSUMER("sqs.consumer");
+
+        private final String prefix;
+
+        Side(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public String prefix() {
+            return prefix;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.sqsmicro.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de claves públicas ya parseadas por peer.
+ * Key = Nombre del peer (ej: 'airport-c'), Value = La clave lista para usar + su fingerprint.
+ * Evita el Base64 decode + KeyFactory (o el PEMParser) en cada envío.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class PublicKeyCache {
+
+    private final Map<String, CachedPublicKey> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private final PipelineMetrics pipelineMetrics;
+
+    public PublicKeyCache() {
+        this(PipelineMetrics.noop());
+    }
+
+    @Autowired
+    public PublicKeyCache(PipelineMetrics pipelineMetrics) {
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    /**
+     * Retorna la clave del peer. Solo parsea si el contenido recibido no coincide con el cacheado.
+     */
+    public PublicKey get(String peerId, String publicKeyContent) throws IOException, GeneralSecurityException {
+        if (publicKeyContent == null) {
+            throw new IllegalArgumentException("Public key for peer " + peerId + " is null");
+        }
+        CachedPublicKey cached = cache.get(peerId);
+        // Camino rápido: el Config Server nos devuelve la misma instancia de String mientras no refresque
+        if (cached != null && cached.source().equals(publicKeyContent)) {
+            hits.increment();
+            return cached.publicKey();
+        }
+
+        String fingerprint = fingerprint(publicKeyContent);
+        if (cached != null && cached.fingerprint().equals(fingerprint)) {
+            // Mismo material de clave con otro formato de texto (saltos de línea, espacios): no hace falta re-parsear
+            hits.increment();
+            cache.put(peerId, new CachedPublicKey(publicKeyContent, fingerprint, cached.publicKey()));
+            return cached.publicKey();
+        }
+
+        misses.increment();
+        // Solo se mide el parseo real (stage 'key_parse'); los hits no cuestan nada
+        long start = System.nanoTime();
+        PublicKey publicKey = EncryptDecryptMessageUtil.parsePublicKey(publicKeyContent);
+        pipelineMetrics.producer(peerId, null).record(PipelineStage.KEY_PARSE, System.nanoTime() - start);
+        cache.put(peerId, new CachedPublicKey(publicKeyContent, fingerprint, publicKey));
+        log.debug("Public key parsed and cached for peer {} (fingerprint {})", peerId, fingerprint);
+        return publicKey;
+    }
+
+    /**
+     * Descarta la clave de un peer. Se llama cuando el Config Server cambia su 'config.security.public-key'.
+     */
+    public void invalidate(String peerId) {
+        if (cache.remove(peerId) != null) {
+            log.debug("Public key cache entry dropped for peer {}", peerId);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * SHA-256 (hex) del contenido normalizado de la clave, sin espacios ni saltos de línea.
+     */
+    static String fingerprint(String publicKeyContent) throws GeneralSecurityException {
+        StringBuilder normalized = new StringBuilder(publicKeyContent.length());
+        for (int i = 0; i < publicKeyContent.length(); i++) {
+            char c = publicKeyContent.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                normalized.append(c);
+            }
+        }
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(digest.digest(normalized.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private record CachedPublicKey(String source, String fingerprint, PublicKey publicKey) {}
+}
@@ -0,0 +1,76 @@
+package com.example.sqsmicro.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lado consumidor del modo session key: cache LRU acotada de data keys ya desenvueltas (RSA) por 'session_key_id'.
+ * Con el productor rotando cada N mensajes, el consumidor hace un RSA decrypt por rotación en vez de uno por mensaje.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class SessionKeyCache {
+
+    private final EncryptDecryptMessageUtil encryptDecryptMessageUtil;
+    private final Map<String, UnwrappedKey> unwrappedKeys;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SessionKeyCache(
+            EncryptDecryptMessageUtil encryptDecryptMessageUtil,
+            @Value("${app.crypto.session-key.consumer-cache-size:1024}") int maxEntries) {
+        this.encryptDecryptMessageUtil = encryptDecryptMessageUtil;
+        this.unwrappedKeys = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UnwrappedKey> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Retorna la data key para el keyId. Solo hace el RSA decrypt si no la tenemos o si la key envuelta
+     * que llega no es la misma que desenvolvimos (un keyId no basta para confiar en la entrada).
+     */
+    public SecretKey resolve(String sessionKeyId, String encryptedKey) throws GeneralSecurityException {
+        return resolve(sessionKeyId, encryptedKey, null);
+    }
+
+    /**
+     * @param keyId 'key_id' del mensaje: con qué clave privada nuestra se envolvió la data key
+     */
+    public SecretKey resolve(String sessionKeyId, String encryptedKey, String keyId) throws GeneralSecurityException {
+        UnwrappedKey cached = unwrappedKeys.get(sessionKeyId);
+        if (cached != null && cached.wrappedKey().equals(encryptedKey)) {
+            hits.increment();
+            return cached.dataKey();
+        }
+        misses.increment();
+        SecretKey dataKey = encryptDecryptMessageUtil.unwrapDataKey(encryptedKey, keyId);
+        unwrappedKeys.put(sessionKeyId, new UnwrappedKey(encryptedKey, dataKey));
+        log.debug("Session key {} unwrapped and cached", sessionKeyId);
+        return dataKey;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private record UnwrappedKey(String wrappedKey, SecretKey dataKey) {}
+}
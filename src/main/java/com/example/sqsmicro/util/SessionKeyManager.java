@@ -0,0 +1,114 @@
+package com.example.sqsmicro.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Modo session key (opt-in) del productor: en vez de generar y envolver con RSA una data key por mensaje,
+ * se reutiliza una data key por peer durante un número acotado de mensajes o una ventana de tiempo acotada.
+ * El consumidor cachea la data key desenvuelta por su 'session_key_id' (ver {@link SessionKeyCache}).
+ * <p>
+ * Solo con AES_GCM (IV aleatorio por mensaje). Con AES_ECB la misma key cifra igual los bloques iguales de mensajes
+ * distintos, así que los peers legacy siguen con una data key por mensaje.
+ * Si el peer cambia su clave pública, la sesión se rota en el siguiente envío (se compara la clave de cada envío).
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class SessionKeyManager {
+
+    public static final String SESSION_KEY_ID = "session_key_id";
+
+    private final EncryptDecryptMessageUtil encryptDecryptMessageUtil;
+    private final boolean enabled;
+    private final int maxMessages;
+    private final long maxAgeNanos;
+
+    // Key = Nombre del peer (ej: 'airport-c'), Value = La data key vigente para ese peer
+    private final Map<String, SessionKey> sessions = new ConcurrentHashMap<>();
+
+    public SessionKeyManager(
+            EncryptDecryptMessageUtil encryptDecryptMessageUtil,
+            @Value("${app.crypto.session-key.enabled:false}") boolean enabled,
+            @Value("${app.crypto.session-key.max-messages:1000}") int maxMessages,
+            @Value("${app.crypto.session-key.max-age:5m}") Duration maxAge) {
+        this.encryptDecryptMessageUtil = encryptDecryptMessageUtil;
+        this.enabled = enabled;
+        this.maxMessages = maxMessages;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /**
+     * Si los envíos con este formato pueden reutilizar la data key. AES_ECB nunca: ver la documentación de la clase.
+     */
+    public boolean isEnabledFor(PayloadFormat format) {
+        return enabled && format == PayloadFormat.AES_GCM;
+    }
+
+    /**
+     * Cifra el payload con la data key vigente del peer. Solo hace RSA cuando toca rotar.
+     */
+    public EncryptDecryptMessageUtil.EncryptedMessageBundle encrypt(String peerId, String rawPayload, PublicKey recipientKey, PayloadFormat format) throws GeneralSecurityException {
+        SessionKey session = acquire(peerId, recipientKey, format);
+        String encryptedPayload = encryptDecryptMessageUtil.encryptWithDataKey(rawPayload, session.dataKey(), format);
+        return new EncryptDecryptMessageUtil.EncryptedMessageBundle(encryptedPayload, session.wrappedKey(), session.keyId());
+    }
+
+    /**
+     * Igual que {@link #encrypt(String, String, PublicKey, PayloadFormat)} sobre bytes ya codificados (ej: payload comprimido).
+     */
+    public EncryptDecryptMessageUtil.EncryptedMessageBundle encrypt(String peerId, ByteBuffer plaintext, PublicKey recipientKey, PayloadFormat format) throws GeneralSecurityException {
+        SessionKey session = acquire(peerId, recipientKey, format);
+        String encryptedPayload = encryptDecryptMessageUtil.encryptWithDataKey(plaintext, session.dataKey(), format);
+        return new EncryptDecryptMessageUtil.EncryptedMessageBundle(encryptedPayload, session.wrappedKey(), session.keyId());
+    }
+
+    private SessionKey acquire(String peerId, PublicKey recipientKey, PayloadFormat format) throws GeneralSecurityException {
+        if (format != PayloadFormat.AES_GCM) {
+            throw new IllegalArgumentException("Session keys require AES_GCM, got " + format);
+        }
+        while (true) {
+            SessionKey current = sessions.get(peerId);
+            if (current != null && current.tryAcquire(recipientKey, maxMessages, maxAgeNanos)) {
+                return current;
+            }
+            // Si otro hilo rotó antes que nosotros, descartamos la nuestra y reintentamos sobre la suya
+            SessionKey rotated = newSession(recipientKey);
+            if (current == null ? sessions.putIfAbsent(peerId, rotated) == null : sessions.replace(peerId, current, rotated)) {
+                log.debug("Session key rotated for peer {} (keyId {})", peerId, rotated.keyId());
+            }
+        }
+    }
+
+    private SessionKey newSession(PublicKey recipientKey) throws GeneralSecurityException {
+        SecretKey dataKey = encryptDecryptMessageUtil.generateDataKey();
+        String wrappedKey = encryptDecryptMessageUtil.wrapDataKey(dataKey, recipientKey);
+        return new SessionKey(UUID.randomUUID().toString(), dataKey, wrappedKey, recipientKey, System.nanoTime(), new AtomicInteger());
+    }
+
+    private record SessionKey(String keyId, SecretKey dataKey, String wrappedKey, PublicKey recipientKey,
+                              long createdAtNanos, AtomicInteger uses) {
+
+        boolean tryAcquire(PublicKey requestedKey, int maxMessages, long maxAgeNanos) {
+            // PublicKeyCache devuelve siempre la misma instancia: la comparación por referencia es el caso normal
+            boolean sameRecipient = recipientKey == requestedKey || recipientKey.equals(requestedKey);
+            if (!sameRecipient || System.nanoTime() - createdAtNanos > maxAgeNanos) {
+                return false;
+            }
+            return uses.incrementAndGet() <= maxMessages;
+        }
+    }
+}
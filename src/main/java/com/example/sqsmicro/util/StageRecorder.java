@@ -0,0 +1,55 @@
+package com.example.sqsmicro.util;
+
+/**
+ * Destino de las duraciones por etapa de un mensaje, ya ligado a su peer y message_type (ver {@link PipelineMetrics}).
+ * Los componentes que no conocen esos tags (ej: {@link EncryptDecryptMessageUtil}) solo reciben el recorder.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@FunctionalInterface
+public interface StageRecorder {
+
+    // Sin métricas (tests, benchmarks, API anterior)
+    StageRecorder NONE = (stage, nanos) -> {
+    };
+
+    void record(PipelineStage stage, long nanos);
+
+    /**
+     * Cuenta un mensaje con su resultado (ej: 'sent', 'failed').
+     */
+    default void count(String outcome) {
+    }
+
+    /**
+     * Ejecuta y registra la duración, también si falla.
+     */
+    default <T, E extends Exception> T time(PipelineStage stage, StageCall<T, E> call) throws E {
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    default <E extends Exception> void run(PipelineStage stage, StageRun<E> run) throws E {
+        long start = System.nanoTime();
+        try {
+            run.run();
+        } finally {
+            record(stage, System.nanoTime() - start);
+        }
+    }
+
+    @FunctionalInterface
+    interface StageCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    interface StageRun<E extends Exception> {
+        void run() throws E;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.sqsmicro.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executor particionado por clave: las tareas con la misma clave se ejecutan en orden de envío en el mismo hilo
+ * (lane), las de claves distintas en paralelo en lanes distintos.
+ * Con clave = uniqueFlightId, las actualizaciones de un mismo vuelo nunca se procesan fuera de orden.
+ *
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class StripedExecutor {
+
+    private final ExecutorService[] lanes;
+
+    public StripedExecutor(int lanes, ThreadFactory threadFactory) {
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("lanes must be > 0");
+        }
+        this.lanes = new ExecutorService[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Object key, Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, lane(key));
+    }
+
+    public int getLanes() {
+        return lanes.length;
+    }
+
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private ExecutorService lane(Object key) {
+        // Sin clave => lane 0 (orden total entre mensajes sin uniqueFlightId)
+        int hash = key != null ? key.hashCode() : 0;
+        // Mezcla de bits para que claves con hashCode parecidos no caigan siempre en las mismas lanes
+        hash ^= (hash >>> 16);
+        return lanes[Math.floorMod(hash, lanes.length)];
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.sqsmicro.builders;
+
+import com.example.sqslib.iata.FlightLegIdentifierType;
+import com.example.sqslib.iata.IATAAIDXFlightLegNotifRQ;
+import com.example.sqslib.service.XmlService;
+import com.example.sqsmicro.records.FlightLegNotification;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+public class FlightNotificationBuilderTests {
+
+    @Mock
+    private XmlService xmlService;
+
+    @Test
+    void testTemplate_ShouldRenderSameXmlAsJaxbAndMarshalOnlyOnce() {
+        when(xmlService.toXml(any())).thenAnswer(invocation -> marshal(invocation.getArgument(0)));
+        FlightNotificationBuilder builder = new FlightNotificationBuilder(xmlService, true);
+        FlightLegNotification first = new FlightLegNotification("QR", "1234", "LAX", "GRU", "SCH", "c-1",
+                LocalDateTime.of(2026, 1, 11, 10, 15, 30), LocalDateTime.of(2026, 1, 11, 9, 0, 0));
+        FlightLegNotification second = new FlightLegNotification("B&B", "77", "MAD", "GRU", "DEL", "c-2",
+                LocalDateTime.of(2026, 1, 12, 23, 59, 59), LocalDateTime.of(2026, 1, 12, 0, 0, 0));
+
+        assertEquals(marshal(builder.buildNotif(first)), builder.toXml(first));
+        assertEquals(marshal(builder.buildNotif(second)), builder.toXml(second));
+        // Un solo marshal JAXB: el del prototipo
+        verify(xmlService, times(1)).toXml(any());
+    }
+
+    @Test
+    void testTemplate_ShouldRenderDateOnlyOriginDateLikeJaxb() {
+        // Como en payloads.txt: OriginDate como xs:date, sin hora
+        when(xmlService.toXml(any())).thenAnswer(invocation -> marshal(invocation.getArgument(0)).replaceAll(
+                "<OriginDate>(\\d{4}-\\d{2}-\\d{2})T[^<]*</OriginDate>", "<OriginDate>$1</OriginDate>"));
+        FlightNotificationBuilder builder = new FlightNotificationBuilder(xmlService, true);
+        FlightLegNotification notification = new FlightLegNotification("QR", "1234", "LAX", "GRU", "SCH", "c-1",
+                LocalDateTime.of(2026, 1, 11, 23, 23, 44), LocalDateTime.of(2026, 1, 11, 23, 23, 44));
+
+        String xml = builder.toXml(notification);
+
+        assertTrue(xml.contains("<OriginDate>2026-01-11</OriginDate>"), xml);
+        assertTrue(xml.contains("TimeStamp=\"2026-01-11T23:23:44\""), xml);
+        verify(xmlService, times(1)).toXml(any());
+    }
+
+    @Test
+    void testTemplate_ShouldFallBackToJaxbWhenPrototypeCannotBeSplit() {
+        when(xmlService.toXml(any())).thenReturn("<IATA_AIDX_FlightLegNotifRQ/>");
+        FlightNotificationBuilder builder = new FlightNotificationBuilder(xmlService, true);
+        FlightLegNotification notification = builder.newNotification("QR", "1234");
+
+        assertEquals("<IATA_AIDX_FlightLegNotifRQ/>", builder.toXml(notification));
+        assertEquals("<IATA_AIDX_FlightLegNotifRQ/>", builder.toXml(notification));
+        // Prototipo + 2 mensajes por JAXB
+        verify(xmlService, times(3)).toXml(any());
+    }
+
+    /**
+     * Marshaller de prueba con el mismo escape que JAXB (la librería real no está disponible en el test).
+     */
+    private static String marshal(IATAAIDXFlightLegNotifRQ notif) {
+        FlightLegIdentifierType legId = notif.getFlightLegs().getFirst().getLegIdentifier();
+        return "<IATA_AIDX_FlightLegNotifRQ TimeStamp=\"" + notif.getTimeStamp()
+                + "\" TransactionIdentifier=\"" + escape(notif.getTransactionIdentifier())
+                + "\" CorrelationID=\"" + escape(notif.getCorrelationID()) + "\">"
+                + "<FlightLeg><LegIdentifier><Airline CodeContext=\"IATA\">" + escape(legId.getAirline().getValue()) + "</Airline>"
+                + "<FlightNumber>" + escape(legId.getFlightNumber()) + "</FlightNumber>"
+                + "<DepartureAirport>" + escape(legId.getDepartureAirport().getValue()) + "</DepartureAirport>"
+                + "<ArrivalAirport>" + escape(legId.getArrivalAirport().getValue()) + "</ArrivalAirport>"
+                + "<OriginDate>" + legId.getOriginDate().toXMLFormat() + "</OriginDate></LegIdentifier>"
+                + "<LegData><OperationalStatus>" + escape(notif.getFlightLegs().getFirst().getLegData().getOperationalStatuses().get(0).getValue())
+                + "</OperationalStatus></LegData></FlightLeg></IATA_AIDX_FlightLegNotifRQ>";
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
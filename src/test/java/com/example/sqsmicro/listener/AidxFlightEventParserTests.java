@@ -0,0 +1,71 @@
+package com.example.sqsmicro.listener;
+
+import com.example.sqsmicro.records.FlightEvent;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class AidxFlightEventParserTests {
+
+    private final AidxFlightEventParser parser = new AidxFlightEventParser();
+
+    @Test
+    void testParse_ShouldExtractEveryLegOfMultiLegNotification() throws Exception {
+        String xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <iata:IATA_AIDX_FlightLegNotifRQ xmlns:iata="http://www.iata.org/IATA/2007/00"
+                        TimeStamp="2026-01-11T10:15:30" CorrelationID="c-1" Version="21.3">
+                  <iata:Originator CompanyShortName="MicroService_B" Code="QR"/>
+                  <iata:FlightLeg>
+                    <iata:LegIdentifier>
+                      <iata:Airline CodeContext="IATA">QR</iata:Airline>
+                      <iata:FlightNumber>1234</iata:FlightNumber>
+                      <iata:DepartureAirport CodeContext="IATA">LAX</iata:DepartureAirport>
+                      <iata:ArrivalAirport CodeContext="IATA">GRU</iata:ArrivalAirport>
+                      <iata:OriginDate>2026-01-11</iata:OriginDate>
+                    </iata:LegIdentifier>
+                    <iata:LegData>
+                      <iata:OperationalStatus CodeContext="IATA">SCH</iata:OperationalStatus>
+                      <iata:OperationalStatus CodeContext="IATA">DEL</iata:OperationalStatus>
+                      <iata:ServiceType>J</iata:ServiceType>
+                    </iata:LegData>
+                  </iata:FlightLeg>
+                  <iata:FlightLeg>
+                    <iata:LegIdentifier>
+                      <iata:Airline CodeContext="IATA">QR</iata:Airline>
+                      <iata:FlightNumber>1234</iata:FlightNumber>
+                      <iata:DepartureAirport CodeContext="IATA">GRU</iata:DepartureAirport>
+                      <iata:ArrivalAirport CodeContext="IATA">EZE</iata:ArrivalAirport>
+                      <iata:OriginDate>2026-01-11</iata:OriginDate>
+                    </iata:LegIdentifier>
+                  </iata:FlightLeg>
+                </iata:IATA_AIDX_FlightLegNotifRQ>
+                """;
+
+        FlightEvent event = parser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("IATA_AIDX_FlightLegNotifRQ", event.messageType());
+        assertEquals("c-1", event.correlationId());
+        assertEquals("2026-01-11T10:15:30", event.timeStamp());
+        assertEquals(List.of(
+                new FlightEvent.Leg("QR", "1234", "2026-01-11", "LAX", "GRU", List.of("SCH", "DEL")),
+                new FlightEvent.Leg("QR", "1234", "2026-01-11", "GRU", "EZE", List.of())), event.legs());
+    }
+
+    @Test
+    void testParse_ShouldRejectDtdAndMalformedPayloads() {
+        String xxe = "<?xml version=\"1.0\"?><!DOCTYPE r [<!ENTITY x SYSTEM \"file:///etc/passwd\">]><r>&x;</r>";
+        assertThrows(XMLStreamException.class, () -> parser.parse(new ByteArrayInputStream(xxe.getBytes(StandardCharsets.UTF_8))));
+        assertThrows(XMLStreamException.class, () -> parser.parse(new ByteArrayInputStream("LAX 123".getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.sqsmicro.listener;
+
+import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.services.DeadLetterService;
+import com.example.sqsmicro.util.MessageEnvelope;
+import com.example.sqsmicro.util.StripedExecutor;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.crypto.AEADBadTagException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+public class SqsBatchListenerConsumerTests {
+
+    @Mock
+    private InboundMessageProcessor inboundMessageProcessor;
+
+    @Mock
+    private BatchAcknowledgement<String> acknowledgement;
+
+    @Mock
+    private DeadLetterService deadLetterService;
+
+    private final JsonMapper jsonMapper = new JsonMapper();
+    private final InboundMessageReader inboundMessageReader = new InboundMessageReader(jsonMapper);
+    private final StripedExecutor consumerDecryptExecutor = new StripedExecutor(4, Executors.defaultThreadFactory());
+
+    @AfterEach
+    void tearDown() {
+        consumerDecryptExecutor.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListenBatch_ShouldAcknowledgeOnlyProcessedMessages() throws Exception {
+        List<Message<String>> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // Un vuelo distinto por mensaje: el fallo de uno no retiene a los demás
+            messages.add(json(new MessageDto(Map.of(), "payload-" + i, "key", "QR-" + (1000 + i) + "-20260111-LAX-GRU")));
+        }
+        doAnswer(invocation -> {
+            MessageDto messageDto = invocation.getArgument(0);
+            if (messageDto.encryptedPayload().equals("payload-3")) {
+                throw new IllegalStateException("bad tag");
+            }
+            return null;
+        }).when(inboundMessageProcessor).processInbound(any(MessageDto.class));
+        SqsBatchListenerConsumer consumer = new SqsBatchListenerConsumer(inboundMessageProcessor, inboundMessageReader, consumerDecryptExecutor, deadLetterService);
+
+        consumer.listenBatch(messages, acknowledgement);
+
+        ArgumentCaptor<Collection<Message<String>>> acknowledged = ArgumentCaptor.forClass(Collection.class);
+        verify(acknowledgement).acknowledge(acknowledged.capture());
+        assertEquals(9, acknowledged.getValue().size());
+        assertFalse(acknowledged.getValue().contains(messages.get(3)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListenBatch_ShouldKeepPerFlightOrderAndHoldBackAfterFailure() throws Exception {
+        // 3 vuelos intercalados, 4 actualizaciones cada uno
+        List<Message<String>> messages = new ArrayList<>();
+        for (int update = 0; update < 4; update++) {
+            for (String flight : List.of("QR-1234-20260111-LAX-GRU", "UA-0096-20260111-SFO-LHR", "LA-0800-20260111-GRU-SCL")) {
+                messages.add(json(new MessageDto(Map.of(), flight + "#" + update, "key", flight)));
+            }
+        }
+        ConcurrentMap<String, List<Integer>> processedOrder = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            MessageDto messageDto = invocation.getArgument(0);
+            int update = Integer.parseInt(messageDto.encryptedPayload().substring(messageDto.encryptedPayload().indexOf('#') + 1));
+            processedOrder.computeIfAbsent(messageDto.uniqueFlightId(), k -> new CopyOnWriteArrayList<>()).add(update);
+            if (messageDto.encryptedPayload().equals("UA-0096-20260111-SFO-LHR#1")) {
+                throw new IllegalStateException("bad tag");
+            }
+            return null;
+        }).when(inboundMessageProcessor).processInbound(any(MessageDto.class));
+        SqsBatchListenerConsumer consumer = new SqsBatchListenerConsumer(inboundMessageProcessor, inboundMessageReader, consumerDecryptExecutor, deadLetterService);
+
+        consumer.listenBatch(messages, acknowledgement);
+
+        assertEquals(List.of(0, 1, 2, 3), processedOrder.get("QR-1234-20260111-LAX-GRU"));
+        assertEquals(List.of(0, 1, 2, 3), processedOrder.get("LA-0800-20260111-GRU-SCL"));
+        // Tras fallar la actualización #1, la #2 y #3 del mismo vuelo no se procesan
+        assertEquals(List.of(0, 1), processedOrder.get("UA-0096-20260111-SFO-LHR"));
+        ArgumentCaptor<Collection<Message<String>>> acknowledged = ArgumentCaptor.forClass(Collection.class);
+        verify(acknowledgement).acknowledge(acknowledged.capture());
+        assertEquals(9, acknowledged.getValue().size());
+        assertTrue(acknowledged.getValue().stream().noneMatch(m -> inboundMessageReader.read(m.getPayload()).encryptedPayload().startsWith("UA-0096-20260111-SFO-LHR#2")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListenBatch_ShouldReadJsonAndBinaryEnvelopesInTheSameBatch() throws Exception {
+        MessageDto fromJson = new MessageDto(Map.of("correlation_id", "c-1"), "payload-json", "a2V5", "QR-1234-20260111-LAX-GRU");
+        MessageDto fromEnvelope = new MessageDto(Map.of("correlation_id", "c-2"), "payload-binary", "a2V5", "UA-0096-20260111-SFO-LHR");
+        List<Message<String>> messages = List.of(
+                json(fromJson),
+                MessageBuilder.withPayload(MessageEnvelope.encode(fromEnvelope)).build(),
+                MessageBuilder.withPayload("not-a-message").build());
+        List<MessageDto> received = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            received.add(invocation.getArgument(0));
+            return null;
+        }).when(inboundMessageProcessor).processInbound(any(MessageDto.class));
+        SqsBatchListenerConsumer consumer = new SqsBatchListenerConsumer(inboundMessageProcessor, inboundMessageReader, consumerDecryptExecutor, deadLetterService);
+
+        consumer.listenBatch(messages, acknowledgement);
+
+        assertTrue(received.contains(fromJson));
+        assertTrue(received.contains(fromEnvelope));
+        // El body ilegible no se confirma
+        ArgumentCaptor<Collection<Message<String>>> acknowledged = ArgumentCaptor.forClass(Collection.class);
+        verify(acknowledgement).acknowledge(acknowledged.capture());
+        assertEquals(2, acknowledged.getValue().size());
+        assertFalse(acknowledged.getValue().contains(messages.get(2)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListenBatch_ShouldAcknowledgeMessagesMovedToTheDeadLetterQueue() throws Exception {
+        List<Message<String>> messages = List.of(
+                json(new MessageDto(Map.of(), "payload-ok", "key", "QR-1234-20260111-LAX-GRU")),
+                json(new MessageDto(Map.of(), "payload-tampered", "key", "UA-0096-20260111-SFO-LHR")),
+                json(new MessageDto(Map.of(), "payload-in-progress", "key", "LA-0800-20260111-GRU-SCL")),
+                MessageBuilder.withPayload("not-a-message").build());
+        AEADBadTagException badTag = new AEADBadTagException("Tag mismatch");
+        doAnswer(invocation -> {
+            MessageDto messageDto = invocation.getArgument(0);
+            if (messageDto.encryptedPayload().equals("payload-tampered")) {
+                throw badTag;
+            }
+            if (messageDto.encryptedPayload().equals("payload-in-progress")) {
+                throw new MessageInProgressException("c-1|LA-0800-20260111-GRU-SCL");
+            }
+            return null;
+        }).when(inboundMessageProcessor).processInbound(any(MessageDto.class));
+        when(deadLetterService.handleFailure(any(), any())).thenReturn(true);
+        SqsBatchListenerConsumer consumer = new SqsBatchListenerConsumer(inboundMessageProcessor, inboundMessageReader, consumerDecryptExecutor, deadLetterService);
+
+        consumer.listenBatch(messages, acknowledgement);
+
+        verify(deadLetterService).handleFailure(messages.get(1), badTag);
+        verify(deadLetterService).handleFailure(eq(messages.get(3)), isA(RuntimeException.class));
+        // Otra copia en proceso: ni DLQ ni confirmación
+        verify(deadLetterService, never()).handleFailure(eq(messages.get(2)), any());
+        ArgumentCaptor<Collection<Message<String>>> acknowledged = ArgumentCaptor.forClass(Collection.class);
+        verify(acknowledgement).acknowledge(acknowledged.capture());
+        assertEquals(3, acknowledged.getValue().size());
+        assertFalse(acknowledged.getValue().contains(messages.get(2)));
+    }
+
+    private Message<String> json(MessageDto messageDto) {
+        return MessageBuilder.withPayload(jsonMapper.writeValueAsString(messageDto)).build();
+    }
+}
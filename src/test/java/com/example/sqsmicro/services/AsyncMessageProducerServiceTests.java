@@ -0,0 +1,103 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.records.ProducerReceipt;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+public class AsyncMessageProducerServiceTests {
+
+    @Mock
+    private MessageProducerService messageProducerService;
+
+    private ExecutorService cryptoExecutor;
+    private ExecutorService sendExecutor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        this.cryptoExecutor = Executors.newSingleThreadExecutor();
+        this.sendExecutor = Executors.newCachedThreadPool();
+        this.meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cryptoExecutor.shutdownNow();
+        sendExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Debe retornar el receipt de inmediato, rechazar al llenarse la cola y liberar capacidad al terminar el envío")
+    void testSubmit_ShouldApplyBackpressure() throws Exception {
+        CountDownLatch releaseSend = new CountDownLatch(1);
+        when(messageProducerService.prepareMessage(any(), anyString(), anyMap())).thenAnswer(invocation ->
+                new MessageDto(invocation.getArgument(2), "encrypted", "key", "QR-1234-20260111-LAX-GRU"));
+        doAnswer(invocation -> {
+            releaseSend.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(messageProducerService).send(any(), any(MessageDto.class));
+        AsyncMessageProducerService service = new AsyncMessageProducerService(
+                messageProducerService, cryptoExecutor, new TaskExecutorAdapter(sendExecutor), meterRegistry, 2);
+
+        ProducerReceipt first = service.submit("<FlightLeg n=\"1\"/>", Map.of("message_type", "test"));
+        ProducerReceipt second = service.submit("<FlightLeg n=\"2\"/>", null);
+        assertThrows(ProducerQueueFullException.class, () -> service.submit("<FlightLeg n=\"3\"/>", null));
+        assertEquals(1.0, meterRegistry.get("sqs.producer.rejected").counter().count());
+
+        releaseSend.countDown();
+        assertEquals(first.messageId(), first.completion().get(5, TimeUnit.SECONDS));
+        assertEquals(second.messageId(), second.completion().get(5, TimeUnit.SECONDS));
+
+        // La capacidad se libera en whenComplete, que puede ejecutarse un instante después del get()
+        ProducerReceipt third = null;
+        for (int attempt = 0; third == null && attempt < 50; attempt++) {
+            try {
+                third = service.submit("<FlightLeg n=\"3\"/>", null);
+            } catch (ProducerQueueFullException e) {
+                Thread.sleep(10);
+            }
+        }
+        assertEquals(third.messageId(), third.completion().get(5, TimeUnit.SECONDS));
+        assertTrue(meterRegistry.get("sqs.producer.latency").timer().count() >= 2);
+    }
+
+    @Test
+    @DisplayName("Debe completar el receipt con error si el cifrado falla")
+    void testSubmit_ShouldFailReceiptWhenEncryptionFails() throws Exception {
+        when(messageProducerService.prepareMessage(any(), anyString(), anyMap())).thenThrow(new IllegalStateException("no public key"));
+        AsyncMessageProducerService service = new AsyncMessageProducerService(
+                messageProducerService, cryptoExecutor, new TaskExecutorAdapter(sendExecutor), meterRegistry, 2);
+
+        ProducerReceipt receipt = service.submit("<FlightLeg/>", null);
+        assertThrows(Exception.class, () -> receipt.completion().get(5, TimeUnit.SECONDS));
+        assertEquals(0, service.getQueueDepth());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.PeerDirectoryListing;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class ConfigSnapshotStoreTests {
+
+    @Test
+    void testWriteAndRead_ShouldRoundTripPropertiesAndEtag(@TempDir Path dir) {
+        ConfigSnapshotStore snapshotStore = new ConfigSnapshotStore(dir.resolve("config.snapshot").toString());
+        PeerDirectoryListing listing = new PeerDirectoryListing(Map.of(
+                "airport-c", Map.of("config.queues.inbound", "cola-aws-sqs-1", "config.crypto.format-version", 2),
+                "airlines-b", Map.of("config.queues.inbound", "cola-aws-sqs-2", "config.enabled", true)), "\"v3\"");
+
+        snapshotStore.write(listing);
+
+        assertEquals(listing, snapshotStore.read().orElseThrow());
+    }
+
+    @Test
+    void testRead_ShouldIgnoreCorruptedSnapshot(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("config.snapshot");
+        ConfigSnapshotStore snapshotStore = new ConfigSnapshotStore(file.toString());
+        snapshotStore.write(new PeerDirectoryListing(Map.of("airport-c", Map.of("config.queues.inbound", "cola-aws-sqs-1")), null));
+
+        byte[] content = Files.readAllBytes(file);
+        content[content.length - 12] ^= 0x01; // Un bit cambiado en el cuerpo
+        Files.write(file, content);
+        assertTrue(snapshotStore.read().isEmpty());
+
+        Files.write(file, new byte[] {0x43, 0x46});
+        assertTrue(snapshotStore.read().isEmpty());
+    }
+
+    @Test
+    void testDisabled_ShouldNotTouchDisk() {
+        ConfigSnapshotStore snapshotStore = new ConfigSnapshotStore("");
+        assertFalse(snapshotStore.isEnabled());
+        assertTrue(snapshotStore.read().isEmpty());
+    }
+}
@@ -0,0 +1,439 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.PeerRoute;
+import com.example.sqsmicro.util.EnvelopeFormat;
+import com.example.sqsmicro.util.KeyRegistry;
+import com.example.sqsmicro.util.PayloadCodec;
+import com.example.sqsmicro.util.PayloadFormat;
+import com.example.sqsmicro.util.PublicKeyCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.nio.file.Path;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class ConfigurationLoaderServiceTests {
+
+    private static final String AIRPORT_C_CONFIG = """
+            {"name":"airport-c","propertySources":[{"name":"airport-c.yml","source":{
+              "config.security.public-key":"PEM-1","config.queues.inbound":"cola-aws-sqs-1"}}]}
+            """;
+
+    private static final String AIRLINES_B_CONFIG = """
+            {"name":"airlines-b","propertySources":[{"name":"airlines-b.yml","source":{"config.queues.inbound":"cola-aws-sqs-2"}}]}
+            """;
+
+    private MockRestServiceServer configServer;
+    private ConfigurationLoaderService configurationLoaderService;
+
+    @BeforeEach
+    void setup() {
+        RestClient.Builder builder = RestClient.builder().baseUrl("http://config");
+        this.configServer = MockRestServiceServer.bindTo(builder).build();
+        this.configurationLoaderService = new ConfigurationLoaderService(new SpringConfigPeerDirectory(builder.build()),
+                new PublicKeyCache(), new ConfigSnapshotStore(""), Duration.ofMinutes(10), 0.1, Duration.ofSeconds(5), Duration.ofMinutes(5),
+                Duration.ofSeconds(5), Duration.ofSeconds(5), 4, "airlines-b", List.of(), PayloadFormat.AES_ECB, EnvelopeFormat.JSON);
+    }
+
+    @AfterEach
+    void tearDown() {
+        configurationLoaderService.shutdown();
+    }
+
+    @Test
+    void testConcurrentColdMisses_ShouldHitConfigServerOnce() throws Exception {
+        configServer.expect(ExpectedCount.once(), requestTo("http://config/airport-c/default"))
+                .andRespond(request -> {
+                    // Respuesta lenta: todos los hilos llegan mientras la primera carga está en curso
+                    sleep(200);
+                    return withSuccess(AIRPORT_C_CONFIG, MediaType.APPLICATION_JSON).createResponse(request);
+                });
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return configurationLoaderService.getPeerPublicKey("airport-c");
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("PEM-1", result.get(5, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+        configServer.verify();
+    }
+
+    @Test
+    void testFailedRefresh_ShouldKeepServingLastGoodConfig() {
+        configServer.expect(ExpectedCount.once(), requestTo("http://config/airport-c/default"))
+                .andRespond(withSuccess(AIRPORT_C_CONFIG, MediaType.APPLICATION_JSON));
+        configServer.expect(ExpectedCount.once(), requestTo("http://config/airport-c/default"))
+                .andRespond(withServerError());
+
+        configurationLoaderService.loadConfigurationFor("airport-c");
+        assertEquals("PEM-1", configurationLoaderService.loadConfigurationFor("airport-c").get("config.security.public-key"));
+        assertEquals("PEM-1", configurationLoaderService.getPeerPublicKey("airport-c"));
+        configServer.verify();
+    }
+
+    @Test
+    void testPeerRoute_ShouldBeResolvedOncePerRefresh() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        PublicKey publicKey = generator.generateKeyPair().getPublic();
+        String pem = toPem(publicKey);
+        configServer.expect(ExpectedCount.once(), requestTo("http://config/airport-c/default"))
+                .andRespond(withSuccess("""
+                        {"name":"airport-c","propertySources":[{"name":"airport-c.yml","source":{
+                          "config.security.public-key":"%s","config.queues.inbound":"cola-aws-sqs-1",
+                          "config.target-name":"Airport C","config.crypto.format-version":"1"}}]}
+                        """.formatted(pem), MediaType.APPLICATION_JSON));
+
+        PeerRoute route = configurationLoaderService.getPeerRoute("airport-c");
+        assertEquals("cola-aws-sqs-1", route.targetQueue());
+        assertEquals("Airport C", route.targetName());
+        assertEquals(publicKey, route.publicKey());
+        assertEquals(KeyRegistry.keyId(publicKey), route.keyId());
+        assertEquals(PayloadFormat.AES_ECB, route.payloadFormat());
+        // Sin refresh de por medio, cada envío lee la misma instancia
+        assertSame(route, configurationLoaderService.getPeerRoute("airport-c"));
+        configServer.verify();
+    }
+
+    @Test
+    void testPeerRoute_ShouldUseGcmOnlyWhenThePeerDeclaresVersion2() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        String pem = toPem(generator.generateKeyPair().getPublic());
+        configServer.expect(ExpectedCount.once(), requestTo("http://config/airport-c/default"))
+                .andRespond(withSuccess("""
+                        {"name":"airport-c","propertySources":[{"name":"airport-c.yml","source":{
+                          "config.security.public-key":"%s","config.queues.inbound":"cola-aws-sqs-1"}}]}
+                        """.formatted(pem), MediaType.APPLICATION_JSON));
+        configServer.expect(ExpectedCount.once(), requestTo("http://config/handler-d/default"))
+                .andRespond(withSuccess("""
+                        {"name":"handler-d","propertySources":[{"name":"handler-d.yml","source":{
+                          "config.security.public-key":"%s","config.queues.inbound":"cola-handler-d",
+                          "config.crypto.format-version":"2","config.messaging.content-encoding":"deflate"}}]}
+                        """.formatted(pem), MediaType.APPLICATION_JSON));
+
+        // Un peer que no publica 'format-version' puede no entender GCM: se le envía el formato legado
+        assertEquals(PayloadFormat.AES_ECB, configurationLoaderService.getPeerRoute("airport-c").payloadFormat());
+        assertEquals(PayloadFormat.AES_GCM, configurationLoaderService.getPeerRoute("handler-d").payloadFormat());
+        // Igual con la compresión: solo para peers que declaran el codec
+        assertEquals(PayloadCodec.IDENTITY, configurationLoaderService.getPeerRoute("airport-c").payloadCodec());
+        assertEquals(PayloadCodec.DEFLATE, configurationLoaderService.getPeerRoute("handler-d").payloadCodec());
+        configServer.verify();
+    }
+
+    @Test
+    void testPeerRoute_ShouldRejectKeyIdThatDoesNotMatchThePublicKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        String pem = toPem(generator.generateKeyPair().getPublic());
+        String otherKeyId = KeyRegistry.keyId(generator.generateKeyPair().getPublic());
+        configServer.expect(ExpectedCount.once(), requestTo("http://config/airport-c/default"))
+                .andRespond(withSuccess("""
+                        {"name":"airport-c","propertySources":[{"name":"airport-c.yml","source":{
+                          "config.security.public-key":"%s","config.security.key-id":"%s",
+                          "config.queues.inbound":"cola-aws-sqs-1","config.target-name":"Airport C"}}]}
+                        """.formatted(pem, otherKeyId), MediaType.APPLICATION_JSON));
+
+        assertThrows(IllegalStateException.class, () -> configurationLoaderService.getPeerRoute("airport-c"));
+        configServer.verify();
+    }
+
+    @Test
+    void testPeerWithoutValidRoute_ShouldOnlyWaitOnTheFirstAccess() {
+        configServer.expect(ExpectedCount.once(), requestTo("http://config/handler-d/default"))
+                .andRespond(withSuccess("""
+                        {"name":"handler-d","propertySources":[{"name":"handler-d.yml","source":{
+                          "config.queues.inbound":"cola-handler-d"}}]}
+                        """, MediaType.APPLICATION_JSON));
+        configServer.expect(ExpectedCount.once(), requestTo("http://config/unknown/default"))
+                .andRespond(withServerError());
+
+        // Config sin clave y peer que no carga: el primer envío espera al HTTP, los siguientes fallan sin pedirlo otra vez
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalStateException.class, () -> configurationLoaderService.getPeerRoute("handler-d"));
+            assertThrows(IllegalStateException.class, () -> configurationLoaderService.getPeerRoute("unknown"));
+        }
+        configServer.verify();
+    }
+
+    @Test
+    void testDirectoryRefresh_ShouldBulkLoadAllPeersAndRevalidateWithEtag() throws Exception {
+        String pem = generatePem();
+        RestClient.Builder builder = RestClient.builder().baseUrl("http://odata");
+        MockRestServiceServer odataServer = MockRestServiceServer.bindTo(builder).build();
+        ConfigurationLoaderService odataLoader = new ConfigurationLoaderService(new ODataPeerDirectory(builder.build()),
+                new PublicKeyCache(), new ConfigSnapshotStore(""), Duration.ofMinutes(10), 0.1, Duration.ofSeconds(5), Duration.ofMinutes(5),
+                Duration.ofSeconds(5), Duration.ofSeconds(5), 4, "airlines-b", List.of(), PayloadFormat.AES_ECB, EnvelopeFormat.JSON);
+        // Una sola petición para todo el directorio
+        odataServer.expect(ExpectedCount.once(), requestTo("http://odata/Participants"))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(withSuccess("""
+                        {"value":[
+                          {"Id":"1","Name":"cola-qr","IataCode":"QR","KafkaTopicStatus":true,"PublicKey":"%s","PublicKeyStatus":"Active","RecipientType":"Airline"},
+                          {"Id":"2","Name":"cola-ib","IataCode":"IB","KafkaTopicStatus":true,"PublicKey":"%s","PublicKeyStatus":"Active","RecipientType":"Airline"}]}
+                        """.formatted(pem, pem), MediaType.APPLICATION_JSON).header(HttpHeaders.ETAG, "\"v1\""));
+        // Sin cambios: 304 y se conserva el snapshot
+        odataServer.expect(ExpectedCount.once(), requestTo("http://odata/Participants"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+        try {
+            odataLoader.loadDirectoryAsync().get(5, TimeUnit.SECONDS);
+            PeerRoute route = odataLoader.getPeerRoute("IB");
+            assertEquals("cola-ib", route.targetQueue());
+            assertEquals("cola-qr", odataLoader.getPeerRoute("QR").targetQueue());
+
+            odataLoader.loadDirectoryAsync().get(5, TimeUnit.SECONDS);
+            assertSame(route, odataLoader.getPeerRoute("IB"));
+            odataServer.verify();
+        } finally {
+            odataLoader.shutdown();
+        }
+    }
+
+    @Test
+    void testDirectoryRefresh_ShouldDropRoutesOfPeersThatLeftOrLostTheirKey() throws Exception {
+        String pem = generatePem();
+        RestClient.Builder builder = RestClient.builder().baseUrl("http://odata");
+        MockRestServiceServer odataServer = MockRestServiceServer.bindTo(builder).build();
+        ConfigurationLoaderService odataLoader = new ConfigurationLoaderService(new ODataPeerDirectory(builder.build()),
+                new PublicKeyCache(), new ConfigSnapshotStore(""), Duration.ofMinutes(10), 0.1, Duration.ofSeconds(5), Duration.ofMinutes(5),
+                Duration.ofSeconds(5), Duration.ofSeconds(5), 4, "QR", List.of(), PayloadFormat.AES_ECB, EnvelopeFormat.JSON);
+        odataServer.expect(ExpectedCount.once(), requestTo("http://odata/Participants"))
+                .andRespond(withSuccess("""
+                        {"value":[
+                          {"Id":"1","Name":"cola-qr","IataCode":"QR","KafkaTopicStatus":true,"PublicKey":"%s","RecipientType":"Airline"},
+                          {"Id":"2","Name":"cola-ib","IataCode":"IB","KafkaTopicStatus":true,"PublicKey":"%s","RecipientType":"Airline"},
+                          {"Id":"3","Name":"cola-ma","IataCode":"MA","KafkaTopicStatus":true,"PublicKey":"%s","RecipientType":"Airport"}]}
+                        """.formatted(pem, pem, pem), MediaType.APPLICATION_JSON).header(HttpHeaders.ETAG, "\"v1\""));
+        // IB pierde la clave y MA ya no está en el directorio
+        odataServer.expect(ExpectedCount.once(), requestTo("http://odata/Participants"))
+                .andRespond(withSuccess("""
+                        {"value":[
+                          {"Id":"1","Name":"cola-qr","IataCode":"QR","KafkaTopicStatus":true,"PublicKey":"%s","RecipientType":"Airline"},
+                          {"Id":"2","Name":"cola-ib","IataCode":"IB","KafkaTopicStatus":true,"RecipientType":"Airline"}]}
+                        """.formatted(pem), MediaType.APPLICATION_JSON).header(HttpHeaders.ETAG, "\"v2\""));
+        try {
+            odataLoader.loadDirectoryAsync().get(5, TimeUnit.SECONDS);
+            assertEquals("cola-ib", odataLoader.getPeerRoute("IB").targetQueue());
+            assertEquals("cola-ma", odataLoader.getPeerRoute("MA").targetQueue());
+
+            odataLoader.loadDirectoryAsync().get(5, TimeUnit.SECONDS);
+            assertEquals("cola-qr", odataLoader.getPeerRoute("QR").targetQueue());
+            assertThrows(IllegalStateException.class, () -> odataLoader.getPeerRoute("IB"));
+            assertThrows(IllegalStateException.class, () -> odataLoader.getPeerRoute("MA"));
+            odataServer.verify();
+        } finally {
+            odataLoader.shutdown();
+        }
+    }
+
+    @Test
+    void testODataDirectory_ShouldResolveTheOwnQueueByIataCode() throws Exception {
+        RestClient.Builder builder = RestClient.builder().baseUrl("http://odata");
+        MockRestServiceServer odataServer = MockRestServiceServer.bindTo(builder).build();
+        // En OData la config propia también se busca por IataCode: 'airlines-b' no existe en /Participants
+        ConfigurationLoaderService odataLoader = new ConfigurationLoaderService(new ODataPeerDirectory(builder.build()),
+                new PublicKeyCache(), new ConfigSnapshotStore(""), Duration.ofMinutes(10), 0.1, Duration.ofSeconds(5), Duration.ofMinutes(5),
+                Duration.ofSeconds(5), Duration.ofSeconds(5), 4, "QR", List.of(), PayloadFormat.AES_ECB, EnvelopeFormat.JSON);
+        odataServer.expect(ExpectedCount.once(), requestTo("http://odata/Participants"))
+                .andRespond(withSuccess("""
+                        {"value":[
+                          {"Id":"1","Name":"cola-qr","IataCode":"QR","KafkaTopicStatus":true,"RecipientType":"Airline"},
+                          {"Id":"2","Name":"cola-ib","IataCode":"IB","KafkaTopicStatus":true,"RecipientType":"Airline"}]}
+                        """, MediaType.APPLICATION_JSON));
+        try {
+            odataLoader.warmUp();
+
+            assertEquals("cola-qr", odataLoader.getMyListeningQueue());
+            odataServer.verify();
+        } finally {
+            odataLoader.shutdown();
+        }
+    }
+
+    @Test
+    void testWarmUp_ShouldServeSnapshotBeforeConfigServerAnswers(@TempDir Path snapshotDir) throws Exception {
+        ConfigSnapshotStore snapshotStore = new ConfigSnapshotStore(snapshotDir.resolve("config.snapshot").toString());
+        RestClient.Builder firstBuilder = RestClient.builder().baseUrl("http://config");
+        MockRestServiceServer firstServer = MockRestServiceServer.bindTo(firstBuilder).build();
+        firstServer.expect(ExpectedCount.once(), requestTo("http://config/airlines-b/default"))
+                .andRespond(withSuccess(AIRLINES_B_CONFIG, MediaType.APPLICATION_JSON).header(HttpHeaders.ETAG, "\"v1\""));
+        ConfigurationLoaderService previousPod = newLoader(firstBuilder, snapshotStore);
+        try {
+            previousPod.loadDirectoryAsync().get(5, TimeUnit.SECONDS);
+        } finally {
+            previousPod.shutdown();
+        }
+
+        // Pod nuevo: el Config Server tarda, pero la cola propia sale del snapshot sin esperar
+        CountDownLatch configServerSlow = new CountDownLatch(1);
+        RestClient.Builder builder = RestClient.builder().baseUrl("http://config");
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(ExpectedCount.once(), requestTo("http://config/airlines-b/default"))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(request -> {
+                    await(configServerSlow);
+                    return withStatus(HttpStatus.NOT_MODIFIED).createResponse(request);
+                });
+        ConfigurationLoaderService newPod = newLoader(builder, snapshotStore);
+        try {
+            newPod.warmUp();
+            assertEquals("cola-aws-sqs-2", newPod.getMyListeningQueue());
+
+            configServerSlow.countDown();
+            newPod.loadDirectoryAsync().get(5, TimeUnit.SECONDS);
+            assertEquals("cola-aws-sqs-2", newPod.getMyListeningQueue());
+            server.verify();
+        } finally {
+            newPod.shutdown();
+        }
+    }
+
+    @Test
+    void testSlowFetch_ShouldNotDelayOtherServices() throws Exception {
+        CountDownLatch otherServiceLoaded = new CountDownLatch(1);
+        RestClient.Builder builder = RestClient.builder().baseUrl("http://config");
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+        server.expect(ExpectedCount.once(), requestTo("http://config/airport-c/default"))
+                .andRespond(request -> {
+                    await(otherServiceLoaded);
+                    return withSuccess(AIRPORT_C_CONFIG, MediaType.APPLICATION_JSON).createResponse(request);
+                });
+        server.expect(ExpectedCount.once(), requestTo("http://config/airlines-b/default"))
+                .andRespond(withSuccess(AIRLINES_B_CONFIG, MediaType.APPLICATION_JSON));
+        ConfigurationLoaderService loader = newLoader(builder, new ConfigSnapshotStore(""));
+        try {
+            CompletableFuture<Map<String, Object>> slowLoad = loader.loadAsync("airport-c");
+            // Con el HTTP en el hilo del scheduler esta carga quedaría detrás de la lenta
+            assertEquals("cola-aws-sqs-2", loader.loadAsync("airlines-b").get(2, TimeUnit.SECONDS).get("config.queues.inbound"));
+            otherServiceLoaded.countDown();
+            assertEquals("PEM-1", slowLoad.get(5, TimeUnit.SECONDS).get("config.security.public-key"));
+            server.verify();
+        } finally {
+            loader.shutdown();
+        }
+    }
+
+    @Test
+    void testOwnQueue_ShouldWaitUntilTheConfigServerAnswers() {
+        RestClient.Builder builder = RestClient.builder().baseUrl("http://config");
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(ExpectedCount.once(), requestTo("http://config/airlines-b/default"))
+                .andRespond(withServerError());
+        server.expect(ExpectedCount.manyTimes(), requestTo("http://config/airlines-b/default"))
+                .andRespond(withSuccess(AIRLINES_B_CONFIG, MediaType.APPLICATION_JSON));
+        ConfigurationLoaderService loader = newLoader(builder, Duration.ofMillis(20), Duration.ofSeconds(5));
+        try {
+            // Arranque en frío sin snapshot: sin cola el listener no puede arrancar, no hay copia vieja que servir
+            assertEquals("cola-aws-sqs-2", loader.getMyListeningQueue());
+        } finally {
+            loader.shutdown();
+        }
+    }
+
+    @Test
+    void testOwnQueue_ShouldFailStartupWhenItCannotBeResolved() {
+        RestClient.Builder builder = RestClient.builder().baseUrl("http://config");
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(ExpectedCount.manyTimes(), requestTo("http://config/airlines-b/default"))
+                .andRespond(withServerError());
+        ConfigurationLoaderService loader = newLoader(builder, Duration.ofMillis(20), Duration.ofMillis(300));
+        try {
+            IllegalStateException e = assertThrows(IllegalStateException.class, loader::getMyListeningQueue);
+            assertTrue(e.getMessage().contains("airlines-b"));
+        } finally {
+            loader.shutdown();
+        }
+    }
+
+    @Test
+    void testBackoffDelay_ShouldGrowExponentiallyUpToMax() {
+        assertEquals(5_000, configurationLoaderService.backoffDelayMillis(1));
+        assertEquals(10_000, configurationLoaderService.backoffDelayMillis(2));
+        assertEquals(160_000, configurationLoaderService.backoffDelayMillis(6));
+        assertEquals(300_000, configurationLoaderService.backoffDelayMillis(7));
+        assertEquals(300_000, configurationLoaderService.backoffDelayMillis(100));
+    }
+
+    private static ConfigurationLoaderService newLoader(RestClient.Builder builder, Duration backoffInitial, Duration ownQueueTimeout) {
+        return new ConfigurationLoaderService(new SpringConfigPeerDirectory(builder.build()), new PublicKeyCache(),
+                new ConfigSnapshotStore(""), Duration.ofMinutes(10), 0.1, backoffInitial, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), ownQueueTimeout, 4, "airlines-b", List.of(), PayloadFormat.AES_ECB, EnvelopeFormat.JSON);
+    }
+
+    private static ConfigurationLoaderService newLoader(RestClient.Builder builder, ConfigSnapshotStore snapshotStore) {
+        return new ConfigurationLoaderService(new SpringConfigPeerDirectory(builder.build()), new PublicKeyCache(),
+                snapshotStore, Duration.ofMinutes(10), 0.1, Duration.ofSeconds(5), Duration.ofMinutes(5),
+                Duration.ofSeconds(5), Duration.ofSeconds(5), 4, "airlines-b", List.of(), PayloadFormat.AES_ECB, EnvelopeFormat.JSON);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String generatePem() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return toPem(generator.generateKeyPair().getPublic());
+    }
+
+    private static String toPem(PublicKey publicKey) {
+        // '\\n' escapado: el PEM va dentro de un string JSON
+        return "-----BEGIN PUBLIC KEY-----\\n" + Base64.getEncoder().encodeToString(publicKey.getEncoded()) + "\\n-----END PUBLIC KEY-----";
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
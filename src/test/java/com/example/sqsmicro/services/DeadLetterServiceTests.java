@@ -0,0 +1,249 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.listener.FailureClass;
+import com.example.sqsmicro.records.ReplayReport;
+import com.example.sqsmicro.util.MalformedEnvelopeException;
+import com.example.sqsmicro.util.MessageEnvelope;
+import com.example.sqsmicro.util.PayloadCodec;
+import com.example.sqsmicro.util.PayloadTooLargeException;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.Visibility;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import javax.crypto.AEADBadTagException;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+public class DeadLetterServiceTests {
+
+    private static final String BODY = "{\"encryptedPayload\":\"tampered\"}";
+
+    @Mock
+    private SqsAsyncClient sqsAsyncClient;
+
+    @Mock
+    private ConfigurationLoaderService configurationLoaderService;
+
+    @Mock
+    private Visibility visibility;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DeadLetterService deadLetterService;
+
+    @BeforeEach
+    void setUp() {
+        // Stubs comunes: no todos los tests llegan a SQS
+        lenient().when(configurationLoaderService.getMyListeningQueue()).thenReturn("cola-aws-sqs-2");
+        lenient().when(sqsAsyncClient.getQueueUrl(any(GetQueueUrlRequest.class))).thenAnswer(invocation -> {
+            GetQueueUrlRequest request = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(GetQueueUrlResponse.builder().queueUrl("http://sqs/" + request.queueName()).build());
+        });
+        lenient().when(visibility.changeToAsync(anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+        deadLetterService = new DeadLetterService(sqsAsyncClient, configurationLoaderService, meterRegistry,
+                true, "", 5, Duration.ofSeconds(5), Duration.ofMinutes(15));
+    }
+
+    @Test
+    void testFailureClass_ShouldTreatCryptoAndParseErrorsAsPermanent() {
+        assertEquals(FailureClass.PERMANENT, FailureClass.of(new AEADBadTagException("Tag mismatch")));
+        assertEquals(FailureClass.PERMANENT, FailureClass.of(new GeneralSecurityException("Unknown or expired key id: k-1")));
+        assertEquals(FailureClass.PERMANENT, FailureClass.of(new XMLStreamException("Empty AIDX document")));
+        assertEquals(FailureClass.PERMANENT, FailureClass.of(assertThrows(MalformedEnvelopeException.class, () -> MessageEnvelope.decode("AAAAAAAA.Y2lwaGVy"))));
+        assertEquals(FailureClass.PERMANENT, FailureClass.of(assertThrows(MalformedEnvelopeException.class, () -> MessageEnvelope.decode("#not-base64#.Y2lwaGVy"))));
+        assertEquals(FailureClass.PERMANENT, FailureClass.of(new IllegalStateException("wrapped", new AEADBadTagException("Tag mismatch"))));
+        assertEquals(FailureClass.TRANSIENT, FailureClass.of(new UncheckedIOException(new IOException("Connection reset"))));
+        assertEquals(FailureClass.TRANSIENT, FailureClass.of(new IllegalStateException("bad tag")));
+    }
+
+    @Test
+    void testFailureClass_ShouldTreatDecompressionLimitAsPermanent() {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(new byte[PayloadCodec.MAX_DECODED_BYTES + 1]);
+        deflater.finish();
+        byte[] bomb = new byte[64 * 1024];
+        int length = deflater.deflate(bomb);
+        deflater.end();
+
+        PayloadTooLargeException tooLarge = assertThrows(PayloadTooLargeException.class, () -> {
+            try (InputStream in = PayloadCodec.DEFLATE.decode(new ByteArrayInputStream(bomb, 0, length))) {
+                in.readAllBytes();
+            }
+        });
+        assertEquals(FailureClass.PERMANENT, FailureClass.of(tooLarge));
+        assertEquals(FailureClass.PERMANENT, FailureClass.of(new UncheckedIOException(tooLarge)));
+    }
+
+    @Test
+    void testFailureClass_ShouldRetryGenericIllegalArgument() {
+        // Un IllegalArgumentException cualquiera (ej: de un bug o de una dependencia) no dice nada del mensaje
+        assertEquals(FailureClass.TRANSIENT, FailureClass.of(new IllegalArgumentException("Invalid queue name")));
+        assertEquals(FailureClass.TRANSIENT, FailureClass.of(new IllegalStateException("wrapped", new IllegalArgumentException("timeout must be positive"))));
+    }
+
+    @Test
+    void testHandleFailure_ShouldDeadLetterPermanentFailureWithDiagnostics() {
+        when(sqsAsyncClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(SendMessageResponse.builder().messageId("dlq-1").build()));
+
+        boolean acknowledge = deadLetterService.handleFailure(message(1), new AEADBadTagException("Tag mismatch"));
+
+        assertTrue(acknowledge);
+        ArgumentCaptor<SendMessageRequest> sent = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsAsyncClient).sendMessage(sent.capture());
+        assertEquals("http://sqs/cola-aws-sqs-2-dlq", sent.getValue().queueUrl());
+        assertEquals(BODY, sent.getValue().messageBody());
+        Map<String, MessageAttributeValue> attributes = sent.getValue().messageAttributes();
+        assertEquals("PERMANENT", attributes.get(DeadLetterService.FAILURE_CLASS).stringValue());
+        assertEquals("javax.crypto.AEADBadTagException: Tag mismatch", attributes.get(DeadLetterService.ERROR).stringValue());
+        assertEquals("cola-aws-sqs-2", attributes.get(DeadLetterService.SOURCE_QUEUE).stringValue());
+        assertEquals("1", attributes.get(DeadLetterService.RECEIVE_COUNT).stringValue());
+        verify(visibility, never()).changeToAsync(anyInt());
+        assertEquals(1, meterRegistry.get("sqs.consumer.dead_letter").tag("outcome", "dead_lettered").counter().count());
+    }
+
+    @Test
+    void testHandleFailure_ShouldBackOffTransientFailureUntilMaxReceives() {
+        when(sqsAsyncClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(SendMessageResponse.builder().messageId("dlq-1").build()));
+        UncheckedIOException failure = new UncheckedIOException(new IOException("Connection reset"));
+
+        assertFalse(deadLetterService.handleFailure(message(3), failure));
+        verify(visibility).changeToAsync(20);
+        verify(sqsAsyncClient, never()).sendMessage(any(SendMessageRequest.class));
+
+        // Quinta entrega: ya no se reintenta
+        assertTrue(deadLetterService.handleFailure(message(5), failure));
+        verify(sqsAsyncClient).sendMessage(any(SendMessageRequest.class));
+    }
+
+    @Test
+    void testHandleFailure_ShouldKeepMessageWhenDeadLetterSendFails() {
+        when(sqsAsyncClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("SQS unavailable")));
+
+        assertFalse(deadLetterService.handleFailure(message(1), new AEADBadTagException("Tag mismatch")));
+        verify(visibility).changeToAsync(5);
+    }
+
+    @Test
+    void testBackoffSeconds_ShouldDoublePerDeliveryUpToMax() {
+        Duration initial = Duration.ofSeconds(5);
+        Duration max = Duration.ofMinutes(15);
+        assertEquals(5, DeadLetterService.backoffSeconds(1, initial, max));
+        assertEquals(10, DeadLetterService.backoffSeconds(2, initial, max));
+        assertEquals(640, DeadLetterService.backoffSeconds(8, initial, max));
+        assertEquals(900, DeadLetterService.backoffSeconds(9, initial, max));
+        assertEquals(900, DeadLetterService.backoffSeconds(1000, initial, max));
+    }
+
+    @Test
+    void testReplay_ShouldMoveMessagesBackAndDeleteOnlyAcceptedOnes() {
+        List<software.amazon.awssdk.services.sqs.model.Message> deadLetters = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            deadLetters.add(software.amazon.awssdk.services.sqs.model.Message.builder()
+                    .messageId("m-" + i)
+                    .receiptHandle("r-" + i)
+                    .body("body-" + i)
+                    .messageAttributes(Map.of(
+                            DeadLetterService.FAILURE_CLASS, MessageAttributeValue.builder().dataType("String").stringValue("PERMANENT").build(),
+                            "contentType", MessageAttributeValue.builder().dataType("String").stringValue("application/json").build()))
+                    .build());
+        }
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenAnswer(invocation -> {
+            ReceiveMessageRequest request = invocation.getArgument(0);
+            int count = Math.min(request.maxNumberOfMessages(), deadLetters.size());
+            List<software.amazon.awssdk.services.sqs.model.Message> batch = new ArrayList<>(deadLetters.subList(0, count));
+            deadLetters.subList(0, count).clear();
+            return CompletableFuture.completedFuture(ReceiveMessageResponse.builder().messages(batch).build());
+        });
+        List<SendMessageBatchRequest> sentBatches = new ArrayList<>();
+        when(sqsAsyncClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenAnswer(invocation -> {
+            SendMessageBatchRequest request = invocation.getArgument(0);
+            sentBatches.add(request);
+            // La entrada '1' del primer lote es rechazada por SQS
+            boolean rejectOne = sentBatches.size() == 1;
+            return CompletableFuture.completedFuture(SendMessageBatchResponse.builder()
+                    .successful(request.entries().stream()
+                            .filter(entry -> !(rejectOne && entry.id().equals("1")))
+                            .map(entry -> SendMessageBatchResultEntry.builder().id(entry.id()).messageId("new-" + entry.id()).build())
+                            .toList())
+                    .failed(rejectOne ? List.of(BatchResultErrorEntry.builder().id("1").message("throttled").build()) : List.of())
+                    .build());
+        });
+        List<DeleteMessageBatchRequest> deleted = new ArrayList<>();
+        when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenAnswer(invocation -> {
+            deleted.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(DeleteMessageBatchResponse.builder().build());
+        });
+
+        ReplayReport report = deadLetterService.replay(100);
+
+        assertEquals(new ReplayReport(11, 1, "cola-aws-sqs-2-dlq", "cola-aws-sqs-2"), report);
+        assertEquals(2, sentBatches.size());
+        assertEquals("http://sqs/cola-aws-sqs-2", sentBatches.get(0).queueUrl());
+        assertEquals("body-0", sentBatches.get(0).entries().get(0).messageBody());
+        // Los attributes de diagnóstico no vuelven a la cola de entrada
+        assertEquals(Map.of("contentType", MessageAttributeValue.builder().dataType("String").stringValue("application/json").build()),
+                sentBatches.get(0).entries().get(0).messageAttributes());
+        assertEquals(9, deleted.get(0).entries().size());
+        assertTrue(deleted.get(0).entries().stream().noneMatch(entry -> entry.receiptHandle().equals("r-1")));
+        assertEquals("http://sqs/cola-aws-sqs-2-dlq", deleted.get(0).queueUrl());
+        assertEquals(2, deleted.get(1).entries().size());
+    }
+
+    private Message<String> message(int receiveCount) {
+        return MessageBuilder.withPayload(BODY)
+                .setHeader(SqsHeaders.SQS_QUEUE_NAME_HEADER, "cola-aws-sqs-2")
+                .setHeader(SqsHeaders.MessageSystemAttributes.SQS_APPROXIMATE_RECEIVE_COUNT, String.valueOf(receiveCount))
+                .setHeader(SqsHeaders.SQS_VISIBILITY_TIMEOUT_HEADER, visibility)
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.LoadReport;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+public class LoadGeneratorServiceTests {
+
+    @Mock
+    private MessageProducerService messageProducerService;
+
+    @Test
+    @DisplayName("Debe programar la rampa lineal y luego un envío cada 1/rate")
+    void testScheduledOffset_ShouldFollowRampProfile() {
+        long ramp = Duration.ofSeconds(10).toNanos();
+        // 100 msg/s con 10s de rampa: 500 mensajes en la rampa, el 500 sale justo al terminarla
+        assertEquals(0, LoadGeneratorService.scheduledOffsetNanos(0, 100, ramp));
+        assertEquals(ramp, LoadGeneratorService.scheduledOffsetNanos(500, 100, ramp));
+        assertEquals(ramp + Duration.ofMillis(10).toNanos(), LoadGeneratorService.scheduledOffsetNanos(501, 100, ramp));
+        // En la rampa los intervalos se achican
+        long first = LoadGeneratorService.scheduledOffsetNanos(1, 100, ramp);
+        long later = LoadGeneratorService.scheduledOffsetNanos(401, 100, ramp) - LoadGeneratorService.scheduledOffsetNanos(400, 100, ramp);
+        assertTrue(later < first);
+        // Sin rampa: ritmo constante desde el inicio
+        assertEquals(Duration.ofMillis(250).toNanos(), LoadGeneratorService.scheduledOffsetNanos(50, 200, 0));
+    }
+
+    @Test
+    @DisplayName("Debe enviar rate x duration mensajes, contar los fallos y reportar las latencias")
+    void testRun_ShouldSendAtTargetRate() throws Exception {
+        // Un solo stub para todas las llamadas: los envíos llegan en paralelo desde los hilos del generador
+        doAnswer(invocation -> {
+            if ("fail".equals(invocation.getArgument(0))) {
+                throw new IllegalStateException("queue unavailable");
+            }
+            return null;
+        }).when(messageProducerService).sendMessage(anyString(), anyMap());
+        LoadGeneratorService loadGeneratorService = new LoadGeneratorService(
+                messageProducerService,
+                new ByteArrayResource("ok-1\nok-2\n\nok-3\nfail\n".getBytes(StandardCharsets.UTF_8)),
+                200, Duration.ZERO, Duration.ofMillis(500), 4, Duration.ofSeconds(5));
+
+        LoadReport report = loadGeneratorService.run();
+
+        // 200 msg/s durante 0.5s = 100 envíos; uno de cada 4 payloads falla
+        assertEquals(75, report.sent());
+        assertEquals(25, report.failed());
+        assertTrue(report.elapsedMillis() >= 495);
+        assertTrue(report.p50Micros() <= report.p99Micros() && report.p99Micros() <= report.p999Micros());
+        assertTrue(report.p999Micros() <= report.maxMicros());
+        verify(messageProducerService, atLeastOnce()).sendMessage(eq("ok-1"), anyMap());
+    }
+}
@@ -3,19 +3,61 @@ package com.example.sqsmicro.services;
 import com.example.sqslib.producer.SqsProducerService;
 import com.example.sqslib.service.XmlService;
 import com.example.sqsmicro.builders.FlightNotificationBuilder;
+import com.example.sqsmicro.records.BatchEntryResult;
 import com.example.sqsmicro.records.MessageDto;
+import com.example.sqsmicro.records.OutboundMessage;
+import com.example.sqsmicro.records.PeerRoute;
+import com.example.sqsmicro.util.ClaimCheck;
 import com.example.sqsmicro.util.EncryptDecryptMessageUtil;
+import com.example.sqsmicro.util.EnvelopeFormat;
+import com.example.sqsmicro.util.FileSystemBlobStore;
+import com.example.sqsmicro.util.KeyRegistry;
+import com.example.sqsmicro.util.MessageEnvelope;
+import com.example.sqsmicro.util.PayloadCodec;
+import com.example.sqsmicro.util.PayloadCompressor;
+import com.example.sqsmicro.util.PayloadFormat;
+import com.example.sqsmicro.util.MessageTrace;
+import com.example.sqsmicro.util.PipelineMetrics;
+import com.example.sqsmicro.util.SessionKeyManager;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.operations.SendResult;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -40,6 +82,23 @@ public class MessageProducerServiceTests {
     @Mock
         private XmlService xmlService; // Mock de encriptación
 
+    @Mock
+    private SessionKeyManager sessionKeyManager;
+
+    @Mock
+    private SqsBatchSender sqsBatchSender;
+
+    @Mock
+    private SqsTemplate sqsTemplate;
+
+    @Mock
+    private ClaimCheck claimCheck;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics(meterRegistry, "airlines-b", List.of("airport-c"));
+    private final MessageTrace messageTrace = new MessageTrace(1, 256);
+
     private MessageProducerService messageProducerService; // Servicio (B) bajo test
 
     @Test
@@ -49,9 +108,10 @@ public class MessageProducerServiceTests {
         Map<String,String> metadata = new HashMap<>();
         String publicKey = "key-public-123";
         metadata.put("publicKey", publicKey);
-        when(configurationLoaderService.getPeerTargetName("airport-c")).thenReturn("cola-aws-sqs-1");
+        when(configurationLoaderService.getPeerRoute("airport-c"))
+                .thenReturn(new PeerRoute("airport-c", "Airport C", "cola-aws-sqs-1", null, publicKey, PayloadFormat.AES_GCM, EnvelopeFormat.JSON, PayloadCodec.IDENTITY));
         // 1. Stub to encrypt the payload (your service now returns String)
-        when(encryptDecryptMessageUtil.encryptHybrid(eq(rawPayload)))
+        when(encryptDecryptMessageUtil.encryptHybrid(eq(rawPayload), any(), eq(PayloadFormat.AES_GCM), any()))
                 .thenReturn(new EncryptDecryptMessageUtil.EncryptedMessageBundle(rawPayload, publicKey));
         // The safest and cleanest way is to instantiate it:
         messageProducerService = new MessageProducerService(
@@ -59,13 +119,208 @@ public class MessageProducerServiceTests {
                 encryptDecryptMessageUtil,
                 xmlService,
                 flightNotificationBuilder,
-                configurationLoaderService
+                configurationLoaderService,
+                sessionKeyManager,
+                new PayloadCompressor("identity", 1024, 6, 65536, 1),
+                claimCheck,
+                sqsBatchSender,
+                Executors.newSingleThreadExecutor(),
+                sqsTemplate,
+                pipelineMetrics,
+                messageTrace,
+                "cola-aws-sqs-1",
+                "airport-c"
         );
         // WHEN
         messageProducerService.sendMessage(rawPayload, metadata);
         // THEN
-        verify(encryptDecryptMessageUtil).encryptHybrid(rawPayload);
+        verify(encryptDecryptMessageUtil).encryptHybrid(eq(rawPayload), any(), eq(PayloadFormat.AES_GCM), any());
         // We verified that the sender was called with the transformed data
-        verify(sqsProducerLib).send(eq("cola-aws-sqs-1"), any(MessageDto.class));
+        ArgumentCaptor<MessageDto> sent = ArgumentCaptor.forClass(MessageDto.class);
+        verify(sqsProducerLib).send(eq("cola-aws-sqs-1"), sent.capture());
+        assertEquals("airlines-b", sent.getValue().metadata().get(PipelineMetrics.SENDER_ID));
+        assertNotNull(sent.getValue().metadata().get(MessageDto.MESSAGE_ID));
+        // Etapas medidas por peer destino
+        assertEquals(1, meterRegistry.get("sqs.producer.stage").tag("stage", "config_resolve").tag("peer", "airport-c").timer().count());
+        assertEquals(1, meterRegistry.get("sqs.producer.stage").tag("stage", "sqs_send").tag("peer", "airport-c").timer().count());
+        assertEquals(1.0, meterRegistry.get("sqs.producer.messages").tag("peer", "airport-c").tag("outcome", "sent").counter().count());
+    }
+
+    @Test
+    void testSendMessage_ShouldCompressOnlyPayloadsAboveMinSize() throws Exception {
+        when(configurationLoaderService.getPeerRoute("airport-c"))
+                .thenReturn(new PeerRoute("airport-c", "Airport C", "cola-aws-sqs-1", null, "key-id-123", PayloadFormat.AES_GCM, EnvelopeFormat.JSON, PayloadCodec.DEFLATE));
+        when(encryptDecryptMessageUtil.encryptHybrid(any(ByteBuffer.class), any(), eq(PayloadFormat.AES_GCM), any()))
+                .thenReturn(new EncryptDecryptMessageUtil.EncryptedMessageBundle("compressed", "key"));
+        when(encryptDecryptMessageUtil.encryptHybrid(anyString(), any(), eq(PayloadFormat.AES_GCM), any()))
+                .thenReturn(new EncryptDecryptMessageUtil.EncryptedMessageBundle("plain", "key"));
+        messageProducerService = new MessageProducerService(sqsProducerLib, encryptDecryptMessageUtil, xmlService,
+                flightNotificationBuilder, configurationLoaderService, sessionKeyManager,
+                new PayloadCompressor("deflate", 256, 6, 65536, 1), claimCheck,
+                sqsBatchSender, Executors.newSingleThreadExecutor(), sqsTemplate, pipelineMetrics, messageTrace, "cola-aws-sqs-1", "airport-c");
+
+        MessageDto large = messageProducerService.prepareMessage("airport-c", "<FlightLeg/>".repeat(100), new HashMap<>());
+        // Un 'content_encoding' que venga en la petición no debe sobrevivir si el payload no se comprime
+        MessageDto small = messageProducerService.prepareMessage("airport-c", "<FlightLeg/>",
+                new HashMap<>(Map.of(PayloadCodec.METADATA_KEY, "deflate")));
+
+        assertEquals("compressed", large.encryptedPayload());
+        assertEquals("deflate", large.metadata().get(PayloadCodec.METADATA_KEY));
+        assertEquals("plain", small.encryptedPayload());
+        assertFalse(small.metadata().containsKey(PayloadCodec.METADATA_KEY));
+    }
+
+    @Test
+    void testSendMessage_ShouldNotCompressForPeersThatDoNotDeclareTheCodec() throws Exception {
+        when(configurationLoaderService.getPeerRoute("airport-c"))
+                .thenReturn(new PeerRoute("airport-c", "Airport C", "cola-aws-sqs-1", null, "key-id-123", PayloadFormat.AES_GCM, EnvelopeFormat.JSON, PayloadCodec.IDENTITY));
+        when(encryptDecryptMessageUtil.encryptHybrid(anyString(), any(), eq(PayloadFormat.AES_GCM), any()))
+                .thenReturn(new EncryptDecryptMessageUtil.EncryptedMessageBundle("plain", "key"));
+        messageProducerService = new MessageProducerService(sqsProducerLib, encryptDecryptMessageUtil, xmlService,
+                flightNotificationBuilder, configurationLoaderService, sessionKeyManager,
+                new PayloadCompressor("deflate", 256, 6, 65536, 1), claimCheck,
+                sqsBatchSender, Executors.newSingleThreadExecutor(), sqsTemplate, pipelineMetrics, messageTrace, "cola-aws-sqs-1", "airport-c");
+
+        // Un consumidor anterior a la compresión descifraría bytes comprimidos como si fueran el payload
+        MessageDto message = messageProducerService.prepareMessage("airport-c", "<FlightLeg/>".repeat(100), new HashMap<>());
+
+        assertEquals("plain", message.encryptedPayload());
+        assertFalse(message.metadata().containsKey(PayloadCodec.METADATA_KEY));
+    }
+
+    @Test
+    void testPrepareMessage_ShouldSendOversizedPayloadByClaimCheck(@TempDir Path blobRoot) throws Exception {
+        String sealedPayload = Base64.getEncoder().encodeToString(new byte[4096]);
+        when(configurationLoaderService.getPeerRoute("airport-c"))
+                .thenReturn(new PeerRoute("airport-c", "Airport C", "cola-aws-sqs-1", null, "key-id-123", PayloadFormat.AES_GCM, EnvelopeFormat.JSON, PayloadCodec.IDENTITY));
+        when(encryptDecryptMessageUtil.encryptHybrid(anyString(), any(), eq(PayloadFormat.AES_GCM), any()))
+                .thenReturn(new EncryptDecryptMessageUtil.EncryptedMessageBundle(sealedPayload, "key"));
+        messageProducerService = new MessageProducerService(sqsProducerLib, encryptDecryptMessageUtil, xmlService,
+                flightNotificationBuilder, configurationLoaderService, sessionKeyManager,
+                new PayloadCompressor("identity", 1024, 6, 65536, 1),
+                new ClaimCheck(new FileSystemBlobStore(blobRoot), true, 1024),
+                sqsBatchSender, Executors.newSingleThreadExecutor(), sqsTemplate, pipelineMetrics, messageTrace, "cola-aws-sqs-1", "airport-c");
+
+        MessageDto message = messageProducerService.prepareMessage("airport-c", "<FlightLeg/>", new HashMap<>());
+
+        assertNull(message.encryptedPayload());
+        assertEquals(4096, Files.size(blobRoot.resolve(message.metadata().get(ClaimCheck.REFERENCE_KEY) + ".blob")));
+        assertEquals("key", message.encryptedKey());
+    }
+
+    @Test
+    void testSendMessage_ShouldSendBinaryEnvelopeToPeersThatNegotiatedIt() throws Exception {
+        when(configurationLoaderService.getPeerRoute("airport-c"))
+                .thenReturn(new PeerRoute("airport-c", "Airport C", "cola-aws-sqs-1", null, "key-id-123", PayloadFormat.AES_GCM, EnvelopeFormat.BINARY, PayloadCodec.IDENTITY));
+        when(encryptDecryptMessageUtil.encryptHybrid(anyString(), any(), eq(PayloadFormat.AES_GCM), any()))
+                .thenReturn(new EncryptDecryptMessageUtil.EncryptedMessageBundle("Y2lwaGVydGV4dA==", "a2V5"));
+        messageProducerService = new MessageProducerService(sqsProducerLib, encryptDecryptMessageUtil, xmlService,
+                flightNotificationBuilder, configurationLoaderService, sessionKeyManager,
+                new PayloadCompressor("identity", 1024, 6, 65536, 1), claimCheck,
+                sqsBatchSender, Executors.newSingleThreadExecutor(), sqsTemplate, pipelineMetrics, messageTrace, "cola-aws-sqs-1", "airport-c");
+
+        messageProducerService.sendMessage("airport-c", "<FlightLeg/>", new HashMap<>(Map.of("correlation_id", "c-1")));
+
+        ArgumentCaptor<Object> body = ArgumentCaptor.forClass(Object.class);
+        verify(sqsTemplate).send(eq("cola-aws-sqs-1"), body.capture());
+        verifyNoInteractions(sqsProducerLib);
+        MessageDto sent = MessageEnvelope.decode((String) body.getValue());
+        assertEquals("Y2lwaGVydGV4dA==", sent.encryptedPayload());
+        assertEquals("a2V5", sent.encryptedKey());
+        assertEquals("c-1", sent.metadata().get("correlation_id"));
+    }
+
+    @Test
+    void testSendMessage_ShouldSendToTheInboundQueueOfTheTarget() throws Exception {
+        when(configurationLoaderService.getPeerRoute("handler-d"))
+                .thenReturn(new PeerRoute("handler-d", "Handler D", "cola-handler-d", null, "key-id-d", PayloadFormat.AES_GCM, EnvelopeFormat.JSON, PayloadCodec.IDENTITY));
+        when(encryptDecryptMessageUtil.encryptHybrid(anyString(), any(), eq(PayloadFormat.AES_GCM), any()))
+                .thenReturn(new EncryptDecryptMessageUtil.EncryptedMessageBundle("sealed", "key"));
+        when(sqsBatchSender.sendBatch(anyString(), anyList(), eq(EnvelopeFormat.JSON)))
+                .thenReturn(List.of(BatchEntryResult.sent(0, "m-1")));
+        messageProducerService = new MessageProducerService(sqsProducerLib, encryptDecryptMessageUtil, xmlService,
+                flightNotificationBuilder, configurationLoaderService, sessionKeyManager,
+                new PayloadCompressor("identity", 1024, 6, 65536, 1), claimCheck,
+                sqsBatchSender, Executors.newSingleThreadExecutor(), sqsTemplate, pipelineMetrics, messageTrace, "cola-aws-sqs-1", "airport-c");
+
+        messageProducerService.sendMessage("handler-d", "<FlightLeg/>", new HashMap<>(Map.of("correlation_id", "c-1")));
+        messageProducerService.sendBatch("handler-d", List.of(new OutboundMessage("<FlightLeg/>", Map.of("correlation_id", "c-2"))));
+
+        // Cifrado para handler-d => a la cola de handler-d, no a 'outbound-queue'
+        verify(sqsProducerLib).send(eq("cola-handler-d"), any(MessageDto.class));
+        verify(sqsBatchSender).sendBatch(eq("cola-handler-d"), anyList(), eq(EnvelopeFormat.JSON));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFanOut_ShouldEncryptOnceAndWrapTheDataKeyPerRecipient() throws Exception {
+        when(configurationLoaderService.getPeerRoute("airport-c"))
+                .thenReturn(new PeerRoute("airport-c", "Airport C", "cola-airport-c", null, "key-id-c", PayloadFormat.AES_GCM, EnvelopeFormat.JSON, PayloadCodec.IDENTITY));
+        when(configurationLoaderService.getPeerRoute("handler-d"))
+                .thenReturn(new PeerRoute("handler-d", "Handler D", "cola-handler-d", null, "key-id-d", PayloadFormat.AES_GCM, EnvelopeFormat.JSON, PayloadCodec.IDENTITY));
+        when(configurationLoaderService.getPeerRoute("unknown"))
+                .thenThrow(new IllegalStateException("No route available for peer unknown"));
+        SecretKey dataKey = new SecretKeySpec(new byte[32], "AES");
+        when(encryptDecryptMessageUtil.generateDataKey()).thenReturn(dataKey);
+        when(encryptDecryptMessageUtil.encryptWithDataKey(anyString(), eq(dataKey), eq(PayloadFormat.AES_GCM), any())).thenReturn("sealed");
+        when(encryptDecryptMessageUtil.wrapDataKey(eq(dataKey), any())).thenReturn("wrapped");
+        when(sqsBatchSender.sendBatch(anyString(), anyList(), eq(EnvelopeFormat.JSON)))
+                .thenAnswer(invocation -> List.of(BatchEntryResult.sent(0, "m-" + invocation.getArgument(0))));
+        messageProducerService = new MessageProducerService(sqsProducerLib, encryptDecryptMessageUtil, xmlService,
+                flightNotificationBuilder, configurationLoaderService, sessionKeyManager,
+                new PayloadCompressor("identity", 1024, 6, 65536, 1), claimCheck,
+                sqsBatchSender, Executors.newFixedThreadPool(2), sqsTemplate, pipelineMetrics, messageTrace, "cola-aws-sqs-1", "airport-c");
+
+        Map<String, BatchEntryResult> results = messageProducerService.fanOut(
+                List.of("airport-c", "unknown", "handler-d"), "<FlightLeg/>", Map.of("correlation_id", "c-1"));
+
+        assertEquals(List.of("airport-c", "unknown", "handler-d"), List.copyOf(results.keySet()));
+        assertEquals("m-cola-airport-c", results.get("airport-c").messageId());
+        assertEquals("m-cola-handler-d", results.get("handler-d").messageId());
+        assertEquals(2, results.get("handler-d").index());
+        assertFalse(results.get("unknown").success());
+        // Un solo cifrado AES para todos los destinos; un wrap RSA por destinatario
+        verify(encryptDecryptMessageUtil, times(1)).encryptWithDataKey(anyString(), eq(dataKey), eq(PayloadFormat.AES_GCM), any());
+        verify(encryptDecryptMessageUtil, times(2)).wrapDataKey(eq(dataKey), any());
+        ArgumentCaptor<List<MessageDto>> sent = ArgumentCaptor.forClass(List.class);
+        verify(sqsBatchSender).sendBatch(eq("cola-handler-d"), sent.capture(), eq(EnvelopeFormat.JSON));
+        assertEquals("key-id-d", sent.getValue().get(0).metadata().get(KeyRegistry.KEY_ID));
+        assertEquals("c-1", sent.getValue().get(0).metadata().get("correlation_id"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFanOut_ShouldKeepEveryCopyWhenPeersShareAFifoQueue() throws Exception {
+        when(configurationLoaderService.getPeerRoute("airport-c"))
+                .thenReturn(new PeerRoute("airport-c", "Airport C", "cola-shared.fifo", null, "key-id-c", PayloadFormat.AES_GCM, EnvelopeFormat.JSON, PayloadCodec.IDENTITY));
+        when(configurationLoaderService.getPeerRoute("handler-d"))
+                .thenReturn(new PeerRoute("handler-d", "Handler D", "cola-shared.fifo", null, "key-id-d", PayloadFormat.AES_GCM, EnvelopeFormat.JSON, PayloadCodec.IDENTITY));
+        SecretKey dataKey = new SecretKeySpec(new byte[32], "AES");
+        when(encryptDecryptMessageUtil.generateDataKey()).thenReturn(dataKey);
+        when(encryptDecryptMessageUtil.encryptWithDataKey(anyString(), eq(dataKey), eq(PayloadFormat.AES_GCM), any())).thenReturn("sealed");
+        when(encryptDecryptMessageUtil.wrapDataKey(eq(dataKey), any())).thenReturn("wrapped");
+        List<Message<Object>> sentMessages = new ArrayList<>();
+        when(sqsTemplate.sendMany(eq("cola-shared.fifo"), anyCollection())).thenAnswer(invocation -> {
+            Collection<Message<Object>> batch = invocation.getArgument(1);
+            sentMessages.addAll(batch);
+            return new SendResult.Batch<>(batch.stream()
+                    .map(message -> new SendResult<>(UUID.randomUUID(), "cola-shared.fifo", message, Map.of()))
+                    .toList(), List.of());
+        });
+        messageProducerService = new MessageProducerService(sqsProducerLib, encryptDecryptMessageUtil, xmlService,
+                flightNotificationBuilder, configurationLoaderService, sessionKeyManager,
+                new PayloadCompressor("identity", 1024, 6, 65536, 1), claimCheck,
+                new SqsBatchSender(sqsTemplate), Executors.newFixedThreadPool(2), sqsTemplate, pipelineMetrics, messageTrace, "cola-aws-sqs-1", "airport-c");
+
+        messageProducerService.fanOut(List.of("airport-c", "handler-d"), "<FlightLeg/>", Map.of("correlation_id", "c-1"));
+
+        // Un solo SendMessageBatch con las dos copias: mismo message_id, distinta deduplicación por destinatario
+        assertEquals(2, sentMessages.size());
+        MessageDto first = (MessageDto) sentMessages.get(0).getPayload();
+        MessageDto second = (MessageDto) sentMessages.get(1).getPayload();
+        assertEquals(first.metadata().get(MessageDto.MESSAGE_ID), second.metadata().get(MessageDto.MESSAGE_ID));
+        assertNotEquals(
+                sentMessages.get(0).getHeaders().get(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER),
+                sentMessages.get(1).getHeaders().get(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER));
     }
 }
@@ -0,0 +1,50 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.PeerDirectoryListing;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class SpringConfigPeerDirectoryTests {
+
+    @Test
+    void testFetchAll_ShouldSplitPropertySourcesPerService() {
+        RestClient.Builder builder = RestClient.builder().baseUrl("http://config");
+        MockRestServiceServer configServer = MockRestServiceServer.bindTo(builder).build();
+        configServer.expect(ExpectedCount.once(), requestTo("http://config/airlines-b%2Cairport-c/default"))
+                .andRespond(withSuccess("""
+                        {"name":"airlines-b,airport-c","propertySources":[
+                          {"name":"file:/config/airport-c-docker.yml","source":{"config.queues.inbound":"cola-docker"}},
+                          {"name":"file:/config/airport-c.yml","source":{"config.queues.inbound":"cola-aws-sqs-1","config.target-name":"Airport C"}},
+                          {"name":"file:/config/airlines-b.yml","source":{"config.queues.inbound":"cola-aws-sqs-2"}},
+                          {"name":"file:/config/application.yml","source":{"config.target-name":"default","config.crypto.format-version":"2"}}]}
+                        """, MediaType.APPLICATION_JSON).header(HttpHeaders.ETAG, "\"v7\""));
+
+        PeerDirectoryListing listing = new SpringConfigPeerDirectory(builder.build())
+                .fetchAll(List.of("airlines-b", "airport-c"), null);
+
+        assertEquals("\"v7\"", listing.etag());
+        // Prioridad: el profile gana al fichero base, y ambos a application.yml
+        assertEquals("cola-docker", listing.peers().get("airport-c").get(PeerDirectory.INBOUND_QUEUE_PROPERTY));
+        assertEquals("Airport C", listing.peers().get("airport-c").get(PeerDirectory.TARGET_NAME_PROPERTY));
+        assertEquals("2", listing.peers().get("airport-c").get(PeerDirectory.FORMAT_VERSION_PROPERTY));
+        assertEquals("cola-aws-sqs-2", listing.peers().get("airlines-b").get(PeerDirectory.INBOUND_QUEUE_PROPERTY));
+        assertEquals("default", listing.peers().get("airlines-b").get(PeerDirectory.TARGET_NAME_PROPERTY));
+        assertFalse(listing.peers().get("airlines-b").containsKey(PeerDirectory.PUBLIC_KEY_PROPERTY));
+        configServer.verify();
+    }
+}
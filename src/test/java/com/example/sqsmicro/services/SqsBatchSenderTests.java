@@ -0,0 +1,108 @@
+package com.example.sqsmicro.services;
+
+import com.example.sqsmicro.records.BatchEntryResult;
+import com.example.sqsmicro.records.MessageDto;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.operations.SendResult;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+public class SqsBatchSenderTests {
+
+    @Mock
+    private SqsTemplate sqsTemplate;
+
+    @Test
+    void testSendBatch_ShouldGroupByEntryCountAndSize() {
+        List<Integer> batchSizes = new ArrayList<>();
+        when(sqsTemplate.<MessageDto>sendMany(eq("cola-aws-sqs-1"), anyCollection())).thenAnswer(invocation -> {
+            Collection<Message<MessageDto>> batch = invocation.getArgument(1);
+            batchSizes.add(batch.size());
+            List<SendResult<MessageDto>> successful = batch.stream()
+                    .map(message -> new SendResult<>(UUID.randomUUID(), "cola-aws-sqs-1", message, Map.of()))
+                    .toList();
+            return new SendResult.Batch<>(successful, List.of());
+        });
+        SqsBatchSender sqsBatchSender = new SqsBatchSender(sqsTemplate);
+
+        // 25 mensajes pequeños => 10 + 10 + 5
+        List<BatchEntryResult> small = sqsBatchSender.sendBatch("cola-aws-sqs-1", messages(25, 100));
+        assertEquals(List.of(10, 10, 5), batchSizes);
+        assertEquals(25, small.size());
+        for (int i = 0; i < small.size(); i++) {
+            assertTrue(small.get(i).success());
+            assertEquals(i, small.get(i).index());
+        }
+
+        // 5 mensajes de ~100KB => no caben más de 2 por llamada (256KB)
+        batchSizes.clear();
+        sqsBatchSender.sendBatch("cola-aws-sqs-1", messages(5, 100 * 1024));
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        verify(sqsTemplate, times(6)).sendMany(eq("cola-aws-sqs-1"), anyCollection());
+    }
+
+    @Test
+    void testSendBatch_ShouldRejectOversizedEntryWithoutCallingSqs() {
+        SqsBatchSender sqsBatchSender = new SqsBatchSender(sqsTemplate);
+        List<BatchEntryResult> results = sqsBatchSender.sendBatch("cola-aws-sqs-1", messages(1, 300 * 1024));
+        assertFalse(results.get(0).success());
+    }
+
+    @Test
+    void testSendBatch_ShouldSetGroupAndDeduplicationIdOnFifoQueues() {
+        List<Message<MessageDto>> sentMessages = new ArrayList<>();
+        when(sqsTemplate.<MessageDto>sendMany(eq("cola-aws-sqs-1.fifo"), anyCollection())).thenAnswer(invocation -> {
+            Collection<Message<MessageDto>> batch = invocation.getArgument(1);
+            sentMessages.addAll(batch);
+            return new SendResult.Batch<MessageDto>(List.of(), List.of());
+        });
+        SqsBatchSender sqsBatchSender = new SqsBatchSender(sqsTemplate);
+        List<MessageDto> messages = List.of(
+                new MessageDto(Map.of("message_type", "test", "correlation_id", "t2", MessageDto.MESSAGE_ID, "m-1"), "A", "key", "QR-1234-20260111-LAX-GRU"),
+                new MessageDto(Map.of("message_type", "test", "correlation_id", "t2", MessageDto.MESSAGE_ID, "m-2"), "B", "key", "QR-1234-20260111-LAX-GRU"));
+
+        sqsBatchSender.sendBatch("cola-aws-sqs-1.fifo", messages);
+
+        assertEquals(2, sentMessages.size());
+        for (Message<MessageDto> message : sentMessages) {
+            assertEquals("QR-1234-20260111-LAX-GRU", message.getHeaders().get(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_GROUP_ID_HEADER));
+        }
+        // Mismo vuelo, message_type y correlation_id pero distinto message_id => distinta deduplicación
+        assertNotEquals(
+                sentMessages.get(0).getHeaders().get(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER),
+                sentMessages.get(1).getHeaders().get(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER));
+    }
+
+    private static List<MessageDto> messages(int count, int payloadSize) {
+        List<MessageDto> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new MessageDto(Map.of("message_type", "test"), "A".repeat(payloadSize), "key", "QR-1234-20260111-LAX-GRU"));
+        }
+        return messages;
+    }
+}
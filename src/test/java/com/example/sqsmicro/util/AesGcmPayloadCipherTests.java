@@ -0,0 +1,58 @@
+package com.example.sqsmicro.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class AesGcmPayloadCipherTests {
+
+    private SecretKey aesKey;
+
+    @BeforeEach
+    void setup() throws Exception {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        this.aesKey = keyGenerator.generateKey();
+    }
+
+    @Test
+    @DisplayName("Debe cifrar y descifrar payloads pequeños y grandes (multi-leg) reutilizando buffers")
+    void testRoundTrip() throws Exception {
+        String small = "<IATA_AIDX_FlightLegNotifRQ CorrelationID=\"t1\"><Originator CompanyShortName=\"São Paulo\"/></IATA_AIDX_FlightLegNotifRQ>";
+        StringBuilder large = new StringBuilder("<IATA_AIDX_FlightLegNotifRQ>");
+        for (int i = 0; i < 2_000; i++) {
+            large.append("<FlightLeg><LegIdentifier><FlightNumber>").append(i).append("</FlightNumber></LegIdentifier></FlightLeg>");
+        }
+        large.append("</IATA_AIDX_FlightLegNotifRQ>");
+
+        // Alternamos tamaños para forzar el crecimiento/reutilización de los buffers del hilo
+        for (String payload : new String[]{small, large.toString(), small}) {
+            String encrypted = AesGcmPayloadCipher.encrypt(payload, aesKey);
+            assertEquals(payload, AesGcmPayloadCipher.decrypt(encrypted, aesKey));
+        }
+        // IV aleatorio: el mismo texto nunca produce el mismo ciphertext
+        assertNotEquals(AesGcmPayloadCipher.encrypt(small, aesKey), AesGcmPayloadCipher.encrypt(small, aesKey));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un payload alterado (autenticación GCM)")
+    void testTamperedPayloadIsRejected() throws Exception {
+        byte[] sealed = Base64.getDecoder().decode(AesGcmPayloadCipher.encrypt("<FlightLeg/>", aesKey));
+        sealed[AesGcmPayloadCipher.IV_LENGTH] ^= 0x01;
+        String tampered = Base64.getEncoder().encodeToString(sealed);
+        assertThrows(AEADBadTagException.class, () -> AesGcmPayloadCipher.decrypt(tampered, aesKey));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.sqsmicro.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class ClaimCheckTests {
+
+    @TempDir
+    private Path blobRoot;
+
+    @Test
+    @DisplayName("Debe guardar el payload en binario, leerlo mapeado con el mismo contenido y borrarlo al liberar")
+    void testOffloadFetchRelease() throws Exception {
+        ClaimCheck claimCheck = new ClaimCheck(new FileSystemBlobStore(blobRoot), true, 16);
+        byte[] sealed = new byte[300_000];
+        for (int i = 0; i < sealed.length; i++) {
+            sealed[i] = (byte) (i * 31);
+        }
+        String encryptedPayload = Base64.getEncoder().encodeToString(sealed);
+        Map<String, String> metadata = new HashMap<>();
+
+        assertTrue(claimCheck.shouldOffload(encryptedPayload));
+        assertFalse(claimCheck.shouldOffload("c2hvcnQ="));
+        claimCheck.offload(encryptedPayload, metadata);
+
+        assertTrue(ClaimCheck.isClaimCheck(metadata));
+        Path blob = blobRoot.resolve(metadata.get(ClaimCheck.REFERENCE_KEY) + ".blob");
+        // Sin Base64: el blob ocupa lo mismo que el ciphertext
+        assertEquals(sealed.length, Files.size(blob));
+        assertEquals(ByteBuffer.wrap(sealed), claimCheck.fetch(metadata));
+
+        claimCheck.release(metadata);
+        assertFalse(Files.exists(blob));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un blob con checksum distinto y referencias que no son del store")
+    void testRejectTamperedBlobAndForeignReference() throws Exception {
+        ClaimCheck claimCheck = new ClaimCheck(new FileSystemBlobStore(blobRoot), true, 0);
+        Map<String, String> metadata = new HashMap<>();
+        claimCheck.offload(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4}), metadata);
+        Files.write(blobRoot.resolve(metadata.get(ClaimCheck.REFERENCE_KEY) + ".blob"), new byte[]{1, 2, 3, 5});
+
+        assertThrows(IOException.class, () -> claimCheck.fetch(metadata));
+        assertThrows(IllegalArgumentException.class,
+                () -> claimCheck.fetch(Map.of(ClaimCheck.REFERENCE_KEY, "../config.snapshot", ClaimCheck.CHECKSUM_KEY, "x")));
+    }
+
+    @Test
+    @DisplayName("Desactivado no debe mover payloads al store, pero sí leer las referencias que llegan de otros productores")
+    void testDisabled_ShouldNotOffloadButStillFetch() throws Exception {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(blobRoot);
+        Map<String, String> metadata = new HashMap<>();
+        new ClaimCheck(blobStore, true, 0).offload(Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4}), metadata);
+        ClaimCheck disabled = new ClaimCheck(blobStore, false, 0);
+
+        assertFalse(disabled.shouldOffload(Base64.getEncoder().encodeToString(new byte[300_000])));
+        assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), disabled.fetch(metadata));
+    }
+}
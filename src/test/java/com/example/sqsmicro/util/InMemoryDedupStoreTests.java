@@ -0,0 +1,63 @@
+package com.example.sqsmicro.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class InMemoryDedupStoreTests {
+
+    @Test
+    void testEntriesAreBoundedBySizeAndTtl() {
+        MutableClock clock = new MutableClock();
+        InMemoryDedupStore dedupStore = new InMemoryDedupStore(2, Duration.ofMinutes(15), clock);
+
+        assertEquals(DedupStore.Claim.CLAIMED, dedupStore.tryClaim("a"));
+        dedupStore.complete("a");
+        assertEquals(DedupStore.Claim.DONE, dedupStore.tryClaim("a"));
+
+        // max-entries = 2: "a" es la más antigua y se desaloja
+        dedupStore.tryClaim("b");
+        dedupStore.tryClaim("c");
+        assertEquals(2, dedupStore.size());
+        assertEquals(DedupStore.Claim.CLAIMED, dedupStore.tryClaim("a"));
+
+        // Pasado el TTL todas las entradas expiran
+        clock.advance(Duration.ofMinutes(16));
+        assertEquals(DedupStore.Claim.CLAIMED, dedupStore.tryClaim("c"));
+        assertEquals(1, dedupStore.size());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2026-01-11T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.sqsmicro.util;
+
+import com.example.sqsmicro.records.MessageDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class MessageEnvelopeTests {
+
+    @Test
+    @DisplayName("Debe reconstruir el MessageDto desde el envelope binario")
+    void testEncodeDecode_ShouldRoundTrip() {
+        Map<String, String> metadata = Map.of(
+                "correlation_id", "c-1",
+                SessionKeyManager.SESSION_KEY_ID, "k-42",
+                PayloadFormat.METADATA_KEY, "2",
+                "message_type", "IATAAIDXFlightLegNotifRQ",
+                KeyRegistry.KEY_ID, "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+        MessageDto message = new MessageDto(metadata, "Y2lwaGVydGV4dA==", "d3JhcHBlZC1rZXk=", "QR-1234-20260111-LAX-GRU");
+
+        String body = MessageEnvelope.encode(message);
+        MessageDto decoded = MessageEnvelope.decode(body);
+
+        assertTrue(MessageEnvelope.isEnvelope(body));
+        assertTrue(body.endsWith(".Y2lwaGVydGV4dA=="));
+        assertEquals(message.encryptedPayload(), decoded.encryptedPayload());
+        assertEquals(message.encryptedKey(), decoded.encryptedKey());
+        assertEquals(message.uniqueFlightId(), decoded.uniqueFlightId());
+        assertEquals(metadata, decoded.metadata());
+    }
+
+    @Test
+    @DisplayName("Un mensaje por claim-check (sin encryptedPayload ni data key) debe seguir sin ellos")
+    void testEncodeDecode_ShouldKeepMissingPayloadAndKey() {
+        MessageDto message = new MessageDto(Map.of(ClaimCheck.REFERENCE_KEY, "0b9f1f8e-3c1a-4d7e-9a55-3f2b1c7d8e90"), null, null, "QR-1234-20260111-LAX-GRU");
+
+        MessageDto decoded = MessageEnvelope.decode(MessageEnvelope.encode(message));
+
+        assertNull(decoded.encryptedPayload());
+        assertNull(decoded.encryptedKey());
+        assertEquals(message.metadata(), decoded.metadata());
+    }
+
+    @Test
+    @DisplayName("Un body JSON no es un envelope, y un envelope corrupto se rechaza")
+    void testIsEnvelope_ShouldTellFormatsApart() {
+        assertFalse(MessageEnvelope.isEnvelope("{\"metadata\":{},\"encryptedPayload\":\"a.b\"}"));
+        String body = MessageEnvelope.encode(new MessageDto(Map.of(), "Y2lwaGVy", "a2V5", "QR-1234-20260111-LAX-GRU"));
+
+        assertThrows(MalformedEnvelopeException.class, () -> MessageEnvelope.decode(body.substring(0, 12) + body.substring(body.indexOf('.'))));
+        assertThrows(MalformedEnvelopeException.class, () -> MessageEnvelope.decode("AAAAAAAA.Y2lwaGVy"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.sqsmicro.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.sqsmicro.records.MessageDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+class MessageTraceTests {
+
+    private final Logger traceLogger = (Logger) LoggerFactory.getLogger(MessageTrace.LOGGER_NAME);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private final MessageDto message = new MessageDto(
+            Map.of("correlation_id", "c-1"), "A".repeat(1000), "key", "QR1234");
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        traceLogger.addAppender(appender);
+        traceLogger.setLevel(Level.DEBUG);
+    }
+
+    @AfterEach
+    void tearDown() {
+        traceLogger.detachAppender(appender);
+        traceLogger.setLevel(null);
+    }
+
+    @Test
+    void sampledMessageIsLoggedOnceWithTruncatedValues() {
+        new MessageTrace(1, 16).outbound("airport-c", "<xml>" + "x".repeat(100) + "</xml>", message);
+
+        assertEquals(1, appender.list.size());
+        Map<String, Object> fields = appender.list.get(0).getKeyValuePairs().stream()
+                .collect(Collectors.toMap(pair -> pair.key, pair -> pair.value == null ? "null" : pair.value));
+        assertEquals("airport-c", fields.get("peer"));
+        assertEquals("QR1234", fields.get("flight"));
+        assertEquals("AAAAAAAAAAAAAAAA...(1000 chars)", fields.get("encrypted_payload"));
+        assertEquals("key", fields.get("encrypted_key"));
+        assertTrue(((String) fields.get("payload")).startsWith("<xml>xxxxxxxxxxx..."));
+    }
+
+    @Test
+    void nothingIsLoggedWithZeroSampleRate() {
+        MessageTrace trace = new MessageTrace(0, 256);
+
+        trace.inbound(message, "<xml/>");
+
+        assertTrue(appender.list.isEmpty());
+        assertFalse(trace.sampled());
+    }
+
+    @Test
+    void nothingIsLoggedWhenTraceLoggerIsAboveDebug() {
+        traceLogger.setLevel(Level.INFO);
+        MessageTrace trace = new MessageTrace(1, 256);
+
+        trace.inbound(message, "<xml/>");
+
+        assertTrue(appender.list.isEmpty());
+        assertFalse(trace.sampled());
+    }
+}
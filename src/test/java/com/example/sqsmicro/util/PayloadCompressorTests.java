@@ -0,0 +1,83 @@
+package com.example.sqsmicro.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class PayloadCompressorTests {
+
+    private static final String LEG = "<FlightLeg><LegIdentifier><Airline CodeContext=\"IATA\">QR</Airline><FlightNumber>1234</FlightNumber>"
+            + "<DepartureAirport CodeContext=\"IATA\">LAX</DepartureAirport><ArrivalAirport CodeContext=\"IATA\">GRU</ArrivalAirport>"
+            + "</LegIdentifier><LegData><OperationalStatus>SCH</OperationalStatus></LegData></FlightLeg>";
+
+    @Test
+    @DisplayName("Debe comprimir por encima del umbral (nivel normal y nivel rápido) y descomprimir al mismo texto")
+    void testRoundTrip() throws Exception {
+        PayloadCompressor compressor = new PayloadCompressor("deflate", 512, 6, 16 * 1024, 1);
+        String medium = "<IATA_AIDX_FlightLegNotifRQ>" + LEG.repeat(5) + "</IATA_AIDX_FlightLegNotifRQ>";
+        String large = "<IATA_AIDX_FlightLegNotifRQ>" + LEG.repeat(500) + "</IATA_AIDX_FlightLegNotifRQ>";
+
+        for (String payload : new String[]{medium, large, medium}) {
+            ByteBuffer compressed = compressor.compress(payload);
+            assertNotNull(compressed);
+            assertTrue(compressed.remaining() < payload.length() / 2, "AIDX XML should compress well");
+            assertEquals(payload, decode(compressed));
+        }
+    }
+
+    @Test
+    @DisplayName("No debe comprimir por debajo del umbral, con codec identity, ni cuando el resultado no es más chico")
+    void testSkip() {
+        PayloadCompressor compressor = new PayloadCompressor("deflate", 512, 6, 16 * 1024, 1);
+
+        assertNull(compressor.compress(LEG));
+        assertNull(new PayloadCompressor("identity", 0, 6, 16 * 1024, 1).compress(LEG.repeat(10)));
+        // Cabecera + checksum de zlib: un payload mínimo crece al comprimirlo
+        assertNull(new PayloadCompressor("deflate", 0, 6, 16 * 1024, 1).compress("<a/>"));
+    }
+
+    @Test
+    @DisplayName("Debe resolver el codec desde la metadata y cortar payloads que se expanden por encima del límite")
+    void testCodecFromMetadata() {
+        assertEquals(PayloadCodec.IDENTITY, PayloadCodec.fromMetadata(Map.of()));
+        assertEquals(PayloadCodec.DEFLATE, PayloadCodec.fromMetadata(Map.of(PayloadCodec.METADATA_KEY, "deflate")));
+        assertThrows(IllegalArgumentException.class, () -> PayloadCodec.fromEncoding("zstd"));
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(new byte[PayloadCodec.MAX_DECODED_BYTES + 1]);
+        deflater.finish();
+        byte[] bomb = new byte[64 * 1024];
+        int length = deflater.deflate(bomb);
+        deflater.end();
+        assertThrows(PayloadTooLargeException.class, () -> {
+            try (InputStream in = PayloadCodec.DEFLATE.decode(new ByteArrayInputStream(bomb, 0, length))) {
+                in.readAllBytes();
+            }
+        });
+    }
+
+    private static String decode(ByteBuffer compressed) throws IOException {
+        byte[] bytes = new byte[compressed.remaining()];
+        compressed.get(bytes);
+        try (InputStream in = PayloadCodec.DEFLATE.decode(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
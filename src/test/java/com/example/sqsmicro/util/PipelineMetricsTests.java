@@ -0,0 +1,63 @@
+package com.example.sqsmicro.util;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class PipelineMetricsTests {
+
+    @Test
+    @DisplayName("Debe registrar cada etapa por peer y message_type, también cuando la etapa falla")
+    void testProducer_ShouldTagStagesByPeerAndMessageType() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PipelineMetrics pipelineMetrics = new PipelineMetrics(meterRegistry, "airlines-b", List.of("airport-c"));
+        StageRecorder stages = pipelineMetrics.producer("airport-c", "IATAAIDXFlightLegNotifRQ");
+
+        stages.record(PipelineStage.AES_ENCRYPT, TimeUnit.MILLISECONDS.toNanos(3));
+        assertThrows(IllegalStateException.class, () -> stages.run(PipelineStage.SQS_SEND, () -> {
+            throw new IllegalStateException("queue unavailable");
+        }));
+        stages.count("failed");
+
+        Timer aes = meterRegistry.get("sqs.producer.stage").tag("stage", "aes_encrypt")
+                .tag("peer", "airport-c").tag("message_type", "IATAAIDXFlightLegNotifRQ").timer();
+        assertEquals(1, aes.count());
+        assertEquals(3.0, aes.totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(1, meterRegistry.get("sqs.producer.stage").tag("stage", "sqs_send").timer().count());
+        assertEquals(1.0, meterRegistry.get("sqs.producer.messages").tag("outcome", "failed").counter().count());
+        // Una etapa del consumidor no es válida en el recorder del productor
+        assertThrows(IllegalArgumentException.class, () -> stages.record(PipelineStage.AES_DECRYPT, 1));
+    }
+
+    @Test
+    @DisplayName("Debe etiquetar el consumidor por emisor y acotar los valores que llegan en la metadata")
+    void testConsumer_ShouldBoundTagValuesFromMetadata() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PipelineMetrics pipelineMetrics = new PipelineMetrics(meterRegistry, "airport-c", List.of("airlines-b"));
+
+        pipelineMetrics.consumer(Map.of(PipelineMetrics.SENDER_ID, "airlines-b", "message_type", "IATAAIDXFlightLegNotifRQ"))
+                .record(PipelineStage.RSA_UNWRAP, 1_000);
+        pipelineMetrics.consumer(Map.of(PipelineMetrics.SENDER_ID, "<script>", "message_type", "x".repeat(500)))
+                .record(PipelineStage.RSA_UNWRAP, 1_000);
+        // Identificadores válidos pero desconocidos: cada uno sería una serie nueva
+        pipelineMetrics.consumer(Map.of(PipelineMetrics.SENDER_ID, "peer-" + System.nanoTime(), "message_type", "IATAAIDXUnknownRQ"))
+                .record(PipelineStage.RSA_UNWRAP, 1_000);
+        pipelineMetrics.consumer(null).record(PipelineStage.RSA_UNWRAP, 1_000);
+
+        assertEquals(1, meterRegistry.get("sqs.consumer.stage").tag("stage", "rsa_unwrap").tag("peer", "airlines-b").timer().count());
+        assertEquals(2, meterRegistry.get("sqs.consumer.stage").tag("stage", "rsa_unwrap").tag("peer", "other").tag("message_type", "other").timer().count());
+        assertEquals(1, meterRegistry.get("sqs.consumer.stage").tag("stage", "rsa_unwrap").tag("peer", "none").tag("message_type", "none").timer().count());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.sqsmicro.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author ian.paris
+ * @since 2026-10-17
+ */
+public class PublicKeyCacheTests {
+
+    private PublicKeyCache publicKeyCache;
+    private String rawPublicKey;
+
+    @BeforeEach
+    void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        this.rawPublicKey = Base64.getEncoder().encodeToString(generator.generateKeyPair().getPublic().getEncoded());
+        this.publicKeyCache = new PublicKeyCache();
+    }
+
+    @Test
+    @DisplayName("Debe parsear la clave una sola vez por peer y contar hits/misses")
+    void testGetParsesOnlyOnce() throws Exception {
+        PublicKey first = publicKeyCache.get("airport-c", rawPublicKey);
+        PublicKey second = publicKeyCache.get("airport-c", rawPublicKey);
+        // Mismo material con saltos de línea distintos: sigue siendo un hit
+        PublicKey third = publicKeyCache.get("airport-c", rawPublicKey.substring(0, 64) + "\n" + rawPublicKey.substring(64));
+
+        assertSame(first, second);
+        assertSame(first, third);
+        assertEquals(1, publicKeyCache.getMissCount());
+        assertEquals(2, publicKeyCache.getHitCount());
+    }
+
+    @Test
+    @DisplayName("Debe re-parsear cuando el peer rota su clave o se invalida la entrada")
+    void testRotationAndInvalidation() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        String rotatedKey = Base64.getEncoder().encodeToString(generator.generateKeyPair().getPublic().getEncoded());
+
+        PublicKey original = publicKeyCache.get("airport-c", rawPublicKey);
+        PublicKey rotated = publicKeyCache.get("airport-c", rotatedKey);
+        assertNotEquals(original, rotated);
+
+        publicKeyCache.invalidate("airport-c");
+        assertEquals(0, publicKeyCache.size());
+        publicKeyCache.get("airport-c", rotatedKey);
+        assertEquals(3, publicKeyCache.getMissCount());
+        assertEquals(0, publicKeyCache.getHitCount());
+    }
+}